@@ -36,6 +36,7 @@ import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.applications.ProcStatsData;
 import com.android.settings.fuelgauge.batterytip.AnomalyConfigJobService;
+import com.android.settings.utils.AppIconCache;
 import com.android.settingslib.net.DataUsageController;
 
 import org.json.JSONArray;
@@ -60,6 +61,8 @@ public class SettingsDumpService extends Service {
     @VisibleForTesting
     static final String KEY_ANOMALY_DETECTION = "anomaly_detection";
     @VisibleForTesting
+    static final String KEY_APP_ICON_CACHE = "app_icon_cache";
+    @VisibleForTesting
     static final Intent BROWSER_INTENT =
             new Intent("android.intent.action.VIEW", Uri.parse("http://"));
 
@@ -79,6 +82,7 @@ public class SettingsDumpService extends Service {
             dump.put(KEY_MEMORY, dumpMemory());
             dump.put(KEY_DEFAULT_BROWSER_APP, dumpDefaultBrowser());
             dump.put(KEY_ANOMALY_DETECTION, dumpAnomalyDetection());
+            dump.put(KEY_APP_ICON_CACHE, AppIconCache.getInstance(this).dump());
         } catch (Exception e) {
             e.printStackTrace();
         }
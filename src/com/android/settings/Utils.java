@@ -112,6 +112,7 @@ import com.android.internal.widget.LockPatternUtils;
 import com.android.settings.dashboard.profileselector.ProfileFragmentBridge;
 import com.android.settings.dashboard.profileselector.ProfileSelectFragment;
 import com.android.settings.password.ChooseLockSettingsHelper;
+import com.android.settings.utils.AppIconCache;
 import com.android.settingslib.widget.ActionBarShadowController;
 import com.android.settingslib.widget.AdaptiveIcon;
 
@@ -1093,6 +1094,28 @@ public final class Utils extends com.android.settingslib.Utils {
         }
     }
 
+    /**
+     * Same as {@link #getBadgedIcon(IconDrawableFactory, PackageManager, String, int)}, through the
+     * process wide {@link AppIconCache}.
+     */
+    public static Drawable getBadgedIconCached(Context context,
+            IconDrawableFactory iconDrawableFactory, PackageManager packageManager,
+            String packageName, int userId) {
+        return AppIconCache.getInstance(context).getIcon(context, packageName, userId,
+                AppIconCache.Variant.FACTORY_BADGED,
+                () -> getBadgedIcon(iconDrawableFactory, packageManager, packageName, userId));
+    }
+
+    /**
+     * Get the {@link Drawable} that represents the app icon, badged for the user of
+     * {@code appInfo}, through the process wide {@link AppIconCache}.
+     */
+    public static Drawable getBadgedIconCached(Context context, ApplicationInfo appInfo) {
+        return AppIconCache.getInstance(context).getIcon(context, appInfo.packageName,
+                UserHandle.getUserId(appInfo.uid), AppIconCache.Variant.BADGED,
+                () -> com.android.settingslib.Utils.getBadgedIcon(context, appInfo));
+    }
+
     /** Returns true if the current package is installed & enabled. */
     public static boolean isPackageEnabled(Context context, String packageName) {
         try {
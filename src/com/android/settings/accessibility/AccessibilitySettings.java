@@ -37,6 +37,7 @@ import android.os.UserHandle;
 import android.provider.Settings;
 import android.text.TextUtils;
 import android.util.ArrayMap;
+import android.util.ArraySet;
 import android.view.accessibility.AccessibilityManager;
 
 import androidx.annotation.VisibleForTesting;
@@ -58,12 +59,15 @@ import com.android.settingslib.RestrictedPreference;
 import com.android.settingslib.accessibility.AccessibilityUtils;
 import com.android.settingslib.search.SearchIndexable;
 import com.android.settingslib.search.SearchIndexableRaw;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /** Activity with the accessibility settings. */
 @SearchIndexable(forTarget = SearchIndexable.ALL & ~SearchIndexable.ARC)
@@ -122,25 +126,26 @@ public class AccessibilitySettings extends DashboardFragment {
     private final PackageMonitor mSettingsPackageMonitor = new PackageMonitor() {
         @Override
         public void onPackageAdded(String packageName, int uid) {
-            sendUpdate();
+            sendUpdate(packageName);
         }
 
         @Override
         public void onPackageAppeared(String packageName, int reason) {
-            sendUpdate();
+            sendUpdate(packageName);
         }
 
         @Override
         public void onPackageDisappeared(String packageName, int reason) {
-            sendUpdate();
+            sendUpdate(packageName);
         }
 
         @Override
         public void onPackageRemoved(String packageName, int uid) {
-            sendUpdate();
+            sendUpdate(packageName);
         }
 
-        private void sendUpdate() {
+        private void sendUpdate(String packageName) {
+            onPackageChanged(packageName);
             mHandler.postDelayed(mUpdateRunnable, DELAY_UPDATE_SERVICES_MILLIS);
         }
     };
@@ -154,6 +159,15 @@ public class AccessibilitySettings extends DashboardFragment {
             new ArrayMap<>();
     private final Map<ComponentName, PreferenceCategory> mPreBundledServiceComponentToCategoryMap =
             new ArrayMap<>();
+    // Preference key to order within each category, from the config_order_*_services arrays.
+    private final Map<String, Map<String, Integer>> mCategoryToServiceOrderMap =
+            new ArrayMap<>();
+    // Icons of the installed services and shortcuts. Filled in the background, entries are
+    // dropped when their package changes.
+    private final Map<ComponentName, Drawable> mServiceIconCache = new ConcurrentHashMap<>();
+    // Packages changed since the service preferences were last applied.
+    private final Set<String> mChangedPackages = new ArraySet<>();
+    private int mServiceUpdateGeneration;
 
     private boolean mNeedPreferencesUpdate = false;
     private boolean mIsForeground = true;
@@ -314,6 +328,28 @@ public class AccessibilitySettings extends DashboardFragment {
             PreferenceCategory prefCategory = findPreference(CATEGORIES[i]);
             mCategoryToPrefCategoryMap.put(CATEGORIES[i], prefCategory);
         }
+
+        initializePreBundledServicesMapFromArray(CATEGORY_SCREEN_READER,
+                R.array.config_preinstalled_screen_reader_services);
+        initializePreBundledServicesMapFromArray(CATEGORY_CAPTIONS,
+                R.array.config_preinstalled_captions_services);
+        initializePreBundledServicesMapFromArray(CATEGORY_AUDIO,
+                R.array.config_preinstalled_audio_services);
+        initializePreBundledServicesMapFromArray(CATEGORY_DISPLAY,
+                R.array.config_preinstalled_display_services);
+        initializePreBundledServicesMapFromArray(CATEGORY_INTERACTION_CONTROL,
+                R.array.config_preinstalled_interaction_control_services);
+
+        initializeServiceOrderMapFromArray(CATEGORY_SCREEN_READER,
+                R.array.config_order_screen_reader_services);
+        initializeServiceOrderMapFromArray(CATEGORY_CAPTIONS,
+                R.array.config_order_captions_services);
+        initializeServiceOrderMapFromArray(CATEGORY_AUDIO,
+                R.array.config_order_audio_services);
+        initializeServiceOrderMapFromArray(CATEGORY_INTERACTION_CONTROL,
+                R.array.config_order_interaction_control_services);
+        initializeServiceOrderMapFromArray(CATEGORY_DISPLAY,
+                R.array.config_order_display_services);
     }
 
     @VisibleForTesting
@@ -335,34 +371,69 @@ public class AccessibilitySettings extends DashboardFragment {
         mSettingsContentObserver.unregister(getContentResolver());
     }
 
+    /**
+     * Resolves the installed accessibility services and shortcuts with their labels, summaries and
+     * icons in the background, then applies the resulting preferences to the categories on the
+     * main thread.
+     */
     protected void updateServicePreferences() {
-        // Since services category is auto generated we have to do a pass
-        // to generate it since services can come and go and then based on
-        // the global accessibility state to decided whether it is enabled.
-        final ArrayList<Preference> servicePreferences =
-                new ArrayList<>(mServicePreferenceToPreferenceCategoryMap.keySet());
-        for (int i = 0; i < servicePreferences.size(); i++) {
-            Preference service = servicePreferences.get(i);
-            PreferenceCategory category = mServicePreferenceToPreferenceCategoryMap.get(service);
-            category.removePreference(service);
-        }
+        final int generation = ++mServiceUpdateGeneration;
+        final Context context = getPrefContext();
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final ServiceCatalog catalog = loadServiceCatalog(context);
+            ThreadUtils.postOnMainThread(() -> {
+                // Drop the result if a newer update started or the page is gone.
+                if (generation != mServiceUpdateGeneration || getActivity() == null) {
+                    return;
+                }
+                applyServicePreferences(catalog);
+            });
+        });
+    }
 
-        initializePreBundledServicesMapFromArray(CATEGORY_SCREEN_READER,
-                R.array.config_preinstalled_screen_reader_services);
-        initializePreBundledServicesMapFromArray(CATEGORY_CAPTIONS,
-                R.array.config_preinstalled_captions_services);
-        initializePreBundledServicesMapFromArray(CATEGORY_AUDIO,
-                R.array.config_preinstalled_audio_services);
-        initializePreBundledServicesMapFromArray(CATEGORY_DISPLAY,
-                R.array.config_preinstalled_display_services);
-        initializePreBundledServicesMapFromArray(CATEGORY_INTERACTION_CONTROL,
-                R.array.config_preinstalled_interaction_control_services);
+    private ServiceCatalog loadServiceCatalog(Context context) {
+        final AccessibilityManager a11yManager = AccessibilityManager.getInstance(context);
+        final PackageManager packageManager = context.getPackageManager();
+        final RestrictedPreferenceHelper preferenceHelper =
+                new RestrictedPreferenceHelper(context, mServiceIconCache);
 
-        final List<RestrictedPreference> preferenceList = getInstalledAccessibilityList(
-                getPrefContext());
+        final List<AccessibilityShortcutInfo> installedShortcutList =
+                a11yManager.getInstalledAccessibilityShortcutListAsUser(context,
+                        UserHandle.myUserId());
+
+        // Remove duplicate item here, new a ArrayList to copy unmodifiable list result
+        // (getInstalledAccessibilityServiceList).
+        final List<AccessibilityServiceInfo> installedServiceList = new ArrayList<>(
+                a11yManager.getInstalledAccessibilityServiceList());
+        installedServiceList.removeIf(target -> containsTargetNameInList(packageManager,
+                installedShortcutList, target));
+
+        preferenceHelper.preload(installedShortcutList, installedServiceList);
+        return new ServiceCatalog(installedShortcutList, installedServiceList, preferenceHelper);
+    }
+
+    /**
+     * Applies the preferences of {@param catalog} as a keyed diff: a preference whose key, category
+     * and displayed state are unchanged is kept, every other one is replaced, added or removed.
+     */
+    private void applyServicePreferences(ServiceCatalog catalog) {
+        final RestrictedPreferenceHelper preferenceHelper = catalog.mPreferenceHelper;
+        final List<RestrictedPreference> preferenceList = new ArrayList<>();
+        preferenceList.addAll(
+                preferenceHelper.createAccessibilityActivityPreferenceList(catalog.mShortcuts));
+        preferenceList.addAll(
+                preferenceHelper.createAccessibilityServicePreferenceList(catalog.mServices));
+
+        final Map<String, Preference> oldPreferences = new ArrayMap<>();
+        for (Preference preference : mServicePreferenceToPreferenceCategoryMap.keySet()) {
+            oldPreferences.put(preference.getKey(), preference);
+        }
+        final Set<String> changedPackages = new ArraySet<>(mChangedPackages);
+        mChangedPackages.clear();
 
         final PreferenceCategory downloadedServicesCategory =
                 mCategoryToPrefCategoryMap.get(CATEGORY_DOWNLOADED_SERVICES);
+        final Map<Preference, PreferenceCategory> newPreferenceToCategoryMap = new ArrayMap<>();
 
         for (int i = 0, count = preferenceList.size(); i < count; ++i) {
             final RestrictedPreference preference = preferenceList.get(i);
@@ -373,21 +444,39 @@ public class AccessibilitySettings extends DashboardFragment {
             if (mPreBundledServiceComponentToCategoryMap.containsKey(componentName)) {
                 prefCategory = mPreBundledServiceComponentToCategoryMap.get(componentName);
             }
+
+            final Preference oldPreference = oldPreferences.remove(preference.getKey());
+            if (oldPreference != null
+                    && mServicePreferenceToPreferenceCategoryMap.get(oldPreference) == prefCategory
+                    && !changedPackages.contains(componentName.getPackageName())
+                    && isSameServicePreference(oldPreference, preference)) {
+                // Keep the bound preference, only refresh the extras used to open the service.
+                oldPreference.getExtras().clear();
+                oldPreference.getExtras().putAll(preference.getExtras());
+                newPreferenceToCategoryMap.put(oldPreference, prefCategory);
+                continue;
+            }
+            if (oldPreference != null) {
+                mServicePreferenceToPreferenceCategoryMap.get(oldPreference)
+                        .removePreference(oldPreference);
+            }
             prefCategory.addPreference(preference);
-            mServicePreferenceToPreferenceCategoryMap.put(preference, prefCategory);
+            newPreferenceToCategoryMap.put(preference, prefCategory);
         }
 
+        // Services which are no longer installed.
+        for (Preference preference : oldPreferences.values()) {
+            mServicePreferenceToPreferenceCategoryMap.get(preference)
+                    .removePreference(preference);
+        }
+        mServicePreferenceToPreferenceCategoryMap.clear();
+        mServicePreferenceToPreferenceCategoryMap.putAll(newPreferenceToCategoryMap);
+
         // Update the order of all the category according to the order defined in xml file.
-        updateCategoryOrderFromArray(CATEGORY_SCREEN_READER,
-                R.array.config_order_screen_reader_services);
-        updateCategoryOrderFromArray(CATEGORY_CAPTIONS,
-                R.array.config_order_captions_services);
-        updateCategoryOrderFromArray(CATEGORY_AUDIO,
-                R.array.config_order_audio_services);
-        updateCategoryOrderFromArray(CATEGORY_INTERACTION_CONTROL,
-                R.array.config_order_interaction_control_services);
-        updateCategoryOrderFromArray(CATEGORY_DISPLAY,
-                R.array.config_order_display_services);
+        for (Map.Entry<String, Map<String, Integer>> entry
+                : mCategoryToServiceOrderMap.entrySet()) {
+            updateCategoryOrder(entry.getKey(), entry.getValue());
+        }
 
         // Need to check each time when updateServicePreferences() called.
         if (downloadedServicesCategory.getPreferenceCount() == 0) {
@@ -400,44 +489,36 @@ public class AccessibilitySettings extends DashboardFragment {
         updatePreferenceCategoryVisibility(CATEGORY_SCREEN_READER);
     }
 
-    private List<RestrictedPreference> getInstalledAccessibilityList(Context context) {
-        final AccessibilityManager a11yManager = AccessibilityManager.getInstance(context);
-        final RestrictedPreferenceHelper preferenceHelper = new RestrictedPreferenceHelper(context);
-
-        final List<AccessibilityShortcutInfo> installedShortcutList =
-                a11yManager.getInstalledAccessibilityShortcutListAsUser(context,
-                        UserHandle.myUserId());
-
-        // Remove duplicate item here, new a ArrayList to copy unmodifiable list result
-        // (getInstalledAccessibilityServiceList).
-        final List<AccessibilityServiceInfo> installedServiceList = new ArrayList<>(
-                a11yManager.getInstalledAccessibilityServiceList());
-        installedServiceList.removeIf(
-                target -> containsTargetNameInList(installedShortcutList, target));
-
-        final List<RestrictedPreference> activityList =
-                preferenceHelper.createAccessibilityActivityPreferenceList(installedShortcutList);
-
-        final List<RestrictedPreference> serviceList =
-                preferenceHelper.createAccessibilityServicePreferenceList(installedServiceList);
-
-        final List<RestrictedPreference> preferenceList = new ArrayList<>();
-        preferenceList.addAll(activityList);
-        preferenceList.addAll(serviceList);
+    private static boolean isSameServicePreference(Preference oldPreference,
+            RestrictedPreference newPreference) {
+        if (!(oldPreference instanceof RestrictedPreference)) {
+            return false;
+        }
+        final RestrictedPreference preference = (RestrictedPreference) oldPreference;
+        return TextUtils.equals(preference.getTitle(), newPreference.getTitle())
+                && TextUtils.equals(preference.getSummary(), newPreference.getSummary())
+                && TextUtils.equals(preference.getFragment(), newPreference.getFragment())
+                && preference.isEnabled() == newPreference.isEnabled()
+                && preference.isDisabledByAdmin() == newPreference.isDisabledByAdmin();
+    }
 
-        return preferenceList;
+    private void onPackageChanged(String packageName) {
+        mChangedPackages.add(packageName);
+        mServiceIconCache.keySet().removeIf(
+                componentName -> componentName.getPackageName().equals(packageName));
     }
 
-    private boolean containsTargetNameInList(List<AccessibilityShortcutInfo> shortcutInfos,
+    private static boolean containsTargetNameInList(PackageManager packageManager,
+            List<AccessibilityShortcutInfo> shortcutInfos,
             AccessibilityServiceInfo targetServiceInfo) {
         final ServiceInfo serviceInfo = targetServiceInfo.getResolveInfo().serviceInfo;
         final String servicePackageName = serviceInfo.packageName;
-        final CharSequence serviceLabel = serviceInfo.loadLabel(getPackageManager());
+        final CharSequence serviceLabel = serviceInfo.loadLabel(packageManager);
 
         for (int i = 0, count = shortcutInfos.size(); i < count; ++i) {
             final ActivityInfo activityInfo = shortcutInfos.get(i).getActivityInfo();
             final String activityPackageName = activityInfo.packageName;
-            final CharSequence activityLabel = activityInfo.loadLabel(getPackageManager());
+            final CharSequence activityLabel = activityInfo.loadLabel(packageManager);
             if (servicePackageName.equals(activityPackageName)
                     && serviceLabel.equals(activityLabel)) {
                 return true;
@@ -455,25 +536,33 @@ public class AccessibilitySettings extends DashboardFragment {
         }
     }
 
+    private void initializeServiceOrderMapFromArray(String categoryKey, int key) {
+        final String[] services = getResources().getStringArray(key);
+        final Map<String, Integer> orderMap = new ArrayMap<>(services.length);
+        for (int i = 0; i < services.length; i++) {
+            // Keep the first position of a service listed twice, as the lookup used to.
+            if (!orderMap.containsKey(services[i])) {
+                orderMap.put(services[i], i);
+            }
+        }
+        mCategoryToServiceOrderMap.put(categoryKey, orderMap);
+    }
+
     /**
      * Update the order of preferences in the category by matching their preference
-     * key with the string array of preference order which is defined in the xml.
+     * key with the order map built from the string array defined in the xml.
      *
      * @param categoryKey The key of the category need to update the order
-     * @param key         The key of the string array which defines the order of category
+     * @param orderMap    The order of each preference key in the category
      */
-    private void updateCategoryOrderFromArray(String categoryKey, int key) {
-        String[] services = getResources().getStringArray(key);
-        PreferenceCategory category = mCategoryToPrefCategoryMap.get(categoryKey);
-        int preferenceCount = category.getPreferenceCount();
-        int serviceLength = services.length;
+    private void updateCategoryOrder(String categoryKey, Map<String, Integer> orderMap) {
+        final PreferenceCategory category = mCategoryToPrefCategoryMap.get(categoryKey);
+        final int preferenceCount = category.getPreferenceCount();
         for (int preferenceIndex = 0; preferenceIndex < preferenceCount; preferenceIndex++) {
-            for (int serviceIndex = 0; serviceIndex < serviceLength; serviceIndex++) {
-                if (category.getPreference(preferenceIndex).getKey()
-                        .equals(services[serviceIndex])) {
-                    category.getPreference(preferenceIndex).setOrder(serviceIndex);
-                    break;
-                }
+            final Preference preference = category.getPreference(preferenceIndex);
+            final Integer order = orderMap.get(preference.getKey());
+            if (order != null) {
+                preference.setOrder(order);
             }
         }
     }
@@ -506,6 +595,38 @@ public class AccessibilitySettings extends DashboardFragment {
                 }
             };
 
+    /** Installed accessibility shortcuts and services, resolved in the background. */
+    private static class ServiceCatalog {
+        final List<AccessibilityShortcutInfo> mShortcuts;
+        final List<AccessibilityServiceInfo> mServices;
+        // Preloaded with the texts and icons of mShortcuts and mServices.
+        final RestrictedPreferenceHelper mPreferenceHelper;
+
+        ServiceCatalog(List<AccessibilityShortcutInfo> shortcuts,
+                List<AccessibilityServiceInfo> services,
+                RestrictedPreferenceHelper preferenceHelper) {
+            mShortcuts = shortcuts;
+            mServices = services;
+            mPreferenceHelper = preferenceHelper;
+        }
+    }
+
+    /** The texts shown for a service or shortcut, which are loaded from its package. */
+    private static class ServiceTexts {
+        final CharSequence mTitle;
+        final CharSequence mSummary;
+        final CharSequence mDescription;
+        final String mHtmlDescription;
+
+        ServiceTexts(CharSequence title, CharSequence summary, CharSequence description,
+                String htmlDescription) {
+            mTitle = title;
+            mSummary = summary;
+            mDescription = description;
+            mHtmlDescription = htmlDescription;
+        }
+    }
+
     /**
      * This class helps setup RestrictedPreference.
      */
@@ -514,11 +635,80 @@ public class AccessibilitySettings extends DashboardFragment {
         private final Context mContext;
         private final DevicePolicyManager mDpm;
         private final PackageManager mPm;
+        // Icons by component, shared between helpers. Null to load every icon.
+        private final Map<ComponentName, Drawable> mIconCache;
+        // Texts by component and the enabled services they were loaded with, set by preload().
+        private final Map<ComponentName, ServiceTexts> mTexts = new ArrayMap<>();
+        private Set<ComponentName> mEnabledServices;
 
         RestrictedPreferenceHelper(Context context) {
+            this(context, null /* iconCache */);
+        }
+
+        RestrictedPreferenceHelper(Context context, Map<ComponentName, Drawable> iconCache) {
             mContext = context;
             mDpm = context.getSystemService(DevicePolicyManager.class);
             mPm = context.getPackageManager();
+            mIconCache = iconCache;
+        }
+
+        /**
+         * Loads the texts and icons of {@param installedShortcuts} and {@param installedServices},
+         * so that creating their preferences later, e.g. on the main thread, does not load them
+         * from their packages. The preferences are then created with the enabled services read
+         * here.
+         */
+        void preload(List<AccessibilityShortcutInfo> installedShortcuts,
+                List<AccessibilityServiceInfo> installedServices) {
+            mEnabledServices = AccessibilityUtils.getEnabledServicesFromSettings(mContext);
+            for (AccessibilityShortcutInfo info : installedShortcuts) {
+                final ActivityInfo activityInfo = info.getActivityInfo();
+                mTexts.put(info.getComponentName(), loadShortcutTexts(info));
+                getIcon(info.getComponentName(), activityInfo.getIconResource(),
+                        () -> activityInfo.loadIcon(mPm));
+            }
+            for (AccessibilityServiceInfo info : installedServices) {
+                final ResolveInfo resolveInfo = info.getResolveInfo();
+                final ComponentName componentName = new ComponentName(
+                        resolveInfo.serviceInfo.packageName, resolveInfo.serviceInfo.name);
+                mTexts.put(componentName,
+                        loadServiceTexts(info, mEnabledServices.contains(componentName)));
+                getIcon(componentName, resolveInfo.getIconResource(),
+                        () -> resolveInfo.loadIcon(mPm));
+            }
+        }
+
+        private Set<ComponentName> getEnabledServices() {
+            return mEnabledServices != null ? mEnabledServices
+                    : AccessibilityUtils.getEnabledServicesFromSettings(mContext);
+        }
+
+        private ServiceTexts loadServiceTexts(AccessibilityServiceInfo info,
+                boolean serviceEnabled) {
+            return new ServiceTexts(info.getResolveInfo().loadLabel(mPm),
+                    getServiceSummary(mContext, info, serviceEnabled),
+                    getServiceDescription(mContext, info, serviceEnabled),
+                    info.loadHtmlDescription(mPm));
+        }
+
+        private ServiceTexts loadShortcutTexts(AccessibilityShortcutInfo info) {
+            return new ServiceTexts(info.getActivityInfo().loadLabel(mPm), info.loadSummary(mPm),
+                    info.loadDescription(mPm), info.loadHtmlDescription(mPm));
+        }
+
+        private Drawable getIcon(ComponentName componentName, int iconResource,
+                Supplier<Drawable> iconLoader) {
+            Drawable icon = mIconCache != null ? mIconCache.get(componentName) : null;
+            if (icon != null) {
+                return icon;
+            }
+            icon = iconResource == 0
+                    ? ContextCompat.getDrawable(mContext, R.drawable.ic_accessibility_generic)
+                    : iconLoader.get();
+            if (mIconCache != null && icon != null) {
+                mIconCache.put(componentName, icon);
+            }
+            return icon;
         }
 
         /**
@@ -532,8 +722,7 @@ public class AccessibilitySettings extends DashboardFragment {
         List<RestrictedPreference> createAccessibilityServicePreferenceList(
                 List<AccessibilityServiceInfo> installedServices) {
 
-            final Set<ComponentName> enabledServices =
-                    AccessibilityUtils.getEnabledServicesFromSettings(mContext);
+            final Set<ComponentName> enabledServices = getEnabledServices();
             final List<String> permittedServices = mDpm.getPermittedAccessibilityServices(
                     UserHandle.myUserId());
             final int installedServicesSize = installedServices.size();
@@ -549,16 +738,17 @@ public class AccessibilitySettings extends DashboardFragment {
                         resolveInfo.serviceInfo.name);
 
                 final String key = componentName.flattenToString();
-                final CharSequence title = resolveInfo.loadLabel(mPm);
                 final boolean serviceEnabled = enabledServices.contains(componentName);
-                final CharSequence summary = getServiceSummary(mContext, info, serviceEnabled);
+                ServiceTexts texts = mTexts.get(componentName);
+                if (texts == null) {
+                    texts = loadServiceTexts(info, serviceEnabled);
+                }
+                final CharSequence title = texts.mTitle;
+                final CharSequence summary = texts.mSummary;
                 final String fragment = getAccessibilityServiceFragmentTypeName(info);
 
-                Drawable icon = resolveInfo.loadIcon(mPm);
-                if (resolveInfo.getIconResource() == 0) {
-                    icon = ContextCompat.getDrawable(mContext,
-                            R.drawable.ic_accessibility_generic);
-                }
+                final Drawable icon = getIcon(componentName, resolveInfo.getIconResource(),
+                        () -> resolveInfo.loadIcon(mPm));
 
                 final RestrictedPreference preference = createRestrictedPreference(key, title,
                         summary, icon, fragment);
@@ -571,13 +761,10 @@ public class AccessibilitySettings extends DashboardFragment {
                         serviceEnabled);
                 final String prefKey = preference.getKey();
                 final int imageRes = info.getAnimatedImageRes();
-                final CharSequence description = getServiceDescription(mContext, info,
-                        serviceEnabled);
-                final String htmlDescription = info.loadHtmlDescription(mPm);
                 final String settingsClassName = info.getSettingsActivityName();
 
-                putBasicExtras(preference, prefKey, title, description, imageRes, htmlDescription,
-                        componentName);
+                putBasicExtras(preference, prefKey, title, texts.mDescription, imageRes,
+                        texts.mHtmlDescription, componentName);
                 putServiceExtras(preference, resolveInfo, serviceEnabled);
                 putSettingsExtras(preference, packageName, settingsClassName);
 
@@ -596,8 +783,7 @@ public class AccessibilitySettings extends DashboardFragment {
         @VisibleForTesting
         List<RestrictedPreference> createAccessibilityActivityPreferenceList(
                 List<AccessibilityShortcutInfo> installedShortcuts) {
-            final Set<ComponentName> enabledServices =
-                    AccessibilityUtils.getEnabledServicesFromSettings(mContext);
+            final Set<ComponentName> enabledServices = getEnabledServices();
             final List<String> permittedServices = mDpm.getPermittedAccessibilityServices(
                     UserHandle.myUserId());
 
@@ -611,15 +797,17 @@ public class AccessibilitySettings extends DashboardFragment {
                 final ComponentName componentName = info.getComponentName();
 
                 final String key = componentName.flattenToString();
-                final CharSequence title = activityInfo.loadLabel(mPm);
-                final String summary = info.loadSummary(mPm);
+                ServiceTexts texts = mTexts.get(componentName);
+                if (texts == null) {
+                    texts = loadShortcutTexts(info);
+                }
+                final CharSequence title = texts.mTitle;
+                final CharSequence summary = texts.mSummary;
                 final String fragment =
                         LaunchAccessibilityActivityPreferenceFragment.class.getName();
 
-                Drawable icon = activityInfo.loadIcon(mPm);
-                if (activityInfo.getIconResource() == 0) {
-                    icon = ContextCompat.getDrawable(mContext, R.drawable.ic_accessibility_generic);
-                }
+                final Drawable icon = getIcon(componentName, activityInfo.getIconResource(),
+                        () -> activityInfo.loadIcon(mPm));
 
                 final RestrictedPreference preference = createRestrictedPreference(key, title,
                         summary, icon, fragment);
@@ -634,13 +822,11 @@ public class AccessibilitySettings extends DashboardFragment {
                         serviceEnabled);
 
                 final String prefKey = preference.getKey();
-                final String description = info.loadDescription(mPm);
                 final int imageRes = info.getAnimatedImageRes();
-                final String htmlDescription = info.loadHtmlDescription(mPm);
                 final String settingsClassName = info.getSettingsActivityName();
 
-                putBasicExtras(preference, prefKey, title, description, imageRes, htmlDescription,
-                        componentName);
+                putBasicExtras(preference, prefKey, title, texts.mDescription, imageRes,
+                        texts.mHtmlDescription, componentName);
                 putSettingsExtras(preference, packageName, settingsClassName);
 
                 preferenceList.add(preference);
@@ -40,6 +40,7 @@ import com.android.settings.R;
 import com.android.settings.activityembedding.ActivityEmbeddingRulesController;
 import com.android.settings.homepage.SettingsHomepageActivity;
 import com.android.settings.overlay.FeatureFactory;
+import com.android.settings.users.UserAvatarCache;
 import com.android.settingslib.utils.ThreadUtils;
 
 import java.net.URISyntaxException;
@@ -65,6 +66,7 @@ public class AvatarViewMixin implements LifecycleObserver {
     private final Context mContext;
     private final ImageView mAvatarView;
     private final MutableLiveData<Bitmap> mAvatarImage;
+    private final UserAvatarCache mAvatarCache = UserAvatarCache.getInstance();
 
     @VisibleForTesting
     String mAccountName;
@@ -83,6 +85,7 @@ public class AvatarViewMixin implements LifecycleObserver {
     public AvatarViewMixin(SettingsHomepageActivity activity, ImageView avatarView) {
         mContext = activity.getApplicationContext();
         mAvatarView = avatarView;
+        mAvatarCache.init(mContext);
         mAvatarView.setOnClickListener(v -> {
             Intent intent;
             try {
@@ -135,8 +138,16 @@ public class AvatarViewMixin implements LifecycleObserver {
     @OnLifecycleEvent(Lifecycle.Event.ON_START)
     public void onStart() {
         if (hasAccount()) {
+            final Bitmap avatar = mAvatarCache.getAccountAvatar();
+            if (avatar != null) {
+                // Show the avatar loaded by a previous start right away, it is replaced by the
+                // one loaded below in case the account changed its picture meanwhile.
+                mAccountName = mAvatarCache.getAccountName();
+                mAvatarImage.setValue(avatar);
+            }
             loadAccount();
         } else {
+            mAvatarCache.removeAccountAvatar();
             mAccountName = null;
             mAvatarView.setImageResource(R.drawable.ic_account_circle_24dp);
         }
@@ -155,15 +166,16 @@ public class AvatarViewMixin implements LifecycleObserver {
             return;
         }
 
+        final int generation = mAvatarCache.getGeneration();
         ThreadUtils.postOnBackgroundThread(() -> {
             final Uri uri = new Uri.Builder().scheme(ContentResolver.SCHEME_CONTENT)
                     .authority(authority)
                     .build();
             final Bundle bundle = mContext.getContentResolver().call(uri,
                     METHOD_GET_ACCOUNT_AVATAR, null /* arg */, null /* extras */);
-            final Bitmap bitmap = bundle.getParcelable(KEY_AVATAR_BITMAP);
             mAccountName = bundle.getString(KEY_ACCOUNT_NAME, "" /* defaultValue */);
-            mAvatarImage.postValue(bitmap);
+            mAvatarImage.postValue(mAvatarCache.putAccountAvatar(generation, mAccountName,
+                    bundle.getParcelable(KEY_AVATAR_BITMAP)));
         });
     }
 
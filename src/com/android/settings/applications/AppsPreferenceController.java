@@ -34,9 +34,9 @@ import androidx.preference.PreferenceCategory;
 import androidx.preference.PreferenceScreen;
 
 import com.android.settings.R;
+import com.android.settings.Utils;
 import com.android.settings.applications.appinfo.AppInfoDashboardFragment;
 import com.android.settings.core.BasePreferenceController;
-import com.android.settingslib.Utils;
 import com.android.settingslib.applications.ApplicationsState;
 import com.android.settingslib.utils.StringUtil;
 import com.android.settingslib.widget.AppPreference;
@@ -204,7 +204,7 @@ public class AppsPreferenceController extends BasePreferenceController implement
 
                 pref.setKey(pkgName);
                 pref.setTitle(appEntry.label);
-                pref.setIcon(Utils.getBadgedIcon(mContext, appEntry.info));
+                pref.setIcon(Utils.getBadgedIconCached(mContext, appEntry.info));
                 pref.setSummary(StringUtil.formatRelativeTime(mContext,
                         System.currentTimeMillis() - stat.getLastTimeUsed(), false,
                         RelativeDateTimeFormatter.Style.SHORT));
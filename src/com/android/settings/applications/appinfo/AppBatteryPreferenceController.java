@@ -41,6 +41,7 @@ import com.android.settings.fuelgauge.AdvancedPowerUsageDetail;
 import com.android.settings.fuelgauge.BatteryChartPreferenceController;
 import com.android.settings.fuelgauge.BatteryDiffEntry;
 import com.android.settings.fuelgauge.BatteryEntry;
+import com.android.settings.fuelgauge.BatteryUsageStatsCache;
 import com.android.settings.fuelgauge.BatteryUsageStatsLoader;
 import com.android.settings.fuelgauge.BatteryUtils;
 import com.android.settings.fuelgauge.ConvertUtils;
@@ -288,14 +289,7 @@ public class AppBatteryPreferenceController extends BasePreferenceController
 
     @VisibleForTesting
     UidBatteryConsumer findTargetUidBatteryConsumer(BatteryUsageStats batteryUsageStats, int uid) {
-        final List<UidBatteryConsumer> usageList = batteryUsageStats.getUidBatteryConsumers();
-        for (int i = 0, size = usageList.size(); i < size; i++) {
-            final UidBatteryConsumer consumer = usageList.get(i);
-            if (consumer.getUid() == uid) {
-                return consumer;
-            }
-        }
-        return null;
+        return BatteryUsageStatsCache.findUidBatteryConsumer(batteryUsageStats, uid);
     }
 
     private class BatteryUsageStatsLoaderCallbacks
@@ -197,7 +197,7 @@ public class AppLaunchSettings extends AppInfoBase implements
         final Preference pref = EntityHeaderController
                 .newInstance(activity, this, null /* header */)
                 .setRecyclerView(getListView(), getSettingsLifecycle())
-                .setIcon(Utils.getBadgedIcon(mContext, mPackageInfo.applicationInfo))
+                .setIcon(Utils.getBadgedIconCached(mContext, mPackageInfo.applicationInfo))
                 .setLabel(mPackageInfo.applicationInfo.loadLabel(mPm))
                 .setSummary(summary)  // add intro text
                 .setIsInstantApp(AppUtils.isInstant(mPackageInfo.applicationInfo))
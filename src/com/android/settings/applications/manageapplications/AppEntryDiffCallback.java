@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.manageapplications;
+
+import androidx.recyclerview.widget.DiffUtil;
+
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * A DiffCallback to calculate the difference between old and new {@link AppEntry} lists, keyed
+ * by {@link AppEntry#id}.
+ *
+ * <p>Entries are updated in place, so the same instance is only considered unchanged if
+ * {@code isUnchanged} accepts it, e.g. because its row would show the same content.
+ */
+class AppEntryDiffCallback extends DiffUtil.Callback {
+
+    private final List<AppEntry> mOldEntries;
+    private final List<AppEntry> mNewEntries;
+    private final Predicate<AppEntry> mIsUnchanged;
+
+    AppEntryDiffCallback(List<AppEntry> oldEntries, List<AppEntry> newEntries,
+            Predicate<AppEntry> isUnchanged) {
+        mOldEntries = oldEntries;
+        mNewEntries = newEntries;
+        mIsUnchanged = isUnchanged;
+    }
+
+    @Override
+    public int getOldListSize() {
+        return mOldEntries.size();
+    }
+
+    @Override
+    public int getNewListSize() {
+        return mNewEntries.size();
+    }
+
+    @Override
+    public boolean areItemsTheSame(int oldPosition, int newPosition) {
+        return mOldEntries.get(oldPosition).id == mNewEntries.get(newPosition).id;
+    }
+
+    @Override
+    public boolean areContentsTheSame(int oldPosition, int newPosition) {
+        final AppEntry newEntry = mNewEntries.get(newPosition);
+        return mOldEntries.get(oldPosition) == newEntry && mIsUnchanged.test(newEntry);
+    }
+}
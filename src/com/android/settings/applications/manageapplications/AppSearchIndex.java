@@ -0,0 +1,108 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.manageapplications;
+
+import android.text.TextUtils;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Search index over the labels of a list of {@link AppEntry}.
+ *
+ * <p>Labels are normalized once, when the index is built, so that a search only compares
+ * strings. A query that contains the previous one is only matched against the previous results,
+ * which is what happens while the user types. Indexes are built and searched off the main thread,
+ * searches of the same index are serialized.
+ */
+class AppSearchIndex {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{Mn}+");
+
+    private final List<AppEntry> mEntries;
+    private final String[] mLabels;
+
+    private String mLastQuery;
+    // Positions in mEntries of the entries matching mLastQuery.
+    private int[] mLastMatches;
+    private int mLastMatchCount;
+
+    AppSearchIndex(List<AppEntry> entries) {
+        mEntries = entries;
+        final int size = entries.size();
+        mLabels = new String[size];
+        for (int i = 0; i < size; i++) {
+            mLabels[i] = normalize(entries.get(i).label);
+        }
+    }
+
+    /** Returns true if the index was built from {@code entries}. */
+    boolean isIndexOf(List<AppEntry> entries) {
+        return mEntries == entries;
+    }
+
+    /**
+     * Returns the entries whose label contains {@code query}, ignoring case and accents, in the
+     * order of the indexed list.
+     */
+    synchronized ArrayList<AppEntry> search(String query) {
+        final String normalizedQuery = normalize(query);
+        final int[] matches = new int[mLabels.length];
+        int matchCount = 0;
+        if (mLastQuery != null && normalizedQuery.contains(mLastQuery)) {
+            // Refining the query can only drop entries.
+            for (int i = 0; i < mLastMatchCount; i++) {
+                final int position = mLastMatches[i];
+                if (mLabels[position].contains(normalizedQuery)) {
+                    matches[matchCount++] = position;
+                }
+            }
+        } else {
+            for (int position = 0; position < mLabels.length; position++) {
+                if (mLabels[position].contains(normalizedQuery)) {
+                    matches[matchCount++] = position;
+                }
+            }
+        }
+        mLastQuery = normalizedQuery;
+        mLastMatches = matches;
+        mLastMatchCount = matchCount;
+
+        final ArrayList<AppEntry> results = new ArrayList<>(matchCount);
+        for (int i = 0; i < matchCount; i++) {
+            results.add(mEntries.get(matches[i]));
+        }
+        return results;
+    }
+
+    /** Returns {@code text} in lower case and without accents. */
+    @VisibleForTesting
+    static String normalize(CharSequence text) {
+        if (TextUtils.isEmpty(text)) {
+            return "";
+        }
+        final String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.getDefault());
+    }
+}
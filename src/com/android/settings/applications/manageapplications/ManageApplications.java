@@ -57,6 +57,7 @@ import android.text.TextUtils;
 import android.util.ArraySet;
 import android.util.IconDrawableFactory;
 import android.util.Log;
+import android.util.LongSparseArray;
 import android.view.LayoutInflater;
 import android.view.Menu;
 import android.view.MenuInflater;
@@ -65,16 +66,15 @@ import android.view.View;
 import android.view.ViewGroup;
 import android.widget.AdapterView;
 import android.widget.AdapterView.OnItemSelectedListener;
-import android.widget.Filter;
 import android.widget.FrameLayout;
 import android.widget.SearchView;
 import android.widget.Spinner;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.VisibleForTesting;
-import androidx.annotation.WorkerThread;
 import androidx.coordinatorlayout.widget.CoordinatorLayout;
 import androidx.core.view.ViewCompat;
+import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 
@@ -138,6 +138,7 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.Objects;
 import java.util.Set;
 
 /**
@@ -237,6 +238,12 @@ public class ManageApplications extends InstrumentedFragment
             LIST_TYPE_MAIN,
             LIST_TYPE_STORAGE));
 
+    // List types whose rows show the size of the app as summary.
+    private static final Set<Integer> LIST_TYPES_WITH_SIZE_SUMMARY = new ArraySet<>(Arrays.asList(
+            LIST_TYPE_MAIN,
+            LIST_TYPE_STORAGE,
+            LIST_TYPE_GAMES));
+
     @VisibleForTesting
     View mSpinnerHeader;
     @VisibleForTesting
@@ -1035,11 +1042,23 @@ public class ManageApplications extends InstrumentedFragment
         private ArrayList<ApplicationsState.AppEntry> mOriginalEntries;
         private boolean mResumed;
         private int mLastSortMode = -1;
+        // Sort mode of mEntries.
+        private int mEntriesSortMode = -1;
         private int mWhichSize = SIZE_TOTAL;
         private AppFilter mCompositeFilter;
         private boolean mHasReceivedLoadEntries;
         private boolean mHasReceivedBridgeCallback;
-        private SearchFilter mSearchFilter;
+        private AppSearchIndex mSearchIndex;
+        // Summaries of the current rebuild, by entry id. Dropped when the list is rebuilt, as
+        // the extra info, sort mode or backend state they were formatted from may have changed.
+        private final LongSparseArray<CharSequence> mSummaries = new LongSparseArray<>();
+        // What the rows currently bound to a view show, and the entries they were bound from, by
+        // entry id.
+        private final LongSparseArray<RowState> mBoundRows = new LongSparseArray<>();
+        private final LongSparseArray<AppEntry> mBoundEntries = new LongSparseArray<>();
+        // Incremented each time a new list is requested, so that the lists searched or diffed in
+        // background are dropped if another one was requested meanwhile.
+        private int mEntriesGeneration;
         private PowerAllowlistBackend mBackend;
 
         // This is to remember and restore the last scroll position when this
@@ -1265,15 +1284,102 @@ public class ManageApplications extends InstrumentedFragment
 
         @VisibleForTesting
         void filterSearch(String query) {
-            if (mSearchFilter == null) {
-                mSearchFilter = new SearchFilter();
-            }
             // If we haven't load apps list completely, don't filter anything.
             if (mOriginalEntries == null) {
                 Log.w(TAG, "Apps haven't loaded completely yet, so nothing can be filtered");
                 return;
             }
-            mSearchFilter.filter(query);
+            if (TextUtils.isEmpty(query)) {
+                setEntries(mOriginalEntries);
+                return;
+            }
+            final int generation = ++mEntriesGeneration;
+            final ArrayList<AppEntry> originalEntries = mOriginalEntries;
+            final AppSearchIndex searchIndex = mSearchIndex;
+            ThreadUtils.postOnBackgroundThread(() -> {
+                final AppSearchIndex index =
+                        searchIndex != null && searchIndex.isIndexOf(originalEntries)
+                                ? searchIndex : new AppSearchIndex(originalEntries);
+                final ArrayList<AppEntry> results = index.search(query);
+                ThreadUtils.postOnMainThread(() -> {
+                    setSearchIndex(index);
+                    if (generation == mEntriesGeneration) {
+                        setEntries(results);
+                    }
+                });
+            });
+        }
+
+        /** Builds the search index of {@code entries} in background, ahead of the first search. */
+        private void buildSearchIndex(ArrayList<AppEntry> entries) {
+            ThreadUtils.postOnBackgroundThread(() -> {
+                final AppSearchIndex index = new AppSearchIndex(entries);
+                ThreadUtils.postOnMainThread(() -> setSearchIndex(index));
+            });
+        }
+
+        private void setSearchIndex(AppSearchIndex index) {
+            // Indexes of a list that was rebuilt meanwhile are dropped.
+            if (index.isIndexOf(mOriginalEntries)) {
+                mSearchIndex = index;
+            }
+        }
+
+        /**
+         * Shows {@code entries}, only notifying the items that were added, removed or moved, and
+         * the bound rows whose content changed. The difference is calculated in background.
+         */
+        private void setEntries(ArrayList<ApplicationsState.AppEntry> entries) {
+            final int generation = ++mEntriesGeneration;
+            // A new sort order moves most rows, rebinding them all is cheaper than diffing.
+            if (mEntries == null || entries == null || mEntries == entries
+                    || mEntriesSortMode != mLastSortMode) {
+                applyEntries(entries, null /* diffResult */);
+                return;
+            }
+            final ArrayList<AppEntry> oldEntries = mEntries;
+            final Set<Long> changedRows = getChangedRows();
+            ThreadUtils.postOnBackgroundThread(() -> {
+                final DiffUtil.DiffResult diffResult = DiffUtil.calculateDiff(
+                        new AppEntryDiffCallback(oldEntries, entries,
+                                entry -> !changedRows.contains(entry.id)));
+                ThreadUtils.postOnMainThread(() -> {
+                    if (generation == mEntriesGeneration) {
+                        applyEntries(entries, diffResult);
+                    }
+                });
+            });
+        }
+
+        private void applyEntries(ArrayList<AppEntry> entries, DiffUtil.DiffResult diffResult) {
+            mEntries = entries;
+            mEntriesSortMode = mLastSortMode;
+            if (diffResult == null) {
+                notifyDataSetChanged();
+            } else {
+                diffResult.dispatchUpdatesTo(this);
+            }
+            // Restore the last scroll position if the number of entries added so far is bigger than
+            // it.
+            if (mLastIndex != -1 && getItemCount() > mLastIndex) {
+                mManageApplications.mRecyclerView.getLayoutManager().scrollToPosition(mLastIndex);
+                mLastIndex = -1;
+            }
+        }
+
+        /**
+         * Returns the ids of the bound rows that would show something else if bound again. Rows
+         * that are not bound will be bound from the current entry anyway.
+         */
+        private Set<Long> getChangedRows() {
+            final Set<Long> changedRows = new ArraySet<>();
+            for (int i = 0, size = mBoundRows.size(); i < size; i++) {
+                final long id = mBoundRows.keyAt(i);
+                if (!mBoundRows.valueAt(i).equals(getRowState(mBoundEntries.get(id)))) {
+                    changedRows.add(id);
+                }
+            }
+            return changedRows;
         }
 
         private static boolean packageNameEquals(PackageItemInfo info1, PackageItemInfo info2) {
@@ -1316,28 +1422,30 @@ public class ManageApplications extends InstrumentedFragment
                     || filterType == FILTER_APPS_POWER_ALLOWLIST_ALL) {
                 entries = removeDuplicateIgnoringUser(entries);
             }
-            mEntries = entries;
+            mSummaries.clear();
             mOriginalEntries = entries;
-            notifyDataSetChanged();
-            if (getItemCount() == 0) {
+            if (entries == null || entries.isEmpty()) {
+                setEntries(entries);
                 mLoadingViewController.showEmpty(false /* animate */);
             } else {
                 mLoadingViewController.showContent(false /* animate */);
 
+                CharSequence query = null;
                 if (mManageApplications.mSearchView != null
                         && mManageApplications.mSearchView.isVisibleToUser()) {
-                    final CharSequence query = mManageApplications.mSearchView.getQuery();
-                    if (!TextUtils.isEmpty(query)) {
-                        filterSearch(query.toString());
+                    query = mManageApplications.mSearchView.getQuery();
+                }
+                // Go straight to the filtered list, so the rows that are filtered out are not
+                // inserted and removed again.
+                if (!TextUtils.isEmpty(query)) {
+                    filterSearch(query.toString());
+                } else {
+                    setEntries(entries);
+                    if (mManageApplications.mSearchView != null) {
+                        buildSearchIndex(entries);
                     }
                 }
             }
-            // Restore the last scroll position if the number of entries added so far is bigger than
-            // it.
-            if (mLastIndex != -1 && getItemCount() > mLastIndex) {
-                mManageApplications.mRecyclerView.getLayoutManager().scrollToPosition(mLastIndex);
-                mLastIndex = -1;
-            }
 
             if (mManageApplications.mListType == LIST_TYPE_USAGE_ACCESS) {
                 // No enabled or disabled filters for usage access.
@@ -1451,12 +1559,16 @@ public class ManageApplications extends InstrumentedFragment
         }
 
         public boolean isEnabled(int position) {
-            if (getItemViewType(position) == VIEW_TYPE_EXTRA_VIEW
-                    || mManageApplications.mListType != LIST_TYPE_HIGH_POWER) {
+            if (getItemViewType(position) == VIEW_TYPE_EXTRA_VIEW) {
                 return true;
             }
-            ApplicationsState.AppEntry entry = mEntries.get(position);
+            return isEnabled(mEntries.get(position));
+        }
 
+        private boolean isEnabled(AppEntry entry) {
+            if (mManageApplications.mListType != LIST_TYPE_HIGH_POWER) {
+                return true;
+            }
             return !mBackend.isSysAllowlisted(entry.info.packageName)
                     && !mBackend.isDefaultActiveApp(entry.info.packageName);
         }
@@ -1473,61 +1585,104 @@ public class ManageApplications extends InstrumentedFragment
                 updateSummary(holder, entry);
                 updateSwitch(holder, entry);
                 holder.updateDisableView(entry.info);
+                mBoundRows.put(entry.id, getRowState(entry));
+                mBoundEntries.put(entry.id, entry);
             }
             holder.setEnabled(isEnabled(position));
 
             holder.itemView.setOnClickListener(mManageApplications);
         }
 
+        @Override
+        public void onViewRecycled(@NonNull ApplicationViewHolder holder) {
+            super.onViewRecycled(holder);
+            mBoundRows.remove(holder.getItemId());
+            mBoundEntries.remove(holder.getItemId());
+        }
+
         private void updateSummary(ApplicationViewHolder holder, AppEntry entry) {
+            if (LIST_TYPES_WITH_SIZE_SUMMARY.contains(mManageApplications.mListType)) {
+                holder.updateSizeText(entry, mManageApplications.mInvalidSizeStr, mWhichSize);
+            } else {
+                holder.setSummary(getSummary(entry));
+            }
+        }
+
+        /** Returns the summary of {@code entry}, formatting it once per rebuild. */
+        private CharSequence getSummary(AppEntry entry) {
+            final int index = mSummaries.indexOfKey(entry.id);
+            if (index >= 0) {
+                return mSummaries.valueAt(index);
+            }
+            final CharSequence summary = createSummary(entry);
+            mSummaries.put(entry.id, summary);
+            return summary;
+        }
+
+        private CharSequence createSummary(AppEntry entry) {
             switch (mManageApplications.mListType) {
                 case LIST_TYPE_NOTIFICATION:
                     if (entry.extraInfo != null
                             && entry.extraInfo instanceof NotificationsSentState) {
-                        holder.setSummary(AppStateNotificationBridge.getSummary(mContext,
-                                (NotificationsSentState) entry.extraInfo, mLastSortMode));
-                    } else {
-                        holder.setSummary(null);
+                        return AppStateNotificationBridge.getSummary(mContext,
+                                (NotificationsSentState) entry.extraInfo, mLastSortMode);
                     }
-                    break;
+                    return null;
                 case LIST_TYPE_USAGE_ACCESS:
                     if (entry.extraInfo != null) {
-                        holder.setSummary(
+                        return mContext.getText(
                                 (new UsageState((PermissionState) entry.extraInfo)).isPermissible()
                                         ? R.string.app_permission_summary_allowed
                                         : R.string.app_permission_summary_not_allowed);
-                    } else {
-                        holder.setSummary(null);
                     }
-                    break;
+                    return null;
                 case LIST_TYPE_HIGH_POWER:
-                    holder.setSummary(HighPowerDetail.getSummary(mContext, entry));
-                    break;
+                    return HighPowerDetail.getSummary(mContext, entry);
                 case LIST_TYPE_OVERLAY:
-                    holder.setSummary(DrawOverlayDetails.getSummary(mContext, entry));
-                    break;
+                    return DrawOverlayDetails.getSummary(mContext, entry);
                 case LIST_TYPE_WRITE_SETTINGS:
-                    holder.setSummary(WriteSettingsDetails.getSummary(mContext, entry));
-                    break;
+                    return WriteSettingsDetails.getSummary(mContext, entry);
                 case LIST_TYPE_MANAGE_SOURCES:
-                    holder.setSummary(ExternalSourcesDetails.getPreferenceSummary(mContext, entry));
-                    break;
+                    return ExternalSourcesDetails.getPreferenceSummary(mContext, entry);
                 case LIST_TYPE_WIFI_ACCESS:
-                    holder.setSummary(ChangeWifiStateDetails.getSummary(mContext, entry));
-                    break;
+                    return ChangeWifiStateDetails.getSummary(mContext, entry);
                 case LIST_MANAGE_EXTERNAL_STORAGE:
-                    holder.setSummary(ManageExternalStorageDetails.getSummary(mContext, entry));
-                    break;
+                    return ManageExternalStorageDetails.getSummary(mContext, entry);
                 case LIST_TYPE_ALARMS_AND_REMINDERS:
-                    holder.setSummary(AlarmsAndRemindersDetails.getSummary(mContext, entry));
-                    break;
+                    return AlarmsAndRemindersDetails.getSummary(mContext, entry);
                 case LIST_TYPE_MEDIA_MANAGEMENT_APPS:
-                    holder.setSummary(MediaManagementAppsDetails.getSummary(mContext, entry));
-                    break;
+                    return MediaManagementAppsDetails.getSummary(mContext, entry);
                 default:
-                    holder.updateSizeText(entry, mManageApplications.mInvalidSizeStr, mWhichSize);
-                    break;
+                    return null;
+            }
+        }
+
+        /** Returns the size text {@link ApplicationViewHolder#updateSizeText} shows. */
+        private CharSequence getSizeSummary(AppEntry entry) {
+            if (entry.sizeStr != null) {
+                switch (mWhichSize) {
+                    case SIZE_INTERNAL:
+                        return entry.internalSizeStr;
+                    case SIZE_EXTERNAL:
+                        return entry.externalSizeStr;
+                    default:
+                        return entry.sizeStr;
+                }
+            } else if (entry.size == ApplicationsState.SIZE_INVALID) {
+                return mManageApplications.mInvalidSizeStr;
             }
+            return null;
+        }
+
+        private RowState getRowState(AppEntry entry) {
+            final boolean isNotification =
+                    mManageApplications.mListType == LIST_TYPE_NOTIFICATION;
+            return new RowState(entry.label,
+                    LIST_TYPES_WITH_SIZE_SUMMARY.contains(mManageApplications.mListType)
+                            ? getSizeSummary(entry) : getSummary(entry),
+                    isEnabled(entry),
+                    isNotification && AppStateNotificationBridge.enableSwitch(entry),
+                    isNotification && AppStateNotificationBridge.checkSwitch(entry));
         }
 
         private void updateSwitch(ApplicationViewHolder holder, AppEntry entry) {
@@ -1537,17 +1692,49 @@ public class ManageApplications extends InstrumentedFragment
                                     .getSwitchOnCheckedListener(entry),
                             AppStateNotificationBridge.enableSwitch(entry),
                             AppStateNotificationBridge.checkSwitch(entry));
-                    if (entry.extraInfo != null
-                            && entry.extraInfo instanceof NotificationsSentState) {
-                        holder.setSummary(AppStateNotificationBridge.getSummary(mContext,
-                                (NotificationsSentState) entry.extraInfo, mLastSortMode));
-                    } else {
-                        holder.setSummary(null);
-                    }
+                    holder.setSummary(getSummary(entry));
                     break;
             }
         }
 
+        /** What a row shows, to tell whether a rebuild changed a bound row. */
+        private static class RowState {
+            private final CharSequence mLabel;
+            private final CharSequence mSummary;
+            private final boolean mEnabled;
+            private final boolean mSwitchEnabled;
+            private final boolean mSwitchChecked;
+
+            RowState(CharSequence label, CharSequence summary, boolean enabled,
+                    boolean switchEnabled, boolean switchChecked) {
+                mLabel = label;
+                mSummary = summary;
+                mEnabled = enabled;
+                mSwitchEnabled = switchEnabled;
+                mSwitchChecked = switchChecked;
+            }
+
+            @Override
+            public boolean equals(Object o) {
+                if (!(o instanceof RowState)) {
+                    return false;
+                }
+                final RowState other = (RowState) o;
+                return TextUtils.equals(mLabel, other.mLabel)
+                        && TextUtils.equals(mSummary, other.mSummary)
+                        && mEnabled == other.mEnabled
+                        && mSwitchEnabled == other.mSwitchEnabled
+                        && mSwitchChecked == other.mSwitchChecked;
+            }
+
+            @Override
+            public int hashCode() {
+                return Objects.hash(mLabel == null ? null : mLabel.toString(),
+                        mSummary == null ? null : mSummary.toString(),
+                        mEnabled, mSwitchEnabled, mSwitchChecked);
+            }
+        }
+
         public static class OnScrollListener extends RecyclerView.OnScrollListener {
             private int mScrollState = SCROLL_STATE_IDLE;
             private boolean mDelayNotifyDataChange;
@@ -1574,37 +1761,5 @@ public class ManageApplications extends InstrumentedFragment
                 }
             }
         }
-
-        /**
-         * An array filter that constrains the content of the array adapter with a substring.
-         * Item that does not contains the specified substring will be removed from the list.</p>
-         */
-        private class SearchFilter extends Filter {
-            @WorkerThread
-            @Override
-            protected FilterResults performFiltering(CharSequence query) {
-                final ArrayList<ApplicationsState.AppEntry> matchedEntries;
-                if (TextUtils.isEmpty(query)) {
-                    matchedEntries = mOriginalEntries;
-                } else {
-                    matchedEntries = new ArrayList<>();
-                    for (ApplicationsState.AppEntry entry : mOriginalEntries) {
-                        if (entry.label.toLowerCase().contains(query.toString().toLowerCase())) {
-                            matchedEntries.add(entry);
-                        }
-                    }
-                }
-                final FilterResults results = new FilterResults();
-                results.values = matchedEntries;
-                results.count = matchedEntries.size();
-                return results;
-            }
-
-            @Override
-            protected void publishResults(CharSequence constraint, FilterResults results) {
-                mEntries = (ArrayList<ApplicationsState.AppEntry>) results.values;
-                notifyDataSetChanged();
-            }
-        }
     }
 }
@@ -19,7 +19,9 @@ import android.bluetooth.BluetoothAdapter;
 import android.bluetooth.BluetoothDevice;
 import android.content.Context;
 import android.os.Bundle;
+import android.util.ArraySet;
 import android.util.Log;
+import android.view.Choreographer;
 
 import androidx.annotation.VisibleForTesting;
 import androidx.preference.Preference;
@@ -37,9 +39,12 @@ import com.android.settingslib.bluetooth.LocalBluetoothManager;
 import com.android.settingslib.bluetooth.LocalBluetoothProfileManager;
 import com.android.settingslib.core.instrumentation.MetricsFeatureProvider;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Update the bluetooth devices. It gets bluetooth event from {@link LocalBluetoothManager} using
@@ -48,6 +53,16 @@ import java.util.Map;
  *
  * In {@link BluetoothDeviceUpdater}, it uses {@link BluetoothDeviceFilter.Filter} to detect
  * whether the {@link CachedBluetoothDevice} is relevant.
+ *
+ * Device events are coalesced per frame: the first event is applied right away, and the devices
+ * of the events that follow within the same frame are updated together on the next frame. A device
+ * that changes several times within a frame, e.g. a headset connecting each of its profiles, is
+ * thus filtered once per frame instead of once per event.
+ *
+ * Filtering itself stays on the main thread. {@link #isFilterMatched(CachedBluetoothDevice)} reads
+ * the audio mode, the bond and connection state of the device and the state of its profiles, which
+ * the main thread updates, and subclasses outside this package may read more. Snapshotting all of
+ * it on the main thread would cost the same calls as filtering there.
  */
 public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
         LocalBluetoothProfileManager.ServiceListener {
@@ -62,6 +77,20 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
     @VisibleForTesting
     protected LocalBluetoothManager mLocalManager;
 
+    // Devices changed within the current frame, only accessed on the main thread. Each is updated
+    // once on the next frame, however many events it received.
+    private final Set<CachedBluetoothDevice> mPendingDevices = new ArraySet<>();
+    private boolean mIsFrameScheduled;
+    @VisibleForTesting
+    final Choreographer.FrameCallback mUpdatePendingDevicesCallback = frameTimeNanos -> {
+        mIsFrameScheduled = false;
+        final List<CachedBluetoothDevice> devices = new ArrayList<>(mPendingDevices);
+        mPendingDevices.clear();
+        for (CachedBluetoothDevice device : devices) {
+            update(device);
+        }
+    };
+
     @VisibleForTesting
     final GearPreference.OnGearClickListener mDeviceProfilesListener = pref -> {
         launchDeviceDetails(pref);
@@ -107,6 +136,9 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
         mLocalManager.setForegroundActivity(null);
         mLocalManager.getEventManager().unregisterCallback(this);
         mLocalManager.getProfileManager().removeServiceListener(this);
+        Choreographer.getInstance().removeFrameCallback(mUpdatePendingDevicesCallback);
+        mIsFrameScheduled = false;
+        mPendingDevices.clear();
     }
 
     /**
@@ -121,6 +153,7 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
             final Collection<CachedBluetoothDevice> cachedDevices =
                     mLocalManager.getCachedDeviceManager().getCachedDevicesCopy();
             for (CachedBluetoothDevice cachedBluetoothDevice : cachedDevices) {
+                mPendingDevices.remove(cachedBluetoothDevice);
                 update(cachedBluetoothDevice);
             }
         } else {
@@ -133,6 +166,7 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
             Log.e(TAG, "removeAllDevicesFromPreference() BT is not supported on this device");
             return;
         }
+        mPendingDevices.clear();
         final Collection<CachedBluetoothDevice> cachedDevices =
                 mLocalManager.getCachedDeviceManager().getCachedDevicesCopy();
         for (CachedBluetoothDevice cachedBluetoothDevice : cachedDevices) {
@@ -151,7 +185,7 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
 
     @Override
     public void onDeviceAdded(CachedBluetoothDevice cachedDevice) {
-        update(cachedDevice);
+        scheduleUpdate(cachedDevice);
     }
 
     @Override
@@ -159,12 +193,13 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
         // Used to combine the hearing aid entries just after pairing. Once both the hearing aids
         // get connected and their hiSyncId gets populated, this gets called for one of the
         // 2 hearing aids so that only one entry in the connected devices list will be seen.
+        mPendingDevices.remove(cachedDevice);
         removePreference(cachedDevice);
     }
 
     @Override
     public void onDeviceBondStateChanged(CachedBluetoothDevice cachedDevice, int bondState) {
-        update(cachedDevice);
+        scheduleUpdate(cachedDevice);
     }
 
     @Override
@@ -174,7 +209,7 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
             Log.d(TAG, "onProfileConnectionStateChanged() device: " + cachedDevice.getName()
                     + ", state: " + state + ", bluetoothProfile: " + bluetoothProfile);
         }
-        update(cachedDevice);
+        scheduleUpdate(cachedDevice);
     }
 
     @Override
@@ -183,7 +218,7 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
             Log.d(TAG, "onAclConnectionStateChanged() device: " + cachedDevice.getName()
                     + ", state: " + state);
         }
-        update(cachedDevice);
+        scheduleUpdate(cachedDevice);
     }
 
     @Override
@@ -219,14 +254,36 @@ public abstract class BluetoothDeviceUpdater implements BluetoothCallback,
      * Update whether to show {@link CachedBluetoothDevice} in the list.
      */
     protected void update(CachedBluetoothDevice cachedBluetoothDevice) {
-        if (isFilterMatched(cachedBluetoothDevice)) {
+        applyFilterResult(cachedBluetoothDevice, isFilterMatched(cachedBluetoothDevice));
+    }
+
+    /**
+     * Add or remove the {@link Preference} of {@code cachedDevice} according to the result of
+     * {@link #isFilterMatched(CachedBluetoothDevice)}.
+     */
+    protected void applyFilterResult(CachedBluetoothDevice cachedDevice, boolean isFilterMatched) {
+        if (isFilterMatched) {
             // Add the preference if it is new one
-            addPreference(cachedBluetoothDevice);
+            addPreference(cachedDevice);
         } else {
-            removePreference(cachedBluetoothDevice);
+            removePreference(cachedDevice);
         }
     }
 
+    /**
+     * Update {@code cachedDevice} right away, or with the other devices that changed within the
+     * same frame.
+     */
+    protected void scheduleUpdate(CachedBluetoothDevice cachedDevice) {
+        if (mIsFrameScheduled) {
+            mPendingDevices.add(cachedDevice);
+            return;
+        }
+        update(cachedDevice);
+        mIsFrameScheduled = true;
+        Choreographer.getInstance().postFrameCallback(mUpdatePendingDevicesCallback);
+    }
+
     /**
      * Add the {@link Preference} that represents the {@code cachedDevice}
      */
@@ -120,8 +120,9 @@ public class SavedBluetoothDeviceUpdater extends BluetoothDeviceUpdater
     }
 
     @Override
-    public void update(CachedBluetoothDevice cachedDevice) {
-        if (isFilterMatched(cachedDevice)) {
+    protected void applyFilterResult(CachedBluetoothDevice cachedDevice,
+            boolean isFilterMatched) {
+        if (isFilterMatched) {
             // Add the preference if it is new one
             addPreference(cachedDevice, BluetoothDevicePreference.SortType.TYPE_NO_SORT);
         } else {
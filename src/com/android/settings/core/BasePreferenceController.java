@@ -42,8 +42,6 @@ import com.android.settingslib.search.SearchIndexableRaw;
 
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
-import java.lang.reflect.Constructor;
-import java.lang.reflect.InvocationTargetException;
 import java.util.List;
 
 /**
@@ -129,45 +127,29 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
     /**
      * Instantiate a controller as specified controller type and user-defined key.
      * <p/>
-     * This is done through reflection. Do not use this method unless you know what you are doing.
+     * This is done through reflection, see {@link ControllerConstructorCache}. Do not use this
+     * method unless you know what you are doing.
      */
     public static BasePreferenceController createInstance(Context context,
             String controllerName, String key) {
-        try {
-            final Class<?> clazz = Class.forName(controllerName);
-            final Constructor<?> preferenceConstructor =
-                    clazz.getConstructor(Context.class, String.class);
-            final Object[] params = new Object[]{context, key};
-            return (BasePreferenceController) preferenceConstructor.newInstance(params);
-        } catch (ClassNotFoundException | NoSuchMethodException | InstantiationException |
-                IllegalArgumentException | InvocationTargetException | IllegalAccessException e) {
-            throw new IllegalStateException(
-                    "Invalid preference controller: " + controllerName, e);
-        }
+        return ControllerConstructorCache.create(context, controllerName, key);
     }
 
     /**
      * Instantiate a controller as specified controller type.
      * <p/>
-     * This is done through reflection. Do not use this method unless you know what you are doing.
+     * This is done through reflection, see {@link ControllerConstructorCache}. Do not use this
+     * method unless you know what you are doing.
      */
     public static BasePreferenceController createInstance(Context context, String controllerName) {
-        try {
-            final Class<?> clazz = Class.forName(controllerName);
-            final Constructor<?> preferenceConstructor = clazz.getConstructor(Context.class);
-            final Object[] params = new Object[]{context};
-            return (BasePreferenceController) preferenceConstructor.newInstance(params);
-        } catch (ClassNotFoundException | NoSuchMethodException | InstantiationException |
-                IllegalArgumentException | InvocationTargetException | IllegalAccessException e) {
-            throw new IllegalStateException(
-                    "Invalid preference controller: " + controllerName, e);
-        }
+        return ControllerConstructorCache.create(context, controllerName);
     }
 
     /**
      * Instantiate a controller as specified controller type and work profile
      * <p/>
-     * This is done through reflection. Do not use this method unless you know what you are doing.
+     * This is done through reflection, see {@link ControllerConstructorCache}. Do not use this
+     * method unless you know what you are doing.
      *
      * @param context        application context
      * @param controllerName class name of the {@link BasePreferenceController}
@@ -176,20 +158,10 @@ public abstract class BasePreferenceController extends AbstractPreferenceControl
      */
     public static BasePreferenceController createInstance(Context context, String controllerName,
             String key, boolean isWorkProfile) {
-        try {
-            final Class<?> clazz = Class.forName(controllerName);
-            final Constructor<?> preferenceConstructor =
-                    clazz.getConstructor(Context.class, String.class);
-            final Object[] params = new Object[]{context, key};
-            final BasePreferenceController controller =
-                    (BasePreferenceController) preferenceConstructor.newInstance(params);
-            controller.setForWork(isWorkProfile);
-            return controller;
-        } catch (ClassNotFoundException | NoSuchMethodException | InstantiationException
-                | IllegalArgumentException | InvocationTargetException | IllegalAccessException e) {
-            throw new IllegalStateException(
-                    "Invalid preference controller: " + controllerName, e);
-        }
+        final BasePreferenceController controller =
+                ControllerConstructorCache.create(context, controllerName, key);
+        controller.setForWork(isWorkProfile);
+        return controller;
     }
 
     public BasePreferenceController(Context context, String preferenceKey) {
@@ -25,39 +25,63 @@ import android.content.ComponentName;
 import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
-import android.os.AsyncTask;
-import android.text.TextUtils;
+import android.content.pm.ChangedPackages;
+import android.net.Uri;
+import android.os.Handler;
+import android.os.Looper;
 import android.util.ArraySet;
-import android.util.Log;
 
 import androidx.annotation.VisibleForTesting;
 import androidx.lifecycle.LifecycleObserver;
 import androidx.lifecycle.OnLifecycleEvent;
 
 import com.android.settings.dashboard.CategoryManager;
-import com.android.settingslib.drawer.Tile;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 /**
  * A mixin that handles live categories for Injection
+ *
+ * <p>Category updates run one at a time. Requests made while an update is running are merged and
+ * served by a single follow-up update, and package broadcasts arriving in a burst are debounced.
+ * Resuming only reloads tiles when the package manager reports changed packages, or the
+ * configuration changed, since the last update.
  */
 public class CategoryMixin implements LifecycleObserver {
 
     private static final String TAG = "CategoryMixin";
     private static final String DATA_SCHEME_PKG = "package";
+    @VisibleForTesting
+    static final long BROADCAST_DEBOUNCE_MS = 300;
 
     // Serves as a temporary list of tiles to ignore until we heard back from the PM that they
     // are disabled.
     private static final ArraySet<ComponentName> sTileDenylist = new ArraySet<>();
 
     private final Context mContext;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
     private final PackageReceiver mPackageReceiver = new PackageReceiver();
     private final List<CategoryListener> mCategoryListeners = new ArrayList<>();
-    private int mCategoriesUpdateTaskCount;
+    // Packages changed since the last update task started, only their tiles are reloaded.
+    private final Set<String> mChangedPackages = new ArraySet<>();
+    private final Runnable mDebouncedUpdate = () -> updateCategories(false /* reloadAll */);
+
+    // Generation of the latest update request.
+    private int mGeneration;
+    private boolean mUpdateRunning;
+    // Whether an update was requested while a task is running, and if it reloads everything.
+    private boolean mUpdatePending;
+    private boolean mPendingReloadAll;
+    // Categories changed by tasks whose result was superseded, delivered with the next result.
+    private Set<String> mUndeliveredCategories = new ArraySet<>();
+    // Package manager sequence number and denylist the listeners were last updated with. Only
+    // read and written by update tasks, which never run concurrently.
+    private boolean mLoaded;
+    private int mPackageSequenceNumber;
+    private int mDenylistHash;
 
     public CategoryMixin(Context context) {
         mContext = context;
@@ -75,7 +99,7 @@ public class CategoryMixin implements LifecycleObserver {
         filter.addDataScheme(DATA_SCHEME_PKG);
         mContext.registerReceiver(mPackageReceiver, filter);
 
-        updateCategories();
+        updateCategories(false /* reloadAll */);
     }
 
     /**
@@ -84,6 +108,8 @@ public class CategoryMixin implements LifecycleObserver {
     @OnLifecycleEvent(ON_PAUSE)
     public void onPause() {
         mContext.unregisterReceiver(mPackageReceiver);
+        // Packages changed meanwhile are picked up by the update of the next resume.
+        mHandler.removeCallbacks(mDebouncedUpdate);
     }
 
     /**
@@ -104,7 +130,7 @@ public class CategoryMixin implements LifecycleObserver {
      * Updates dashboard categories.
      */
     public void updateCategories() {
-        updateCategories(false /* fromBroadcast */);
+        updateCategories(true /* reloadAll */);
     }
 
     void addToDenylist(ComponentName component) {
@@ -120,14 +146,112 @@ public class CategoryMixin implements LifecycleObserver {
         mCategoryListeners.forEach(listener -> listener.onCategoriesChanged(categories));
     }
 
-    private void updateCategories(boolean fromBroadcast) {
-        // Only allow at most 2 tasks existing at the same time since when the first one is
-        // executing, there may be new data from the second update request.
-        // Ignore the third update request because the second task is still waiting for the first
-        // task to complete in a serial thread, which will get the latest data.
-        if (mCategoriesUpdateTaskCount < 2) {
-            new CategoriesUpdateTask().execute(fromBroadcast);
+    private void updateCategories(boolean reloadAll) {
+        mGeneration++;
+        if (mUpdateRunning) {
+            // Served by a single update once the running one completes.
+            mUpdatePending = true;
+            mPendingReloadAll |= reloadAll;
+            return;
+        }
+        startUpdate(reloadAll);
+    }
+
+    private void startUpdate(boolean reloadAll) {
+        mUpdateRunning = true;
+        final int generation = mGeneration;
+        final Set<String> changedPackages;
+        synchronized (mChangedPackages) {
+            changedPackages = new ArraySet<>(mChangedPackages);
+            mChangedPackages.clear();
+        }
+        final CategoryManager categoryManager = CategoryManager.get(mContext);
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final Set<String> categories =
+                    loadCategories(categoryManager, reloadAll, changedPackages);
+            ThreadUtils.postOnMainThread(() -> onUpdateCompleted(generation, categories));
+        });
+    }
+
+    private void onUpdateCompleted(int generation, Set<String> categories) {
+        mUpdateRunning = false;
+        mergeUndeliveredCategories(categories);
+        if (generation != mGeneration && mUpdatePending) {
+            // Superseded by a newer request, its result is delivered with the next one.
+            final boolean reloadAll = mPendingReloadAll;
+            mUpdatePending = false;
+            mPendingReloadAll = false;
+            startUpdate(reloadAll);
+            return;
+        }
+        final Set<String> changedCategories = mUndeliveredCategories;
+        mUndeliveredCategories = new ArraySet<>();
+        if (changedCategories == null || !changedCategories.isEmpty()) {
+            onCategoriesChanged(changedCategories);
+        }
+    }
+
+    private void mergeUndeliveredCategories(Set<String> categories) {
+        if (mUndeliveredCategories == null) {
+            return;
+        }
+        if (categories == null) {
+            mUndeliveredCategories = null;
+        } else {
+            mUndeliveredCategories.addAll(categories);
+        }
+    }
+
+    // Return the changed categories, or null to force refreshing all.
+    private Set<String> loadCategories(CategoryManager categoryManager, boolean reloadAll,
+            Set<String> changedPackages) {
+        // Read before reloading, so changes made during the reload are seen by the next update.
+        final ChangedPackages packageChanges = getPackageChanges();
+        // Also reload packages changed while no receiver was registered.
+        if (packageChanges != null) {
+            changedPackages.addAll(packageChanges.getPackageNames());
+        }
+        final boolean denylistChanged = updateDenylistHash();
+        if (reloadAll || !mLoaded) {
+            mLoaded = true;
+            categoryManager.reloadAllCategories(mContext);
+            categoryManager.updateCategoryFromDenylist(sTileDenylist);
+            return null;
+        }
+        if (categoryManager.reloadAllCategoriesIfConfigChanged(mContext)) {
+            categoryManager.updateCategoryFromDenylist(sTileDenylist);
+            return null;
+        }
+        if (changedPackages.isEmpty() && !denylistChanged) {
+            // Nothing the tiles depend on changed since the last update.
+            return new ArraySet<>();
+        }
+        final Set<String> changedCategories =
+                categoryManager.reloadCategoriesForPackages(mContext, changedPackages);
+        categoryManager.updateCategoryFromDenylist(sTileDenylist);
+        // Denied tiles may belong to any category.
+        return denylistChanged ? null : changedCategories;
+    }
+
+    /**
+     * Returns the packages changed since the last call, or null if there are none, and moves the
+     * recorded sequence number past them.
+     */
+    private ChangedPackages getPackageChanges() {
+        final ChangedPackages changes =
+                mContext.getPackageManager().getChangedPackages(mPackageSequenceNumber);
+        if (changes != null) {
+            mPackageSequenceNumber = changes.getSequenceNumber();
         }
+        return changes;
+    }
+
+    /** Records the current denylist, returns true if it changed since it was last recorded. */
+    private boolean updateDenylistHash() {
+        final int hash = sTileDenylist.hashCode();
+        final boolean changed = hash != mDenylistHash;
+        mDenylistHash = hash;
+        return changed;
     }
 
     /**
@@ -149,77 +273,20 @@ public class CategoryMixin implements LifecycleObserver {
         void onCategoriesChanged(@Nullable Set<String> categories);
     }
 
-    private class CategoriesUpdateTask extends AsyncTask<Boolean, Void, Set<String>> {
-
-        private final CategoryManager mCategoryManager;
-        private Map<ComponentName, Tile> mPreviousTileMap;
-
-        CategoriesUpdateTask() {
-            mCategoriesUpdateTaskCount++;
-            mCategoryManager = CategoryManager.get(mContext);
-        }
-
-        @Override
-        protected Set<String> doInBackground(Boolean... params) {
-            mPreviousTileMap = mCategoryManager.getTileByComponentMap();
-            mCategoryManager.reloadAllCategories(mContext);
-            mCategoryManager.updateCategoryFromDenylist(sTileDenylist);
-            return getChangedCategories(params[0]);
-        }
-
-        @Override
-        protected void onPostExecute(Set<String> categories) {
-            if (categories == null || !categories.isEmpty()) {
-                onCategoriesChanged(categories);
-            }
-            mCategoriesUpdateTaskCount--;
-        }
-
-        // Return the changed categories that have to be refreshed, or null to force refreshing all.
-        private Set<String> getChangedCategories(boolean fromBroadcast) {
-            if (!fromBroadcast) {
-                // Always refresh for non-broadcast case.
-                return null;
-            }
-
-            final Set<String> changedCategories = new ArraySet<>();
-            final Map<ComponentName, Tile> currentTileMap =
-                    mCategoryManager.getTileByComponentMap();
-            currentTileMap.forEach((component, currentTile) -> {
-                final Tile previousTile = mPreviousTileMap.get(component);
-                // Check if the tile is newly added.
-                if (previousTile == null) {
-                    Log.i(TAG, "Tile added: " + component.flattenToShortString());
-                    changedCategories.add(currentTile.getCategory());
-                    return;
-                }
-
-                // Check if the title or summary has changed.
-                if (!TextUtils.equals(currentTile.getTitle(mContext),
-                        previousTile.getTitle(mContext))
-                        || !TextUtils.equals(currentTile.getSummary(mContext),
-                        previousTile.getSummary(mContext))) {
-                    Log.i(TAG, "Tile changed: " + component.flattenToShortString());
-                    changedCategories.add(currentTile.getCategory());
-                }
-            });
-
-            // Check if any previous tile is removed.
-            final Set<ComponentName> removal = new ArraySet(mPreviousTileMap.keySet());
-            removal.removeAll(currentTileMap.keySet());
-            removal.forEach(component -> {
-                Log.i(TAG, "Tile removed: " + component.flattenToShortString());
-                changedCategories.add(mPreviousTileMap.get(component).getCategory());
-            });
-
-            return changedCategories;
-        }
-    }
-
     private class PackageReceiver extends BroadcastReceiver {
         @Override
         public void onReceive(Context context, Intent intent) {
-            updateCategories(true /* fromBroadcast */);
+            final Uri data = intent.getData();
+            if (data == null) {
+                updateCategories();
+                return;
+            }
+            synchronized (mChangedPackages) {
+                mChangedPackages.add(data.getSchemeSpecificPart());
+            }
+            // Installs and updates come with a burst of broadcasts, handle them together.
+            mHandler.removeCallbacks(mDebouncedUpdate);
+            mHandler.postDelayed(mDebouncedUpdate, BROADCAST_DEBOUNCE_MS);
         }
     }
 }
@@ -0,0 +1,152 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import android.content.Context;
+
+import androidx.annotation.VisibleForTesting;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Creates {@link BasePreferenceController}s from the class names declared in preference xml and
+ * slice data.
+ *
+ * <p>Controllers are still created through reflection. Only the class lookup and the constructor
+ * lookup are done once per class name, the constructors found are kept for every later
+ * instantiation of the same controller.
+ */
+public final class ControllerConstructorCache {
+
+    private static final Map<String, Entry> sEntries = new ConcurrentHashMap<>();
+
+    private ControllerConstructorCache() {
+    }
+
+    /**
+     * Returns true if {@code controllerName} has a constructor taking only a {@link Context}.
+     *
+     * @throws IllegalStateException if the controller class cannot be found
+     */
+    public static boolean hasContextConstructor(String controllerName) {
+        return getEntry(controllerName).mContextConstructor != null;
+    }
+
+    /**
+     * Creates {@code controllerName} through its context only constructor.
+     *
+     * @throws IllegalStateException if the controller has no such constructor or fails to create
+     */
+    public static BasePreferenceController create(Context context, String controllerName) {
+        return newInstance(controllerName, getEntry(controllerName).mContextConstructor,
+                context);
+    }
+
+    /**
+     * Creates {@code controllerName} through its context and key constructor.
+     *
+     * @throws IllegalStateException if the controller has no such constructor or fails to create
+     */
+    public static BasePreferenceController create(Context context, String controllerName,
+            String key) {
+        return newInstance(controllerName, getEntry(controllerName).mKeyConstructor, context,
+                key);
+    }
+
+    /**
+     * Creates {@code controllerName} through its context only constructor if it has one, or else
+     * through its context and key constructor.
+     *
+     * @throws IllegalStateException if the controller has neither constructor or fails to create
+     */
+    public static BasePreferenceController createPreferred(Context context,
+            String controllerName, String key) {
+        final Entry entry = getEntry(controllerName);
+        if (entry.mContextConstructor != null) {
+            try {
+                return newInstance(controllerName, entry.mContextConstructor, context);
+            } catch (IllegalStateException e) {
+                if (entry.mKeyConstructor == null) {
+                    throw e;
+                }
+            }
+        }
+        return newInstance(controllerName, entry.mKeyConstructor, context, key);
+    }
+
+    @VisibleForTesting
+    static void clear() {
+        sEntries.clear();
+    }
+
+    private static Entry getEntry(String controllerName) {
+        final Entry entry = sEntries.get(controllerName);
+        if (entry != null) {
+            return entry;
+        }
+        // Missing classes are not cached, the lookup fails the same way next time.
+        final Entry resolved = resolve(controllerName);
+        final Entry existing = sEntries.putIfAbsent(controllerName, resolved);
+        return existing != null ? existing : resolved;
+    }
+
+    private static Entry resolve(String controllerName) {
+        final Class<?> clazz;
+        try {
+            clazz = Class.forName(controllerName);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalStateException("Invalid preference controller: " + controllerName, e);
+        }
+        return new Entry(getConstructor(clazz, Context.class),
+                getConstructor(clazz, Context.class, String.class));
+    }
+
+    private static Constructor<?> getConstructor(Class<?> clazz, Class<?>... parameterTypes) {
+        try {
+            return clazz.getConstructor(parameterTypes);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static BasePreferenceController newInstance(String controllerName,
+            Constructor<?> constructor, Object... params) {
+        if (constructor == null) {
+            throw new IllegalStateException("Invalid preference controller: " + controllerName);
+        }
+        try {
+            return (BasePreferenceController) constructor.newInstance(params);
+        } catch (InstantiationException | IllegalArgumentException | InvocationTargetException
+                | IllegalAccessException | ClassCastException e) {
+            throw new IllegalStateException("Invalid preference controller: " + controllerName, e);
+        }
+    }
+
+    /** The public constructors of a controller class, null if the class has no such one. */
+    private static class Entry {
+        private final Constructor<?> mContextConstructor;
+        private final Constructor<?> mKeyConstructor;
+
+        Entry(Constructor<?> contextConstructor, Constructor<?> keyConstructor) {
+            mContextConstructor = contextConstructor;
+            mKeyConstructor = keyConstructor;
+        }
+    }
+}
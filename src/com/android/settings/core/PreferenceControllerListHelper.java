@@ -67,10 +67,15 @@ public class PreferenceControllerListHelper {
             if (TextUtils.isEmpty(controllerName)) {
                 continue;
             }
-            BasePreferenceController controller;
+            BasePreferenceController controller = null;
             try {
-                controller = BasePreferenceController.createInstance(context, controllerName);
+                if (ControllerConstructorCache.hasContextConstructor(controllerName)) {
+                    controller = ControllerConstructorCache.create(context, controllerName);
+                }
             } catch (IllegalStateException e) {
+                // Fall through to the key constructor.
+            }
+            if (controller == null) {
                 Log.d(TAG, "Could not find Context-only controller for pref: " + controllerName);
                 final String key = metadata.getString(METADATA_KEY);
                 final boolean isWorkProfile = metadata.getBoolean(METADATA_FOR_WORK, false);
@@ -88,6 +88,129 @@ public class CategoryManager {
         tryInitCategories(context, forceClearCache);
     }
 
+    /**
+     * Reloads all categories if they were never loaded or the configuration changed in a way that
+     * affects the tiles since they were.
+     *
+     * @return true if the categories were reloaded
+     */
+    public synchronized boolean reloadAllCategoriesIfConfigChanged(Context context) {
+        if (mCategories != null
+                && !mInterestingConfigChanges.applyNewConfig(context.getResources())) {
+            return false;
+        }
+        mCategories = null;
+        tryInitCategories(context, true /* forceClearCache */);
+        return true;
+    }
+
+    /**
+     * Reloads the tiles injected by {@code packageNames} and patches them into the current
+     * categories, leaving the tiles of other packages untouched. Injected tiles are resolved once
+     * for all the packages, and sorting and duplicate filtering are only redone for the categories
+     * the packages contribute to.
+     *
+     * @return the keys of the categories whose tiles changed, or null if all categories were
+     * reloaded.
+     */
+    public synchronized Set<String> reloadCategoriesForPackages(Context context,
+            Set<String> packageNames) {
+        if (mCategories == null
+                || mInterestingConfigChanges.applyNewConfig(context.getResources())) {
+            mCategories = null;
+            tryInitCategories(context, true /* forceClearCache */);
+            return null;
+        }
+        final Set<String> changedCategories = new ArraySet<>();
+        if (packageNames.isEmpty()) {
+            return changedCategories;
+        }
+
+        // Snapshot the packages' current tiles before they are refreshed.
+        // (key: <category key, component>, value: title and summary)
+        final Map<Pair<String, ComponentName>, String> previousTiles = new ArrayMap<>();
+        final Set<String> affectedCategories = new ArraySet<>();
+        for (DashboardCategory category : mCategoryByKeyMap.values()) {
+            for (Tile tile : category.getTiles()) {
+                if (packageNames.contains(tile.getPackageName())) {
+                    previousTiles.put(new Pair<>(category.key, tile.getIntent().getComponent()),
+                            describeTile(context, tile));
+                    affectedCategories.add(category.key);
+                }
+            }
+        }
+
+        // Resolve the injected tiles again and keep only the ones of these packages. Their cached
+        // tiles are dropped first, so components which are gone don't linger in the cache.
+        mTileByComponentCache.keySet().removeIf(key -> packageNames.contains(key.first));
+        final Map<Pair<String, String>, Tile> packageTileCache = new ArrayMap<>();
+        for (DashboardCategory category : TileUtils.getCategories(context,
+                mTileByComponentCache)) {
+            for (Tile tile : category.getTiles()) {
+                if (packageNames.contains(tile.getPackageName())) {
+                    packageTileCache.put(
+                            new Pair<>(tile.getPackageName(), tile.getComponentName()), tile);
+                }
+            }
+        }
+        final Map<String, DashboardCategory> packageCategories = new ArrayMap<>();
+        for (Tile tile : packageTileCache.values()) {
+            getOrCreateCategory(packageCategories, tile.getCategory()).addTile(tile);
+        }
+        backwardCompatCleanupForCategory(packageTileCache, packageCategories);
+        affectedCategories.addAll(packageCategories.keySet());
+
+        final Map<String, DashboardCategory> affectedCategoryMap = new ArrayMap<>();
+        for (String categoryKey : affectedCategories) {
+            final DashboardCategory category = mCategoryByKeyMap.get(categoryKey);
+            final DashboardCategory packageCategory = packageCategories.get(categoryKey);
+            final DashboardCategory target = category != null
+                    ? category : getOrCreateCategory(mCategoryByKeyMap, categoryKey);
+            if (category == null) {
+                mCategories.add(target);
+            }
+            for (int i = target.getTilesCount() - 1; i >= 0; i--) {
+                if (packageNames.contains(target.getTile(i).getPackageName())) {
+                    target.removeTile(i);
+                }
+            }
+            if (packageCategory != null) {
+                for (Tile tile : packageCategory.getTiles()) {
+                    target.addTile(tile);
+                    final ComponentName component = tile.getIntent().getComponent();
+                    if (!TextUtils.equals(previousTiles.remove(new Pair<>(categoryKey, component)),
+                            describeTile(context, tile))) {
+                        Log.i(TAG, "Tile added or changed: " + component.flattenToShortString());
+                        changedCategories.add(categoryKey);
+                    }
+                }
+            }
+            affectedCategoryMap.put(categoryKey, target);
+        }
+        // Tiles left in the snapshot are gone.
+        previousTiles.keySet().forEach(tileKey -> {
+            Log.i(TAG, "Tile removed: " + tileKey.second.flattenToShortString());
+            changedCategories.add(tileKey.first);
+        });
+        sortCategories(context, affectedCategoryMap);
+        filterDuplicateTiles(affectedCategoryMap);
+        return changedCategories;
+    }
+
+    private static DashboardCategory getOrCreateCategory(
+            Map<String, DashboardCategory> categoryByKeyMap, String categoryKey) {
+        DashboardCategory category = categoryByKeyMap.get(categoryKey);
+        if (category == null) {
+            category = new DashboardCategory(categoryKey);
+            categoryByKeyMap.put(categoryKey, category);
+        }
+        return category;
+    }
+
+    private static String describeTile(Context context, Tile tile) {
+        return tile.getTitle(context) + "|" + tile.getSummary(context);
+    }
+
     /**
      * Update category from deny list
      * @param tileDenylist
@@ -48,6 +48,7 @@ import android.provider.Settings;
 import android.text.TextUtils;
 import android.util.ArrayMap;
 import android.util.Log;
+import android.util.LruCache;
 import android.util.Pair;
 import android.widget.Toast;
 
@@ -78,6 +79,7 @@ import com.android.settingslib.widget.AdaptiveIcon;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 /**
  * Impl for {@code DashboardFeatureProvider}.
@@ -87,6 +89,8 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
     private static final String TAG = "DashboardFeatureImpl";
     private static final String DASHBOARD_TILE_PREF_KEY_PREFIX = "dashboard_tile_pref_";
     private static final String META_DATA_KEY_INTENT_ACTION = "com.android.settings.intent.action";
+    // Enough for the dynamic fields of the tiles of a few dashboard pages.
+    private static final int MAX_CACHED_TILE_DATA = 128;
 
     protected final Context mContext;
 
@@ -94,6 +98,16 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
     private final CategoryManager mCategoryManager;
     private final PackageManager mPackageManager;
 
+    // Dynamic tile data requested on the main thread, fetched together in the next batch.
+    private final List<TileDataRequest> mPendingRequests = new ArrayList<>();
+    // Last fetched dynamic titles, summaries and switch states, keyed by uri. Entries are dropped
+    // when the observer of the uri reports a change. Accessed from the main thread and the
+    // background fetches.
+    private final LruCache<Uri, Object> mTileDataCache = new LruCache<>(MAX_CACHED_TILE_DATA);
+    // Last fetched provider icons, as package name and resource id, keyed by uri.
+    private final LruCache<Uri, Pair<String, Integer>> mTileIconCache =
+            new LruCache<>(MAX_CACHED_TILE_DATA);
+
     public DashboardFeatureProviderImpl(Context context) {
         mContext = context.getApplicationContext();
         mCategoryManager = CategoryManager.get(context);
@@ -231,6 +245,7 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
 
             @Override
             public void onDataChanged() {
+                mTileDataCache.remove(uri);
                 switch (method) {
                     case METHOD_GET_DYNAMIC_TITLE:
                         refreshTitle(uri, pref);
@@ -254,12 +269,16 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
         }
         if (tile.getMetaData() != null && tile.getMetaData().containsKey(
                 META_DATA_PREFERENCE_TITLE_URI)) {
-            // Set a placeholder title before starting to fetch real title, this is necessary
-            // to avoid preference height change.
-            preference.setTitle(R.string.summary_placeholder);
-
             final Uri uri = TileUtils.getCompleteUri(tile, META_DATA_PREFERENCE_TITLE_URI,
                     METHOD_GET_DYNAMIC_TITLE);
+            final Object cachedTitle = mTileDataCache.get(uri);
+            if (cachedTitle != null) {
+                preference.setTitle((String) cachedTitle);
+            } else {
+                // Set a placeholder title before starting to fetch real title, this is necessary
+                // to avoid preference height change.
+                preference.setTitle(R.string.summary_placeholder);
+            }
             refreshTitle(uri, preference);
             return createDynamicDataObserver(METHOD_GET_DYNAMIC_TITLE, uri, preference);
         }
@@ -267,14 +286,7 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
     }
 
     private void refreshTitle(Uri uri, Preference preference) {
-        ThreadUtils.postOnBackgroundThread(() -> {
-            final Map<String, IContentProvider> providerMap = new ArrayMap<>();
-            final String titleFromUri = TileUtils.getTextFromUri(
-                    mContext, uri, providerMap, META_DATA_PREFERENCE_TITLE);
-            if (!TextUtils.equals(titleFromUri, preference.getTitle())) {
-                ThreadUtils.postOnMainThread(() -> preference.setTitle(titleFromUri));
-            }
-        });
+        requestTileData(new TileDataRequest(METHOD_GET_DYNAMIC_TITLE, uri, preference));
     }
 
     private DynamicDataObserver bindSummaryAndGetObserver(Preference preference, Tile tile) {
@@ -283,12 +295,16 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
             preference.setSummary(summary);
         } else if (tile.getMetaData() != null
                 && tile.getMetaData().containsKey(META_DATA_PREFERENCE_SUMMARY_URI)) {
-            // Set a placeholder summary before starting to fetch real summary, this is necessary
-            // to avoid preference height change.
-            preference.setSummary(R.string.summary_placeholder);
-
             final Uri uri = TileUtils.getCompleteUri(tile, META_DATA_PREFERENCE_SUMMARY_URI,
                     METHOD_GET_DYNAMIC_SUMMARY);
+            final Object cachedSummary = mTileDataCache.get(uri);
+            if (cachedSummary != null) {
+                preference.setSummary((String) cachedSummary);
+            } else {
+                // Set a placeholder summary before starting to fetch real summary, this is
+                // necessary to avoid preference height change.
+                preference.setSummary(R.string.summary_placeholder);
+            }
             refreshSummary(uri, preference);
             return createDynamicDataObserver(METHOD_GET_DYNAMIC_SUMMARY, uri, preference);
         }
@@ -296,14 +312,7 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
     }
 
     private void refreshSummary(Uri uri, Preference preference) {
-        ThreadUtils.postOnBackgroundThread(() -> {
-            final Map<String, IContentProvider> providerMap = new ArrayMap<>();
-            final String summaryFromUri = TileUtils.getTextFromUri(
-                    mContext, uri, providerMap, META_DATA_PREFERENCE_SUMMARY);
-            if (!TextUtils.equals(summaryFromUri, preference.getSummary())) {
-                ThreadUtils.postOnMainThread(() -> preference.setSummary(summaryFromUri));
-            }
-        });
+        requestTileData(new TileDataRequest(METHOD_GET_DYNAMIC_SUMMARY, uri, preference));
     }
 
     private DynamicDataObserver bindSwitchAndGetObserver(Preference preference, Tile tile) {
@@ -320,6 +329,10 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
 
         final Uri isCheckedUri = TileUtils.getCompleteUri(tile, META_DATA_PREFERENCE_SWITCH_URI,
                 METHOD_IS_CHECKED);
+        final Object cachedChecked = mTileDataCache.get(isCheckedUri);
+        if (cachedChecked != null) {
+            setSwitchChecked(preference, (Boolean) cachedChecked);
+        }
         setSwitchEnabled(preference, false);
         refreshSwitch(isCheckedUri, preference);
         return createDynamicDataObserver(METHOD_IS_CHECKED, isCheckedUri, preference);
@@ -349,15 +362,45 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
     }
 
     private void refreshSwitch(Uri uri, Preference preference) {
-        ThreadUtils.postOnBackgroundThread(() -> {
-            final Map<String, IContentProvider> providerMap = new ArrayMap<>();
-            final boolean checked = TileUtils.getBooleanFromUri(mContext, uri, providerMap,
-                    EXTRA_SWITCH_CHECKED_STATE);
-            ThreadUtils.postOnMainThread(() -> {
-                setSwitchChecked(preference, checked);
-                setSwitchEnabled(preference, true);
+        requestTileData(new TileDataRequest(METHOD_IS_CHECKED, uri, preference));
+    }
+
+    /**
+     * Queues a dynamic data fetch. All requests made during the same main thread message, e.g.
+     * while binding every tile of a page, are fetched together by {@link #fetchTileData()}.
+     */
+    private void requestTileData(TileDataRequest request) {
+        mPendingRequests.add(request);
+        if (mPendingRequests.size() == 1) {
+            ThreadUtils.postOnMainThread(this::fetchTileData);
+        }
+    }
+
+    /**
+     * Fetches the pending requests, grouped by provider authority. Each authority is fetched on
+     * its own background thread, so a slow provider doesn't hold back the others, and acquired
+     * once for all its requests. The results of an authority are applied in one main thread pass.
+     */
+    private void fetchTileData() {
+        final Map<String, List<TileDataRequest>> requestsByAuthority = new ArrayMap<>();
+        for (TileDataRequest request : mPendingRequests) {
+            requestsByAuthority.computeIfAbsent(request.mUri.getAuthority(),
+                    authority -> new ArrayList<>()).add(request);
+        }
+        mPendingRequests.clear();
+        for (List<TileDataRequest> requests : requestsByAuthority.values()) {
+            ThreadUtils.postOnBackgroundThread(() -> {
+                final Map<String, IContentProvider> providerMap = new ArrayMap<>();
+                for (TileDataRequest request : requests) {
+                    request.fetch(providerMap);
+                }
+                ThreadUtils.postOnMainThread(() -> {
+                    for (TileDataRequest request : requests) {
+                        request.apply();
+                    }
+                });
             });
-        });
+        }
     }
 
     private void setSwitchChecked(Preference pref, boolean checked) {
@@ -381,33 +424,21 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
         // Icon provided by the content provider overrides any static icon.
         if (tile.getMetaData() != null
                 && tile.getMetaData().containsKey(META_DATA_PREFERENCE_ICON_URI)) {
-            // Set a transparent color before starting to fetch the real icon, this is necessary
-            // to avoid preference padding change.
-            setPreferenceIcon(preference, tile, forceRoundedIcon, mContext.getPackageName(),
-                    Icon.createWithResource(mContext, android.R.color.transparent));
-
-            ThreadUtils.postOnBackgroundThread(() -> {
-                final Intent intent = tile.getIntent();
-                String packageName = null;
-                if (!TextUtils.isEmpty(intent.getPackage())) {
-                    packageName = intent.getPackage();
-                } else if (intent.getComponent() != null) {
-                    packageName = intent.getComponent().getPackageName();
-                }
-                final Map<String, IContentProvider> providerMap = new ArrayMap<>();
-                final Uri uri = TileUtils.getCompleteUri(tile, META_DATA_PREFERENCE_ICON_URI,
-                        METHOD_GET_PROVIDER_ICON);
-                final Pair<String, Integer> iconInfo = TileUtils.getIconFromUri(
-                        mContext, packageName, uri, providerMap);
-                if (iconInfo == null) {
-                    Log.w(TAG, "Failed to get icon from uri " + uri);
-                    return;
-                }
-                final Icon icon = Icon.createWithResource(iconInfo.first, iconInfo.second);
-                ThreadUtils.postOnMainThread(() -> {
-                    setPreferenceIcon(preference, tile, forceRoundedIcon, iconInfo.first, icon);
-                });
-            });
+            final Uri uri = TileUtils.getCompleteUri(tile, META_DATA_PREFERENCE_ICON_URI,
+                    METHOD_GET_PROVIDER_ICON);
+            final TileDataRequest request = new TileDataRequest(METHOD_GET_PROVIDER_ICON, uri,
+                    preference, tile, forceRoundedIcon);
+            final Pair<String, Integer> cachedIcon = mTileIconCache.get(uri);
+            if (cachedIcon != null) {
+                request.mIconInfo = cachedIcon;
+                request.apply();
+            } else {
+                // Set a transparent color before starting to fetch the real icon, this is
+                // necessary to avoid preference padding change.
+                setPreferenceIcon(preference, tile, forceRoundedIcon, mContext.getPackageName(),
+                        Icon.createWithResource(mContext, android.R.color.transparent));
+            }
+            requestTileData(request);
             return;
         }
 
@@ -484,4 +515,103 @@ public class DashboardFeatureProviderImpl implements DashboardFeatureProvider {
         }
         return eligibleUsers;
     }
+
+    /** A pending fetch of one dynamic field of a tile. */
+    private class TileDataRequest {
+        private final String mMethod;
+        private final Uri mUri;
+        private final Preference mPreference;
+        private final Tile mTile;
+        private final boolean mForceRoundedIcon;
+        // The result of the method, only the one of mMethod is set. Written on the background
+        // thread, read on the main thread after the hand-off.
+        private String mText;
+        private Boolean mChecked;
+        private Pair<String, Integer> mIconInfo;
+        // Icon last set on the preference by this request, not set again if fetched unchanged.
+        private Pair<String, Integer> mAppliedIcon;
+
+        TileDataRequest(String method, Uri uri, Preference preference) {
+            this(method, uri, preference, null /* tile */, false /* forceRoundedIcon */);
+        }
+
+        TileDataRequest(String method, Uri uri, Preference preference, Tile tile,
+                boolean forceRoundedIcon) {
+            mMethod = method;
+            mUri = uri;
+            mPreference = preference;
+            mTile = tile;
+            mForceRoundedIcon = forceRoundedIcon;
+        }
+
+        /** Fetches and caches the result on a background thread, see {@link #apply()}. */
+        void fetch(Map<String, IContentProvider> providerMap) {
+            switch (mMethod) {
+                case METHOD_GET_DYNAMIC_TITLE:
+                    mText = TileUtils.getTextFromUri(mContext, mUri, providerMap,
+                            META_DATA_PREFERENCE_TITLE);
+                    cacheTileData(mText);
+                    break;
+                case METHOD_GET_DYNAMIC_SUMMARY:
+                    mText = TileUtils.getTextFromUri(mContext, mUri, providerMap,
+                            META_DATA_PREFERENCE_SUMMARY);
+                    cacheTileData(mText);
+                    break;
+                case METHOD_IS_CHECKED:
+                    mChecked = TileUtils.getBooleanFromUri(mContext, mUri, providerMap,
+                            EXTRA_SWITCH_CHECKED_STATE);
+                    cacheTileData(mChecked);
+                    break;
+                case METHOD_GET_PROVIDER_ICON:
+                    final Intent intent = mTile.getIntent();
+                    String packageName = null;
+                    if (!TextUtils.isEmpty(intent.getPackage())) {
+                        packageName = intent.getPackage();
+                    } else if (intent.getComponent() != null) {
+                        packageName = intent.getComponent().getPackageName();
+                    }
+                    mIconInfo = TileUtils.getIconFromUri(mContext, packageName, mUri,
+                            providerMap);
+                    if (mIconInfo == null) {
+                        Log.w(TAG, "Failed to get icon from uri " + mUri);
+                    } else {
+                        mTileIconCache.put(mUri, mIconInfo);
+                    }
+                    break;
+            }
+        }
+
+        private void cacheTileData(Object data) {
+            if (data != null) {
+                mTileDataCache.put(mUri, data);
+            }
+        }
+
+        void apply() {
+            switch (mMethod) {
+                case METHOD_GET_DYNAMIC_TITLE:
+                    if (!TextUtils.equals(mText, mPreference.getTitle())) {
+                        mPreference.setTitle(mText);
+                    }
+                    break;
+                case METHOD_GET_DYNAMIC_SUMMARY:
+                    if (!TextUtils.equals(mText, mPreference.getSummary())) {
+                        mPreference.setSummary(mText);
+                    }
+                    break;
+                case METHOD_IS_CHECKED:
+                    setSwitchChecked(mPreference, mChecked != null && mChecked);
+                    setSwitchEnabled(mPreference, true);
+                    break;
+                case METHOD_GET_PROVIDER_ICON:
+                    if (mIconInfo == null || Objects.equals(mIconInfo, mAppliedIcon)) {
+                        return;
+                    }
+                    mAppliedIcon = mIconInfo;
+                    setPreferenceIcon(mPreference, mTile, mForceRoundedIcon, mIconInfo.first,
+                            Icon.createWithResource(mIconInfo.first, mIconInfo.second));
+                    break;
+            }
+        }
+    }
 }
@@ -25,6 +25,8 @@ import android.content.pm.PackageManager;
 import android.os.Build;
 import android.os.Bundle;
 import android.os.Process;
+import android.util.ArrayMap;
+import android.util.ArraySet;
 import android.view.LayoutInflater;
 import android.view.MenuItem;
 import android.view.View;
@@ -32,15 +34,23 @@ import android.view.ViewGroup;
 import android.widget.ArrayAdapter;
 import android.widget.ListView;
 
+import androidx.annotation.VisibleForTesting;
+
 import com.android.settings.R;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.text.Collator;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 public class AppPicker extends ListActivity {
+    // Number of apps whose labels are resolved by each background task.
+    private static final int LABEL_BATCH_SIZE = 50;
+
     private AppListAdapter mAdapter;
 
     public static final String EXTRA_REQUESTIING_PERMISSION
@@ -67,12 +77,13 @@ public class AppPicker extends ListActivity {
         mIncludeNothing = getIntent().getBooleanExtra(EXTRA_INCLUDE_NOTHING, true);
 
         mAdapter = new AppListAdapter(this);
-        if (mAdapter.getCount() <= 0) {
-            setResult(RESULT_NO_MATCHING_APPS);
-            finish();
-        } else {
-            setListAdapter(mAdapter);
-        }
+        setListAdapter(mAdapter);
+        mAdapter.load(() -> {
+            if (mAdapter.getCount() <= 0) {
+                setResult(RESULT_NO_MATCHING_APPS);
+                finish();
+            }
+        });
     }
 
     @Override
@@ -107,17 +118,87 @@ public class AppPicker extends ListActivity {
         CharSequence label;
     }
 
+    /** Returns the names of the packages requesting each permission. */
+    @VisibleForTesting
+    static Map<String, Set<String>> buildPermissionIndex(List<PackageInfo> packages) {
+        final Map<String, Set<String>> index = new ArrayMap<>();
+        for (PackageInfo pi : packages) {
+            if (pi.requestedPermissions == null) {
+                continue;
+            }
+            for (String permission : pi.requestedPermissions) {
+                Set<String> requesters = index.get(permission);
+                if (requesters == null) {
+                    requesters = new ArraySet<>();
+                    index.put(permission, requesters);
+                }
+                requesters.add(pi.packageName);
+            }
+        }
+        return index;
+    }
+
     public class AppListAdapter extends ArrayAdapter<MyApplicationInfo> {
-        private final List<MyApplicationInfo> mPackageInfoList = new ArrayList<MyApplicationInfo>();
         private final LayoutInflater mInflater;
+        private int mLoadedBatches;
 
         public AppListAdapter(Context context) {
             super(context, 0);
             mInflater = (LayoutInflater)context.getSystemService(Context.LAYOUT_INFLATER_SERVICE);
-            List<ApplicationInfo> pkgs = context.getPackageManager().getInstalledApplications(0);
-            for (int i=0; i<pkgs.size(); i++) {
-                ApplicationInfo ai = pkgs.get(i);
-                if (ai.uid == Process.SYSTEM_UID) {
+            if (mIncludeNothing) {
+                MyApplicationInfo info = new MyApplicationInfo();
+                info.label = context.getText(R.string.no_application);
+                add(info);
+            }
+        }
+
+        /**
+         * Lists the matching apps on a background thread. Labels are resolved in parallel batches,
+         * each added to the list as soon as it is ready, and {@code onLoaded} runs on the main
+         * thread once all of them are.
+         */
+        void load(Runnable onLoaded) {
+            final PackageManager pm = getPackageManager();
+            ThreadUtils.postOnBackgroundThread(() -> {
+                final List<ApplicationInfo> apps = getMatchingApps(pm);
+                if (apps.isEmpty()) {
+                    ThreadUtils.postOnMainThread(onLoaded);
+                    return;
+                }
+                final int batches = (apps.size() + LABEL_BATCH_SIZE - 1) / LABEL_BATCH_SIZE;
+                for (int i = 0; i < apps.size(); i += LABEL_BATCH_SIZE) {
+                    final List<ApplicationInfo> batch =
+                            apps.subList(i, Math.min(i + LABEL_BATCH_SIZE, apps.size()));
+                    ThreadUtils.postOnBackgroundThread(() -> {
+                        final List<MyApplicationInfo> infos = new ArrayList<>(batch.size());
+                        for (ApplicationInfo ai : batch) {
+                            MyApplicationInfo info = new MyApplicationInfo();
+                            info.info = ai;
+                            info.label = ai.loadLabel(pm).toString();
+                            infos.add(info);
+                        }
+                        ThreadUtils.postOnMainThread(() -> onBatchLoaded(infos, batches, onLoaded));
+                    });
+                }
+            });
+        }
+
+        private List<ApplicationInfo> getMatchingApps(PackageManager pm) {
+            // A single query, with the requested permissions only when filtering on them.
+            final List<PackageInfo> packages = pm.getInstalledPackages(
+                    mPermissionName != null ? PackageManager.GET_PERMISSIONS : 0);
+            Set<String> requesters = null;
+            if (mPermissionName != null) {
+                requesters = buildPermissionIndex(packages).get(mPermissionName);
+                if (requesters == null) {
+                    return Collections.emptyList();
+                }
+            }
+
+            final List<ApplicationInfo> apps = new ArrayList<>();
+            for (PackageInfo pi : packages) {
+                ApplicationInfo ai = pi.applicationInfo;
+                if (ai == null || ai.uid == Process.SYSTEM_UID) {
                     continue;
                 }
 
@@ -138,40 +219,26 @@ public class AppPicker extends ListActivity {
                 }
 
                 // Filter out apps that do not request the permission if required.
-                if (mPermissionName != null) {
-                    boolean requestsPermission = false;
-                    try {
-                        PackageInfo pi = getPackageManager().getPackageInfo(ai.packageName,
-                                PackageManager.GET_PERMISSIONS);
-                        if (pi.requestedPermissions == null) {
-                            continue;
-                        }
-                        for (String requestedPermission : pi.requestedPermissions) {
-                            if (requestedPermission.equals(mPermissionName)) {
-                                requestsPermission = true;
-                                break;
-                            }
-                        }
-                        if (!requestsPermission) {
-                            continue;
-                        }
-                    } catch (PackageManager.NameNotFoundException e) {
-                        continue;
-                    }
+                if (requesters != null && !requesters.contains(pi.packageName)) {
+                    continue;
                 }
+                apps.add(ai);
+            }
+            return apps;
+        }
 
-                MyApplicationInfo info = new MyApplicationInfo();
-                info.info = ai;
-                info.label = info.info.loadLabel(getPackageManager()).toString();
-                mPackageInfoList.add(info);
+        private void onBatchLoaded(List<MyApplicationInfo> infos, int batches,
+                Runnable onLoaded) {
+            if (isDestroyed()) {
+                return;
             }
-            Collections.sort(mPackageInfoList, sDisplayNameComparator);
-            if (mIncludeNothing) {
-                MyApplicationInfo info = new MyApplicationInfo();
-                info.label = context.getText(R.string.no_application);
-                mPackageInfoList.add(0, info);
+            setNotifyOnChange(false);
+            addAll(infos);
+            sort(sDisplayNameComparator);
+            notifyDataSetChanged();
+            if (++mLoadedBatches == batches) {
+                onLoaded.run();
             }
-            addAll(mPackageInfoList);
         }
 
         @Override
@@ -199,6 +266,10 @@ public class AppPicker extends ListActivity {
             = new Comparator<MyApplicationInfo>() {
         public final int
         compare(MyApplicationInfo a, MyApplicationInfo b) {
+            // Keep the "nothing" entry first.
+            if (a.info == null || b.info == null) {
+                return Boolean.compare(a.info != null, b.info != null);
+            }
             return collator.compare(a.label, b.label);
         }
 
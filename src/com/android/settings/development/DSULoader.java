@@ -37,6 +37,7 @@ import org.json.JSONException;
 import org.json.JSONObject;
 
 import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.MalformedURLException;
@@ -44,9 +45,10 @@ import java.net.URL;
 import java.text.ParseException;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Date;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import javax.net.ssl.HttpsURLConnection;
 
@@ -69,19 +71,14 @@ public class DSULoader extends ListActivity {
     private static final String DSU_LIST =
             "https://dl.google.com/developers/android/gsi/gsi-src.json";
 
-    private static final int TIMEOUT_MS = 10 * 1000;
-    private List<Object> mDSUList = new ArrayList<Object>();
-    private ArrayAdapter<Object> mAdapter;
+    private static final String MANIFEST_CACHE_DIR = "dsu_manifests";
 
-    private static String readAll(InputStream in) throws IOException {
-        int n;
-        StringBuilder list = new StringBuilder();
-        byte[] bytes = new byte[4096];
-        while ((n = in.read(bytes, 0, 4096)) != -1) {
-            list.append(new String(Arrays.copyOf(bytes, n)));
-        }
-        return list.toString();
-    }
+    // Supported packages of each manifest, in the order the manifests were first reported.
+    private final Map<String, List<DSUPackage>> mDSUPackages = new LinkedHashMap<>();
+    private ArrayAdapter<Object> mAdapter;
+    private DSUManifestFetcher mFetcher;
+    private String mError;
+    private boolean mFetchFinished;
 
     private static String readAll(URL url) throws IOException {
         InputStream in = null;
@@ -89,8 +86,8 @@ public class DSULoader extends ListActivity {
         Slog.i(TAG, "fetch " + url.toString());
         try {
             connection = (HttpsURLConnection) url.openConnection();
-            connection.setReadTimeout(TIMEOUT_MS);
-            connection.setConnectTimeout(TIMEOUT_MS);
+            connection.setReadTimeout(DSUManifestFetcher.TIMEOUT_MS);
+            connection.setConnectTimeout(DSUManifestFetcher.TIMEOUT_MS);
             connection.setRequestMethod("GET");
             connection.setDoInput(true);
             connection.connect();
@@ -99,7 +96,7 @@ public class DSULoader extends ListActivity {
                 throw new IOException("HTTP error code: " + responseCode);
             }
             in = new BufferedInputStream(connection.getInputStream());
-            return readAll(in);
+            return DSUManifestFetcher.readAll(in);
         } catch (Exception e) {
             throw e;
         } finally {
@@ -117,33 +114,10 @@ public class DSULoader extends ListActivity {
             }
         }
     }
-    // Fetcher fetches mDSUList in backgroud
-    private class Fetcher implements Runnable {
-        private URL mDsuList;
-
-        Fetcher(URL dsuList) {
-            mDsuList = dsuList;
-        }
-
-        private void fetch(URL url)
-                throws IOException, JSONException, MalformedURLException, ParseException {
-            String content = readAll(url);
-            JSONObject jsn = new JSONObject(content);
-            // The include primitive is like below
-            // "include": [
-            //   "https:/...json",
-            //    ...
-            // ]
-            if (jsn.has("include")) {
-                JSONArray include = jsn.getJSONArray("include");
-                int len = include.length();
-                for (int i = 0; i < len; i++) {
-                    if (include.isNull(i)) {
-                        continue;
-                    }
-                    fetch(new URL(include.getString(i)));
-                }
-            }
+    // Receives the manifests fetched in background, and streams their images into the list.
+    private class FetchListener implements DSUManifestFetcher.Listener {
+        @Override
+        public void onImages(URL manifest, JSONArray images) {
             //  "images":[
             //    {
             //      "name":"...",
@@ -157,39 +131,62 @@ public class DSULoader extends ListActivity {
             //    },
             //     ...
             //  ]
-            if (jsn.has("images")) {
-                JSONArray images = jsn.getJSONArray("images");
+            final List<DSUPackage> packages = new ArrayList<>();
+            try {
                 int len = images.length();
                 for (int i = 0; i < len; i++) {
                     DSUPackage dsu = new DSUPackage(images.getJSONObject(i));
                     if (dsu.isSupported()) {
-                        mDSUList.add(dsu);
+                        packages.add(dsu);
                     }
                 }
+            } catch (Exception e) {
+                onError(manifest, e);
             }
+            runOnUiThread(() -> {
+                // A revalidated manifest replaces the packages listed by its cached copy.
+                mDSUPackages.put(manifest.toString(), packages);
+                updateList();
+            });
         }
 
-        public void run() {
-            try {
-                fetch(mDsuList);
-            } catch (IOException e) {
-                Slog.e(TAG, e.toString());
-                mDSUList.add(0, "Network Error");
-            } catch (Exception e) {
-                Slog.e(TAG, e.toString());
-                mDSUList.add(0, "Metadata Error");
-            }
-            if (mDSUList.size() == 0) {
-                mDSUList.add(0, "No DSU available for this device");
-            }
-            runOnUiThread(
-                    new Runnable() {
-                        public void run() {
-                            mAdapter.clear();
-                            mAdapter.addAll(mDSUList);
-                        }
-                    });
+        @Override
+        public void onError(URL manifest, Exception e) {
+            final String error = e instanceof IOException ? "Network Error" : "Metadata Error";
+            runOnUiThread(() -> {
+                if (mError == null) {
+                    mError = error;
+                }
+            });
+        }
+
+        @Override
+        public void onFinished() {
+            runOnUiThread(() -> {
+                mFetchFinished = true;
+                updateList();
+            });
+        }
+    }
+
+    private void updateList() {
+        if (isFinishing() || isDestroyed()) {
+            return;
+        }
+        mAdapter.setNotifyOnChange(false);
+        mAdapter.clear();
+        if (mError != null) {
+            mAdapter.add(mError);
+        }
+        for (List<DSUPackage> packages : mDSUPackages.values()) {
+            mAdapter.addAll(packages);
+        }
+        if (!mFetchFinished) {
+            mAdapter.add(getResources().getString(R.string.dsu_loader_loading));
+        } else if (mAdapter.getCount() == 0) {
+            mAdapter.add("No DSU available for this device");
         }
+        mAdapter.notifyDataSetChanged();
     }
 
     private class DSUPackage {
@@ -358,7 +355,16 @@ public class DSULoader extends ListActivity {
         mAdapter = new DSUPackageListAdapter(this);
         setListAdapter(mAdapter);
         mAdapter.add(getResources().getString(R.string.dsu_loader_loading));
-        new Thread(new Fetcher(url)).start();
+        mFetcher = new DSUManifestFetcher(new File(getCacheDir(), MANIFEST_CACHE_DIR));
+        mFetcher.fetch(url, new FetchListener());
+    }
+
+    @Override
+    protected void onDestroy() {
+        if (mFetcher != null) {
+            mFetcher.cancel();
+        }
+        super.onDestroy();
     }
 
     @Override
@@ -0,0 +1,337 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.development;
+
+import android.util.Slog;
+
+import androidx.annotation.VisibleForTesting;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Fetches a DSU manifest and the manifests it includes.
+ *
+ * <p>Included manifests are fetched concurrently on a bounded pool, and the images of each one are
+ * reported as soon as it is parsed. A manifest is fetched once per {@link #fetch}, so include
+ * cycles end instead of looping. Responses over http(s) are kept in a cache directory along with
+ * their ETag and Last-Modified headers. A cached manifest is reported right away, then revalidated
+ * without being downloaded again if it did not change. If it changed, its new images are reported
+ * again; if the network is unavailable, the cached images stand.
+ */
+class DSUManifestFetcher {
+    private static final String TAG = "DSULOADER";
+    private static final int MAX_CONCURRENT_FETCHES = 4;
+    static final int TIMEOUT_MS = 10 * 1000;
+    private static final String INCLUDE = "include";
+    private static final String IMAGES = "images";
+    private static final String BODY_SUFFIX = ".json";
+    private static final String HEADERS_SUFFIX = ".headers";
+
+    /** Receives the results of a fetch, on the fetching threads. */
+    interface Listener {
+        /**
+         * Called with the images listed by {@code manifest}. Called again if the cached manifest
+         * was reported first and turned out to be stale, the new images replace the previous.
+         */
+        void onImages(URL manifest, JSONArray images);
+
+        /** Called when {@code manifest} could not be fetched or parsed. */
+        void onError(URL manifest, Exception e);
+
+        /** Called once every manifest has been fetched or has failed. */
+        void onFinished();
+    }
+
+    private final File mCacheDir;
+    private final ExecutorService mExecutor;
+    private final Set<String> mFetched = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger mPending = new AtomicInteger();
+    private Listener mListener;
+
+    DSUManifestFetcher(File cacheDir) {
+        this(cacheDir, createExecutor());
+    }
+
+    @VisibleForTesting
+    DSUManifestFetcher(File cacheDir, ExecutorService executor) {
+        mCacheDir = cacheDir;
+        mExecutor = executor;
+    }
+
+    private static ExecutorService createExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_CONCURRENT_FETCHES,
+                MAX_CONCURRENT_FETCHES, 1, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /** Fetches {@code manifest} and its includes. A fetcher can only be used once. */
+    void fetch(URL manifest, Listener listener) {
+        mListener = listener;
+        submit(manifest);
+    }
+
+    /** Stops fetching, no more results are reported. */
+    void cancel() {
+        mExecutor.shutdownNow();
+    }
+
+    private void submit(URL manifest) {
+        if (!mFetched.add(manifest.toString())) {
+            Slog.i(TAG, "skip " + manifest + ", already included");
+            return;
+        }
+        mPending.incrementAndGet();
+        try {
+            mExecutor.execute(() -> {
+                try {
+                    fetchManifest(manifest);
+                } finally {
+                    onFetchDone();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // Cancelled.
+            mPending.decrementAndGet();
+        }
+    }
+
+    private void onFetchDone() {
+        if (mPending.decrementAndGet() == 0 && !mExecutor.isShutdown()) {
+            mListener.onFinished();
+        }
+    }
+
+    private void fetchManifest(URL manifest) {
+        final String protocol = manifest.getProtocol();
+        if (!"http".equals(protocol) && !"https".equals(protocol)) {
+            Slog.i(TAG, "fetch " + manifest);
+            try (InputStream in = manifest.openStream()) {
+                parseManifest(manifest, readAll(in));
+            } catch (IOException | JSONException e) {
+                onManifestError(manifest, e);
+            }
+            return;
+        }
+
+        final File body = getCacheFile(manifest, BODY_SUFFIX);
+        final File headers = getCacheFile(manifest, HEADERS_SUFFIX);
+        String cached = null;
+        String etag = null;
+        String lastModified = null;
+        try {
+            if (body.exists() && headers.exists()) {
+                final String[] values = readFile(headers).split("\n", -1);
+                if (values.length == 2) {
+                    cached = readFile(body);
+                    etag = values[0];
+                    lastModified = values[1];
+                }
+            }
+        } catch (IOException e) {
+            Slog.w(TAG, "Failed to read cached " + manifest + ": " + e);
+            cached = null;
+            etag = null;
+            lastModified = null;
+        }
+        if (cached != null) {
+            // Show the cached manifest while it is revalidated.
+            try {
+                parseManifest(manifest, cached);
+            } catch (IOException | JSONException e) {
+                Slog.w(TAG, "Ignoring invalid cached " + manifest + ": " + e);
+                cached = null;
+                etag = null;
+                lastModified = null;
+            }
+        }
+
+        final String content;
+        try {
+            content = download(manifest, body, headers, etag, lastModified);
+        } catch (IOException e) {
+            if (cached != null) {
+                Slog.w(TAG, "Failed to revalidate " + manifest + ", keeping cached: " + e);
+            } else {
+                onManifestError(manifest, e);
+            }
+            return;
+        }
+        if (content == null || content.equals(cached)) {
+            return;
+        }
+        try {
+            parseManifest(manifest, content);
+        } catch (IOException | JSONException e) {
+            onManifestError(manifest, e);
+        }
+    }
+
+    private void parseManifest(URL manifest, String content) throws IOException, JSONException {
+        final JSONObject jsn = new JSONObject(content);
+        // The include primitive is like below
+        // "include": [
+        //   "https:/...json",
+        //    ...
+        // ]
+        if (jsn.has(INCLUDE)) {
+            final JSONArray include = jsn.getJSONArray(INCLUDE);
+            for (int i = 0; i < include.length(); i++) {
+                if (!include.isNull(i)) {
+                    // Submitted before this fetch completes, so the pending count stays
+                    // above zero until every include is done.
+                    submit(new URL(include.getString(i)));
+                }
+            }
+        }
+        if (jsn.has(IMAGES) && !mExecutor.isShutdown()) {
+            mListener.onImages(manifest, jsn.getJSONArray(IMAGES));
+        }
+    }
+
+    private void onManifestError(URL manifest, Exception e) {
+        Slog.e(TAG, manifest + ": " + e);
+        if (!mExecutor.isShutdown()) {
+            mListener.onError(manifest, e);
+        }
+    }
+
+    /**
+     * Downloads {@code url} unless it was not modified since the cached copy described by
+     * {@code etag} and {@code lastModified}.
+     *
+     * @return the new content, or null if the cached copy is still valid
+     */
+    private String download(URL url, File body, File headers, String etag, String lastModified)
+            throws IOException {
+        Slog.i(TAG, "fetch " + url);
+        final HttpURLConnection connection = (HttpURLConnection) url.openConnection();
+        try {
+            connection.setReadTimeout(TIMEOUT_MS);
+            connection.setConnectTimeout(TIMEOUT_MS);
+            connection.setRequestMethod("GET");
+            connection.setDoInput(true);
+            if (!isEmpty(etag)) {
+                connection.setRequestProperty("If-None-Match", etag);
+            }
+            if (!isEmpty(lastModified)) {
+                connection.setRequestProperty("If-Modified-Since", lastModified);
+            }
+            final int responseCode = connection.getResponseCode();
+            if (responseCode == HttpURLConnection.HTTP_NOT_MODIFIED
+                    && (!isEmpty(etag) || !isEmpty(lastModified))) {
+                return null;
+            }
+            if (responseCode != HttpURLConnection.HTTP_OK) {
+                throw new IOException("HTTP error code: " + responseCode);
+            }
+            final String content;
+            try (InputStream in = connection.getInputStream()) {
+                content = readAll(in);
+            }
+            writeCache(body, headers, content, connection.getHeaderField("ETag"),
+                    connection.getHeaderField("Last-Modified"));
+            return content;
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private void writeCache(File body, File headers, String content, String etag,
+            String lastModified) {
+        headers.delete();
+        if (isEmpty(etag) && isEmpty(lastModified)) {
+            body.delete();
+            return;
+        }
+        try {
+            mCacheDir.mkdirs();
+            // The headers are written last, a body without them is never used.
+            writeFile(body, content);
+            writeFile(headers, (etag == null ? "" : etag) + "\n"
+                    + (lastModified == null ? "" : lastModified));
+        } catch (IOException e) {
+            Slog.w(TAG, "Failed to cache " + body + ": " + e);
+            headers.delete();
+        }
+    }
+
+    @VisibleForTesting
+    File getCacheFile(URL url, String suffix) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(url.toString().getBytes(StandardCharsets.UTF_8));
+            final StringBuilder name = new StringBuilder();
+            for (byte b : digest) {
+                name.append(String.format("%02x", b));
+            }
+            return new File(mCacheDir, name.append(suffix).toString());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static boolean isEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
+
+    /** Reads {@code in} to the end as UTF-8. */
+    static String readAll(InputStream in) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        final byte[] bytes = new byte[4096];
+        int n;
+        while ((n = in.read(bytes)) != -1) {
+            out.write(bytes, 0, n);
+        }
+        return new String(out.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    private static String readFile(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return readAll(in);
+        }
+    }
+
+    private static void writeFile(File file, String content) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -16,11 +16,14 @@
 
 package com.android.settings.display;
 
+import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
 import android.graphics.drawable.Drawable;
+import android.net.Uri;
 import android.os.UserHandle;
 import android.util.AttributeSet;
 import android.util.IconDrawableFactory;
@@ -33,7 +36,10 @@ import android.widget.ImageView;
 import androidx.annotation.VisibleForTesting;
 
 import com.android.settings.R;
+import com.android.settingslib.utils.ThreadUtils;
 
+import java.text.CollationKey;
+import java.text.Collator;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
@@ -66,19 +72,59 @@ public class AppGridView extends GridView {
                 android.R.id.text1, android.R.id.icon1));
     }
 
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (getAdapter() instanceof AppsAdapter) {
+            ((AppsAdapter) getAdapter()).startListening();
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        if (getAdapter() instanceof AppsAdapter) {
+            ((AppsAdapter) getAdapter()).stopListening();
+        }
+        super.onDetachedFromWindow();
+    }
+
     /**
      * Loads application labels and icons.
+     *
+     * <p>Launcher activities are resolved and sorted on a background thread, and the icon of an
+     * entry is only loaded, also in the background, once its cell is shown. Package changes only
+     * reload the activities of the changed package.
      */
     @VisibleForTesting
     public static class AppsAdapter extends ArrayAdapter<ActivityEntry> {
+        @VisibleForTesting
+        static final int NEED_APP_COUNT = 6;
+
         private final PackageManager mPackageManager;
+        private final IconDrawableFactory mIconFactory;
         private final int mIconResId;
 
+        private final BroadcastReceiver mPackageReceiver = new BroadcastReceiver() {
+            @Override
+            public void onReceive(Context context, Intent intent) {
+                final Uri data = intent.getData();
+                final String packageName = data != null ? data.getSchemeSpecificPart() : null;
+                if (packageName != null) {
+                    onPackageChanged(packageName,
+                            Intent.ACTION_PACKAGE_REMOVED.equals(intent.getAction()));
+                }
+            }
+        };
+        private boolean mListening;
+        // Incremented whenever a full load starts, so that older results are dropped.
+        private int mGeneration;
+
         public AppsAdapter(Context context, int layout, int textResId, int iconResId) {
             super(context, layout, textResId);
 
             mIconResId = iconResId;
             mPackageManager = context.getPackageManager();
+            mIconFactory = IconDrawableFactory.newInstance(context);
 
             loadAllApps();
         }
@@ -88,7 +134,20 @@ public class AppGridView extends GridView {
             final View view = super.getView(position, convertView, parent);
             final ActivityEntry entry = getItem(position);
             final ImageView iconView = view.findViewById(mIconResId);
-            iconView.setImageDrawable(entry.getIcon());
+            iconView.setTag(entry);
+            final Drawable icon = entry.getCachedIcon();
+            iconView.setImageDrawable(icon);
+            if (icon == null) {
+                ThreadUtils.postOnBackgroundThread(() -> {
+                    final Drawable loadedIcon = entry.loadIcon();
+                    ThreadUtils.postOnMainThread(() -> {
+                        // The cell may have been recycled for another entry meanwhile.
+                        if (iconView.getTag() == entry) {
+                            iconView.setImageDrawable(loadedIcon);
+                        }
+                    });
+                });
+            }
             return view;
         }
 
@@ -107,28 +166,103 @@ public class AppGridView extends GridView {
             return false;
         }
 
+        /** Starts reloading the entries of packages that are added, changed or removed. */
+        void startListening() {
+            if (mListening) {
+                return;
+            }
+            mListening = true;
+            final IntentFilter filter = new IntentFilter(Intent.ACTION_PACKAGE_ADDED);
+            filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+            filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+            filter.addDataScheme("package");
+            getContext().registerReceiver(mPackageReceiver, filter);
+        }
+
+        void stopListening() {
+            if (!mListening) {
+                return;
+            }
+            mListening = false;
+            getContext().unregisterReceiver(mPackageReceiver);
+        }
+
+        @VisibleForTesting
+        void onPackageChanged(String packageName, boolean removed) {
+            final int generation = mGeneration;
+            ThreadUtils.postOnBackgroundThread(() -> {
+                final List<ActivityEntry> entries = removed
+                        ? new ArrayList<>() : loadApps(packageName, NEED_APP_COUNT);
+                ThreadUtils.postOnMainThread(() -> {
+                    if (generation == mGeneration) {
+                        mergePackage(packageName, entries);
+                    }
+                });
+            });
+        }
+
+        private void mergePackage(String packageName, List<ActivityEntry> entries) {
+            final List<ActivityEntry> results = new ArrayList<>();
+            for (int i = 0; i < getCount(); i++) {
+                final ActivityEntry entry = getItem(i);
+                if (!packageName.equals(entry.info.activityInfo.packageName)) {
+                    results.add(entry);
+                }
+            }
+            if (results.size() + entries.size() < NEED_APP_COUNT
+                    && results.size() < getCount()) {
+                // Not enough apps left to fill the grid, look for others.
+                loadAllApps();
+                return;
+            }
+            results.addAll(entries);
+            Collections.sort(results);
+            setEntries(results.subList(0, Math.min(results.size(), NEED_APP_COUNT)));
+        }
+
         private void loadAllApps() {
-            final int needAppCount = 6;
+            final int generation = ++mGeneration;
+            ThreadUtils.postOnBackgroundThread(() -> {
+                final List<ActivityEntry> results = loadApps(null /* packageName */,
+                        NEED_APP_COUNT);
+                Collections.sort(results);
+                ThreadUtils.postOnMainThread(() -> {
+                    if (generation == mGeneration) {
+                        setEntries(results);
+                    }
+                });
+            });
+        }
+
+        /**
+         * Returns up to {@code count} launcher activities with a label, of {@code packageName} or
+         * of any package if it is null.
+         */
+        private List<ActivityEntry> loadApps(String packageName, int count) {
             final Intent mainIntent = new Intent(Intent.ACTION_MAIN, null);
             mainIntent.addCategory(Intent.CATEGORY_LAUNCHER);
+            mainIntent.setPackage(packageName);
 
             final PackageManager pm = mPackageManager;
             final ArrayList<ActivityEntry> results = new ArrayList<>();
             final List<ResolveInfo> infos = pm.queryIntentActivities(mainIntent, 0);
-            final IconDrawableFactory iconFactory = IconDrawableFactory.newInstance(getContext());
             for (ResolveInfo info : infos) {
                 final CharSequence label = info.loadLabel(pm);
                 if (label != null) {
-                    results.add(new ActivityEntry(info, label.toString(), iconFactory));
+                    results.add(new ActivityEntry(info, label.toString(), mIconFactory));
                 }
-                if (results.size() >= needAppCount) {
+                if (results.size() >= count) {
                     break;
                 }
             }
+            return results;
+        }
 
-            Collections.sort(results);
-
-            addAll(results);
+        private void setEntries(List<ActivityEntry> entries) {
+            setNotifyOnChange(false);
+            clear();
+            addAll(entries);
+            notifyDataSetChanged();
         }
     }
 
@@ -138,21 +272,31 @@ public class AppGridView extends GridView {
     @VisibleForTesting
     public static class ActivityEntry implements Comparable<ActivityEntry> {
 
+        // Collators are not thread safe, entries are created on background threads.
+        private static final ThreadLocal<Collator> sCollator = ThreadLocal.withInitial(() -> {
+            final Collator collator = Collator.getInstance();
+            collator.setStrength(Collator.SECONDARY);
+            return collator;
+        });
+
         public final ResolveInfo info;
         public final String label;
+        private final CollationKey mSortKey;
         private final IconDrawableFactory mIconFactory;
         private final int mUserId;
+        private volatile Drawable mIcon;
 
         public ActivityEntry(ResolveInfo info, String label, IconDrawableFactory iconFactory) {
             this.info = info;
             this.label = label;
+            mSortKey = sCollator.get().getCollationKey(label);
             mIconFactory = iconFactory;
             mUserId = UserHandle.myUserId();
         }
 
         @Override
         public int compareTo(ActivityEntry entry) {
-            return label.compareToIgnoreCase(entry.label);
+            return mSortKey.compareTo(entry.mSortKey);
         }
 
         @Override
@@ -164,5 +308,20 @@ public class AppGridView extends GridView {
             return mIconFactory.getBadgedIcon(
                     info.activityInfo, info.activityInfo.applicationInfo, mUserId);
         }
+
+        /** Returns the icon if it was already loaded by {@link #loadIcon()}, or null. */
+        Drawable getCachedIcon() {
+            return mIcon;
+        }
+
+        /** Loads the icon once and keeps it. May be called on a background thread. */
+        Drawable loadIcon() {
+            Drawable icon = mIcon;
+            if (icon == null) {
+                icon = getIcon();
+                mIcon = icon;
+            }
+            return icon;
+        }
     }
 }
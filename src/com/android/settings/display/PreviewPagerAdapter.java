@@ -19,20 +19,28 @@ import android.animation.Animator;
 import android.animation.Animator.AnimatorListener;
 import android.content.Context;
 import android.content.res.Configuration;
+import android.os.Handler;
+import android.os.Looper;
+import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
-import android.view.ViewStub;
 import android.view.animation.AccelerateInterpolator;
 import android.view.animation.DecelerateInterpolator;
 import android.view.animation.Interpolator;
 import android.widget.FrameLayout;
 import android.widget.LinearLayout;
 
+import androidx.annotation.VisibleForTesting;
 import androidx.viewpager.widget.PagerAdapter;
 
+import java.util.function.IntFunction;
+
 /**
  * A PagerAdapter used by PreviewSeekBarPreferenceFragment that for showing multiple preview screen
  * regarding a single setting and allowing the user to swipe across them.
+ *
+ * <p>Each preview frame holds one layer per configuration. Layers are inflated when first needed,
+ * and only the layers around the current configuration are kept.
  */
 public class PreviewPagerAdapter extends PagerAdapter {
 
@@ -45,6 +53,15 @@ public class PreviewPagerAdapter extends PagerAdapter {
     /** Interpolator to use when cross-fading between previews. */
     private static final Interpolator FADE_OUT_INTERPOLATOR = new AccelerateInterpolator();
 
+    /** Layers kept inflated on each side of the current one. */
+    private static final int ADJACENT_LAYERS = 1;
+
+    private final Context mContext;
+    private final int[] mPreviewSampleResIds;
+    private final IntFunction<Configuration> mConfigurationProvider;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mPrepareLayers = this::prepareLayers;
+
     private FrameLayout[] mPreviewFrames;
 
     private boolean mIsLayoutRtl;
@@ -53,13 +70,30 @@ public class PreviewPagerAdapter extends PagerAdapter {
 
     private int mAnimationCounter;
 
-    private boolean[][] mViewStubInflated;
+    // Configuration contexts, shared by every preview frame and created on first use.
+    private final Context[] mConfigContexts;
 
+    // Inflated layer of each preview sample and configuration, null until first used.
+    private final View[][] mLayers;
+
+    private int mLayerIndex = -1;
+    private int mFadingLayerIndex = -1;
+    private int mFrameIndex;
+
+    /**
+     * @param configurationProvider creates the configuration at a given index, called the first
+     *                              time a layer of that configuration is shown
+     */
     public PreviewPagerAdapter(Context context, boolean isLayoutRtl,
-            int[] previewSampleResIds, Configuration[] configurations) {
+            int[] previewSampleResIds, int configurationCount,
+            IntFunction<Configuration> configurationProvider) {
+        mContext = context;
         mIsLayoutRtl = isLayoutRtl;
+        mPreviewSampleResIds = previewSampleResIds;
+        mConfigurationProvider = configurationProvider;
         mPreviewFrames = new FrameLayout[previewSampleResIds.length];
-        mViewStubInflated = new boolean[previewSampleResIds.length][configurations.length];
+        mConfigContexts = new Context[configurationCount];
+        mLayers = new View[previewSampleResIds.length][configurationCount];
 
         for (int i = 0; i < previewSampleResIds.length; ++i) {
             int p = mIsLayoutRtl ? previewSampleResIds.length - 1 - i : i;
@@ -69,22 +103,6 @@ public class PreviewPagerAdapter extends PagerAdapter {
                     LinearLayout.LayoutParams.MATCH_PARENT));
             mPreviewFrames[p].setClipToPadding(true);
             mPreviewFrames[p].setClipChildren(true);
-            for (int j = 0; j < configurations.length; ++j) {
-                // Create a new configuration for the specified value. It won't
-                // have any theme set, so manually apply the current theme.
-                final Context configContext = context.createConfigurationContext(configurations[j]);
-                configContext.getTheme().setTo(context.getTheme());
-
-                final ViewStub sampleViewStub = new ViewStub(configContext);
-                sampleViewStub.setLayoutResource(previewSampleResIds[i]);
-                final int fi = i, fj = j;
-                sampleViewStub.setOnInflateListener((stub, inflated) -> {
-                    inflated.setVisibility(stub.getVisibility());
-                    mViewStubInflated[fi][fj] = true;
-                });
-
-                mPreviewFrames[p].addView(sampleViewStub);
-            }
         }
     }
 
@@ -119,33 +137,112 @@ public class PreviewPagerAdapter extends PagerAdapter {
 
     void setPreviewLayer(int newLayerIndex, int currentLayerIndex, int currentFrameIndex,
             final boolean animate) {
-        for (FrameLayout previewFrame : mPreviewFrames) {
+        for (int i = 0; i < mPreviewFrames.length; ++i) {
+            final boolean isCurrentFrame = (i == currentFrameIndex);
             if (currentLayerIndex >= 0) {
-                final View lastLayer = previewFrame.getChildAt(currentLayerIndex);
-                if (mViewStubInflated[currentFrameIndex][currentLayerIndex]) {
-                    // Explicitly set to INVISIBLE only when the stub has
-                    // already been inflated.
-                    if (previewFrame == mPreviewFrames[currentFrameIndex]) {
-                        setVisibility(lastLayer, View.INVISIBLE, animate);
-                    } else {
-                        setVisibility(lastLayer, View.INVISIBLE, false);
-                    }
+                final View lastLayer = getLayer(i, currentLayerIndex);
+                // Explicitly set to INVISIBLE only when the layer has already been inflated.
+                if (lastLayer != null) {
+                    setVisibility(lastLayer, View.INVISIBLE, animate && isCurrentFrame);
                 }
             }
 
-            // Set next layer visible, as well as inflate necessary views.
-            View nextLayer = previewFrame.getChildAt(newLayerIndex);
-            if (previewFrame == mPreviewFrames[currentFrameIndex]) {
-                // Inflate immediately if the stub has not yet been inflated.
-                if (!mViewStubInflated[currentFrameIndex][newLayerIndex]) {
-                    nextLayer = ((ViewStub) nextLayer).inflate();
+            // Only the layer of the visible frame is inflated right away, the other frames
+            // catch up in prepareLayers().
+            View nextLayer = getLayer(i, newLayerIndex);
+            if (isCurrentFrame) {
+                if (nextLayer == null) {
+                    nextLayer = inflateLayer(i, newLayerIndex);
                     nextLayer.setAlpha(0.0f);
                 }
                 setVisibility(nextLayer, View.VISIBLE, animate);
-            } else {
+            } else if (nextLayer != null) {
                 setVisibility(nextLayer, View.VISIBLE, false);
             }
         }
+
+        mFadingLayerIndex = currentLayerIndex;
+        mLayerIndex = newLayerIndex;
+        mFrameIndex = currentFrameIndex;
+        // Coalesce the work of consecutive changes, e.g. while the seek bar is dragged.
+        mHandler.removeCallbacks(mPrepareLayers);
+        mHandler.post(mPrepareLayers);
+    }
+
+    /**
+     * Inflates the current layer of the other frames and the adjacent layers of the visible frame
+     * ahead of time, and drops the layers that are further away.
+     */
+    @VisibleForTesting
+    void prepareLayers() {
+        mHandler.removeCallbacks(mPrepareLayers);
+        if (mLayerIndex < 0) {
+            return;
+        }
+        for (int i = 0; i < mPreviewFrames.length; ++i) {
+            if (getLayer(i, mLayerIndex) == null) {
+                setVisibility(inflateLayer(i, mLayerIndex), View.VISIBLE, false);
+            }
+        }
+        final int first = Math.max(0, mLayerIndex - ADJACENT_LAYERS);
+        final int last = Math.min(mConfigContexts.length - 1, mLayerIndex + ADJACENT_LAYERS);
+        for (int j = first; j <= last; ++j) {
+            if (getLayer(mFrameIndex, j) == null) {
+                // Laid out but not shown, so that showing it only needs a draw.
+                setVisibility(inflateLayer(mFrameIndex, j), View.INVISIBLE, false);
+            }
+        }
+        for (int i = 0; i < mPreviewFrames.length; ++i) {
+            for (int j = 0; j < mConfigContexts.length; ++j) {
+                if ((j < first || j > last) && j != mFadingLayerIndex) {
+                    recycleLayer(i, j);
+                }
+            }
+        }
+    }
+
+    @VisibleForTesting
+    View getLayer(int frameIndex, int layerIndex) {
+        return mLayers[getSampleIndex(frameIndex)][layerIndex];
+    }
+
+    private View inflateLayer(int frameIndex, int layerIndex) {
+        final int sample = getSampleIndex(frameIndex);
+        final FrameLayout frame = mPreviewFrames[frameIndex];
+        final View layer = LayoutInflater.from(getConfigContext(layerIndex))
+                .inflate(mPreviewSampleResIds[sample], frame, /* attachToRoot */ false);
+        layer.setVisibility(View.GONE);
+        frame.addView(layer, new FrameLayout.LayoutParams(
+                FrameLayout.LayoutParams.MATCH_PARENT, FrameLayout.LayoutParams.MATCH_PARENT));
+        mLayers[sample][layerIndex] = layer;
+        return layer;
+    }
+
+    private void recycleLayer(int frameIndex, int layerIndex) {
+        final int sample = getSampleIndex(frameIndex);
+        final View layer = mLayers[sample][layerIndex];
+        if (layer == null) {
+            return;
+        }
+        layer.animate().cancel();
+        mPreviewFrames[frameIndex].removeView(layer);
+        mLayers[sample][layerIndex] = null;
+    }
+
+    private Context getConfigContext(int layerIndex) {
+        if (mConfigContexts[layerIndex] == null) {
+            // Create a new configuration for the specified value. It won't
+            // have any theme set, so manually apply the current theme.
+            final Context configContext = mContext.createConfigurationContext(
+                    mConfigurationProvider.apply(layerIndex));
+            configContext.getTheme().setTo(mContext.getTheme());
+            mConfigContexts[layerIndex] = configContext;
+        }
+        return mConfigContexts[layerIndex];
+    }
+
+    private int getSampleIndex(int frameIndex) {
+        return mIsLayoutRtl ? mPreviewFrames.length - 1 - frameIndex : frameIndex;
     }
 
     private void setVisibility(final View view, final int visibility, boolean animate) {
@@ -175,15 +175,10 @@ public abstract class PreviewSeekBarPreferenceFragment extends SettingsPreferenc
         final Context context = getContext();
         final Configuration origConfig = context.getResources().getConfiguration();
         final boolean isLayoutRtl = origConfig.getLayoutDirection() == View.LAYOUT_DIRECTION_RTL;
-        Configuration[] configurations = new Configuration[mEntries.length];
-        for (int i = 0; i < mEntries.length; ++i) {
-            configurations[i] = createConfig(origConfig, i);
-        }
-
         final int[] previews = getPreviewSampleResIds();
         mPreviewPager = content.findViewById(R.id.preview_pager);
         mPreviewPagerAdapter = new PreviewPagerAdapter(context, isLayoutRtl,
-                previews, configurations);
+                previews, mEntries.length, index -> createConfig(origConfig, index));
         mPreviewPager.setAdapter(mPreviewPagerAdapter);
         mPreviewPager.setCurrentItem(isLayoutRtl ? previews.length - 1 : 0);
         mPreviewPager.addOnPageChangeListener(mPreviewPageChangeListener);
@@ -0,0 +1,171 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+import android.os.BatteryStatsManager;
+import android.os.BatteryUsageStats;
+import android.os.BatteryUsageStatsQuery;
+import android.os.SystemClock;
+import android.os.UidBatteryConsumer;
+import android.util.Log;
+import android.util.SparseArray;
+
+import androidx.annotation.VisibleForTesting;
+import androidx.annotation.WorkerThread;
+
+import java.util.List;
+
+/**
+ * Process wide snapshot of the device {@link BatteryUsageStats}, shared by the battery screens and
+ * the app info pages.
+ *
+ * <p>A snapshot is reused for {@link #TTL_MS}, unless the battery level or plug state changed
+ * since it was taken. Requests made while a query is running wait for it and reuse its result.
+ * Stats with the battery history are never cached, since reading the history is stateful and
+ * cannot be shared between callers.
+ */
+public final class BatteryUsageStatsCache {
+    private static final String TAG = "BatteryUsageStatsCache";
+
+    @VisibleForTesting
+    static final long TTL_MS = 15000;
+
+    private static final Object sLock = new Object();
+    private static volatile Snapshot sSnapshot;
+
+    private BatteryUsageStatsCache() {
+    }
+
+    /**
+     * Returns the device {@link BatteryUsageStats}, with the battery history if
+     * {@code includeBatteryHistory} is true. Requests with the history always query new stats.
+     */
+    @WorkerThread
+    public static BatteryUsageStats get(Context context, boolean includeBatteryHistory) {
+        if (includeBatteryHistory) {
+            try {
+                return query(context, /* includeBatteryHistory */ true);
+            } catch (RuntimeException e) {
+                Log.e(TAG, "get() for getBatteryUsageStats()", e);
+                return createEmptyStats();
+            }
+        }
+        synchronized (sLock) {
+            final Intent batteryIntent = context.registerReceiver(/* receiver */ null,
+                    new IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+            final int level = getIntExtra(batteryIntent, BatteryManager.EXTRA_LEVEL);
+            final int plugged = getIntExtra(batteryIntent, BatteryManager.EXTRA_PLUGGED);
+            final Snapshot snapshot = sSnapshot;
+            if (snapshot != null && snapshot.isValid(level, plugged)) {
+                return snapshot.mStats;
+            }
+
+            try {
+                final BatteryUsageStats stats =
+                        query(context, /* includeBatteryHistory */ false);
+                if (stats != null) {
+                    sSnapshot = new Snapshot(stats, level, plugged);
+                }
+                return stats;
+            } catch (RuntimeException e) {
+                Log.e(TAG, "get() for getBatteryUsageStats()", e);
+                // Use default BatteryUsageStats, without caching it.
+                return createEmptyStats();
+            }
+        }
+    }
+
+    /**
+     * Returns the consumer of {@code uid} in {@code batteryUsageStats}, or null if there is none.
+     * Looked up in an index when {@code batteryUsageStats} is the cached snapshot.
+     */
+    public static UidBatteryConsumer findUidBatteryConsumer(BatteryUsageStats batteryUsageStats,
+            int uid) {
+        final Snapshot snapshot = sSnapshot;
+        if (snapshot != null && snapshot.mStats == batteryUsageStats) {
+            return snapshot.getUidIndex().get(uid);
+        }
+        final List<UidBatteryConsumer> usageList = batteryUsageStats.getUidBatteryConsumers();
+        for (int i = 0, size = usageList.size(); i < size; i++) {
+            final UidBatteryConsumer consumer = usageList.get(i);
+            if (consumer.getUid() == uid) {
+                return consumer;
+            }
+        }
+        return null;
+    }
+
+    @VisibleForTesting
+    static void clear() {
+        sSnapshot = null;
+    }
+
+    private static BatteryUsageStats query(Context context, boolean includeBatteryHistory) {
+        final BatteryUsageStatsQuery.Builder builder = new BatteryUsageStatsQuery.Builder();
+        if (includeBatteryHistory) {
+            builder.includeBatteryHistory();
+        }
+        return context.getSystemService(BatteryStatsManager.class)
+                .getBatteryUsageStats(builder.build());
+    }
+
+    private static BatteryUsageStats createEmptyStats() {
+        return new BatteryUsageStats.Builder(new String[0], /* includePowerModels */ false)
+                .build();
+    }
+
+    private static int getIntExtra(Intent intent, String name) {
+        return intent == null ? -1 : intent.getIntExtra(name, -1);
+    }
+
+    private static class Snapshot {
+        private final BatteryUsageStats mStats;
+        private final int mLevel;
+        private final int mPlugged;
+        private final long mTime = SystemClock.elapsedRealtime();
+        private SparseArray<UidBatteryConsumer> mUidIndex;
+
+        Snapshot(BatteryUsageStats stats, int level, int plugged) {
+            mStats = stats;
+            mLevel = level;
+            mPlugged = plugged;
+        }
+
+        boolean isValid(int level, int plugged) {
+            return mLevel == level && mPlugged == plugged
+                    && SystemClock.elapsedRealtime() - mTime < TTL_MS;
+        }
+
+        synchronized SparseArray<UidBatteryConsumer> getUidIndex() {
+            if (mUidIndex == null) {
+                final List<UidBatteryConsumer> usageList = mStats.getUidBatteryConsumers();
+                mUidIndex = new SparseArray<>(usageList.size());
+                for (int i = 0, size = usageList.size(); i < size; i++) {
+                    final UidBatteryConsumer consumer = usageList.get(i);
+                    if (mUidIndex.get(consumer.getUid()) == null) {
+                        mUidIndex.put(consumer.getUid(), consumer);
+                    }
+                }
+            }
+            return mUidIndex;
+        }
+    }
+}
@@ -17,41 +17,27 @@
 package com.android.settings.fuelgauge;
 
 import android.content.Context;
-import android.os.BatteryStatsManager;
 import android.os.BatteryUsageStats;
-import android.os.BatteryUsageStatsQuery;
-import android.util.Log;
 
 import com.android.settingslib.utils.AsyncLoaderCompat;
 
 /**
- * Loader to get new {@link BatteryUsageStats} in the background
+ * Loader to get new {@link BatteryUsageStats} in the background, through the process wide
+ * {@link BatteryUsageStatsCache}.
  */
 public class BatteryUsageStatsLoader extends AsyncLoaderCompat<BatteryUsageStats> {
-    private static final String TAG = "BatteryUsageStatsLoader";
-    private final BatteryStatsManager mBatteryStatsManager;
+    private final Context mContext;
     private final boolean mIncludeBatteryHistory;
 
     public BatteryUsageStatsLoader(Context context, boolean includeBatteryHistory) {
         super(context);
-        mBatteryStatsManager = context.getSystemService(BatteryStatsManager.class);
+        mContext = context;
         mIncludeBatteryHistory = includeBatteryHistory;
     }
 
     @Override
     public BatteryUsageStats loadInBackground() {
-        final BatteryUsageStatsQuery.Builder builder = new BatteryUsageStatsQuery.Builder();
-        if (mIncludeBatteryHistory) {
-            builder.includeBatteryHistory();
-        }
-        try {
-            return mBatteryStatsManager.getBatteryUsageStats(builder.build());
-        } catch (RuntimeException e) {
-            Log.e(TAG, "loadInBackground() for getBatteryUsageStats()", e);
-            // Use default BatteryUsageStats.
-            return new BatteryUsageStats.Builder(
-                    new String[0], /* includePowerModels */ false).build();
-        }
+        return BatteryUsageStatsCache.get(mContext, mIncludeBatteryHistory);
     }
 
     @Override
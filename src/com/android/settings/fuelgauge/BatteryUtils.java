@@ -25,9 +25,7 @@ import android.content.pm.PackageManager;
 import android.content.pm.ResolveInfo;
 import android.os.BatteryConsumer;
 import android.os.BatteryStats;
-import android.os.BatteryStatsManager;
 import android.os.BatteryUsageStats;
-import android.os.BatteryUsageStatsQuery;
 import android.os.Build;
 import android.os.Process;
 import android.os.SystemClock;
@@ -366,19 +364,8 @@ public class BatteryUtils {
 
     @WorkerThread
     public BatteryInfo getBatteryInfo(final String tag) {
-        final BatteryStatsManager systemService = mContext.getSystemService(
-                BatteryStatsManager.class);
-        BatteryUsageStats batteryUsageStats;
-        try {
-            batteryUsageStats = systemService.getBatteryUsageStats(
-                    new BatteryUsageStatsQuery.Builder().includeBatteryHistory().build());
-        } catch (RuntimeException e) {
-            Log.e(TAG, "getBatteryInfo() error from getBatteryUsageStats()", e);
-            // Use default BatteryUsageStats.
-            batteryUsageStats =
-                    new BatteryUsageStats.Builder(new String[0], /* includePowerModels */ false)
-                            .build();
-        }
+        final BatteryUsageStats batteryUsageStats =
+                BatteryUsageStatsCache.get(mContext, /* includeBatteryHistory */ true);
 
         final long startTime = System.currentTimeMillis();
 
@@ -75,8 +75,8 @@ public class HighUsageAdapter extends RecyclerView.Adapter<HighUsageAdapter.View
     public void onBindViewHolder(ViewHolder holder, int position) {
         final AppInfo app = mHighUsageAppList.get(position);
         holder.appIcon.setImageDrawable(
-                Utils.getBadgedIcon(mIconDrawableFactory, mPackageManager, app.packageName,
-                        UserHandle.getUserId(app.uid)));
+                Utils.getBadgedIconCached(mContext, mIconDrawableFactory, mPackageManager,
+                        app.packageName, UserHandle.getUserId(app.uid)));
         CharSequence label = Utils.getApplicationLabel(mContext, app.packageName);
         if (label == null) {
             label = app.packageName;
@@ -45,6 +45,8 @@ public class RecentLocationAccessPreferenceController extends LocationBasePrefer
     RecentAppOpsAccess mRecentLocationApps;
     private PreferenceCategory mCategoryRecentLocationRequests;
     private int mType = ProfileSelectFragment.ProfileType.ALL;
+    private Preference mPlaceholder;
+    private boolean mBound;
 
     private static class PackageEntryClickedListener implements
             Preference.OnPreferenceClickListener {
@@ -71,7 +73,7 @@ public class RecentLocationAccessPreferenceController extends LocationBasePrefer
     }
 
     public RecentLocationAccessPreferenceController(Context context, String key) {
-        this(context, key, RecentAppOpsAccess.createForLocation(context));
+        this(context, key, RecentLocationSnapshot.getAccessSource(context));
     }
 
     @VisibleForTesting
@@ -86,11 +88,25 @@ public class RecentLocationAccessPreferenceController extends LocationBasePrefer
         super.displayPreference(screen);
         mCategoryRecentLocationRequests = screen.findPreference(getPreferenceKey());
         final Context prefContext = mCategoryRecentLocationRequests.getContext();
+        RecentLocationSnapshot.forAccesses(mContext, mRecentLocationApps).load(
+                /* showSystem= */ false, result -> bindAccesses(prefContext, result));
+        if (!mBound) {
+            // Hold the place of the list until the accesses are loaded.
+            mPlaceholder = RecentLocationSnapshot.createPlaceholder(prefContext);
+            mCategoryRecentLocationRequests.addPreference(mPlaceholder);
+        }
+    }
+
+    private void bindAccesses(Context prefContext,
+            RecentLocationSnapshot.Result<RecentAppOpsAccess.Access> result) {
+        mBound = true;
+        if (mPlaceholder != null) {
+            mCategoryRecentLocationRequests.removePreference(mPlaceholder);
+            mPlaceholder = null;
+        }
         final List<RecentAppOpsAccess.Access> recentLocationAccesses = new ArrayList<>();
-        final UserManager userManager = UserManager.get(mContext);
-        for (RecentAppOpsAccess.Access access : mRecentLocationApps.getAppListSorted(
-                /* showSystemApps= */ false)) {
-            if (isRequestMatchesProfileType(userManager, access, mType)) {
+        for (RecentAppOpsAccess.Access access : result.items) {
+            if (result.matchesProfileType(access.userHandle, mType)) {
                 recentLocationAccesses.add(access);
                 if (recentLocationAccesses.size() == MAX_APPS) {
                     break;
@@ -150,15 +166,7 @@ public class RecentLocationAccessPreferenceController extends LocationBasePrefer
      */
     public static boolean isRequestMatchesProfileType(UserManager userManager,
             RecentAppOpsAccess.Access access, @ProfileSelectFragment.ProfileType int type) {
-
-        final boolean isWorkProfile = userManager.isManagedProfile(
-                access.userHandle.getIdentifier());
-        if (isWorkProfile && (type & ProfileSelectFragment.ProfileType.WORK) != 0) {
-            return true;
-        }
-        if (!isWorkProfile && (type & ProfileSelectFragment.ProfileType.PERSONAL) != 0) {
-            return true;
-        }
-        return false;
+        return RecentLocationSnapshot.matchesProfileType(
+                userManager.isManagedProfile(access.userHandle.getIdentifier()), type);
     }
 }
@@ -16,10 +16,8 @@
 package com.android.settings.location;
 
 import static com.android.settings.location.RecentLocationAccessPreferenceController.createAppPreference;
-import static com.android.settings.location.RecentLocationAccessPreferenceController.isRequestMatchesProfileType;
 
 import android.content.Context;
-import android.os.UserManager;
 
 import androidx.preference.Preference;
 import androidx.preference.PreferenceScreen;
@@ -41,10 +39,12 @@ public class RecentLocationAccessSeeAllPreferenceController
     private boolean mShowSystem = false;
     private Preference mPreference;
     private int mType = ProfileSelectFragment.ProfileType.ALL;
+    private int mLoadGeneration;
+    private int mBoundGeneration;
 
     public RecentLocationAccessSeeAllPreferenceController(Context context, String key) {
         super(context, key);
-        mRecentLocationAccesses = RecentAppOpsAccess.createForLocation(context);
+        mRecentLocationAccesses = RecentLocationSnapshot.getAccessSource(context);
     }
 
     @Override
@@ -63,12 +63,29 @@ public class RecentLocationAccessSeeAllPreferenceController
         mCategoryAllRecentLocationAccess.removeAll();
         mPreference = preference;
 
-        final UserManager userManager = UserManager.get(mContext);
+        final int generation = ++mLoadGeneration;
+        RecentLocationSnapshot.forAccesses(mContext, mRecentLocationAccesses).load(mShowSystem,
+                result -> {
+                    // Drop the result of a load superseded by a later update.
+                    if (generation == mLoadGeneration) {
+                        bind(preference, result);
+                    }
+                });
+        if (generation != mBoundGeneration) {
+            // Hold the place of the list until it is loaded.
+            mCategoryAllRecentLocationAccess.addPreference(
+                    RecentLocationSnapshot.createPlaceholder(mContext));
+        }
+    }
+
+    private void bind(Preference preference,
+            RecentLocationSnapshot.Result<RecentAppOpsAccess.Access> result) {
+        mBoundGeneration = mLoadGeneration;
+        mCategoryAllRecentLocationAccess.removeAll();
 
         final List<RecentAppOpsAccess.Access> recentLocationAccesses = new ArrayList<>();
-        for (RecentAppOpsAccess.Access access : mRecentLocationAccesses.getAppListSorted(
-                mShowSystem)) {
-            if (isRequestMatchesProfileType(userManager, access, mType)) {
+        for (RecentAppOpsAccess.Access access : result.items) {
+            if (result.matchesProfileType(access.userHandle, mType)) {
                 recentLocationAccesses.add(access);
             }
         }
@@ -41,6 +41,8 @@ public class RecentLocationRequestPreferenceController extends LocationBasePrefe
     RecentLocationApps mRecentLocationApps;
     private PreferenceCategory mCategoryRecentLocationRequests;
     private int mType = ProfileSelectFragment.ProfileType.ALL;
+    private Preference mPlaceholder;
+    private boolean mBound;
 
     /** Used in this class and {@link RecentLocationRequestSeeAllPreferenceController} */
     static class PackageEntryClickedListener implements Preference.OnPreferenceClickListener {
@@ -73,7 +75,7 @@ public class RecentLocationRequestPreferenceController extends LocationBasePrefe
 
     public RecentLocationRequestPreferenceController(Context context, String key) {
         super(context, key);
-        mRecentLocationApps = new RecentLocationApps(context);
+        mRecentLocationApps = RecentLocationSnapshot.getRequestSource(context);
     }
 
     @Override
@@ -81,11 +83,25 @@ public class RecentLocationRequestPreferenceController extends LocationBasePrefe
         super.displayPreference(screen);
         mCategoryRecentLocationRequests = screen.findPreference(getPreferenceKey());
         final Context prefContext = mCategoryRecentLocationRequests.getContext();
+        RecentLocationSnapshot.forRequests(mContext, mRecentLocationApps).load(
+                false /* systemApps */, result -> bindRequests(prefContext, result));
+        if (!mBound) {
+            // Hold the place of the list until the requests are loaded.
+            mPlaceholder = RecentLocationSnapshot.createPlaceholder(prefContext);
+            mCategoryRecentLocationRequests.addPreference(mPlaceholder);
+        }
+    }
+
+    private void bindRequests(Context prefContext,
+            RecentLocationSnapshot.Result<RecentLocationApps.Request> result) {
+        mBound = true;
+        if (mPlaceholder != null) {
+            mCategoryRecentLocationRequests.removePreference(mPlaceholder);
+            mPlaceholder = null;
+        }
         final List<RecentLocationApps.Request> recentLocationRequests = new ArrayList<>();
-        final UserManager userManager = UserManager.get(mContext);
-        for (RecentLocationApps.Request request : mRecentLocationApps.getAppListSorted(
-                false /* systemApps */)) {
-            if (isRequestMatchesProfileType(userManager, request, mType)) {
+        for (RecentLocationApps.Request request : result.items) {
+            if (result.matchesProfileType(request.userHandle, mType)) {
                 recentLocationRequests.add(request);
                 if (recentLocationRequests.size() == MAX_APPS) {
                     break;
@@ -141,14 +157,7 @@ public class RecentLocationRequestPreferenceController extends LocationBasePrefe
      */
     public static boolean isRequestMatchesProfileType(UserManager userManager,
             RecentLocationApps.Request request, @ProfileSelectFragment.ProfileType int type) {
-        final boolean isWorkProfile = userManager.isManagedProfile(
-                request.userHandle.getIdentifier());
-        if (isWorkProfile && (type & ProfileSelectFragment.ProfileType.WORK) != 0) {
-            return true;
-        }
-        if (!isWorkProfile && (type & ProfileSelectFragment.ProfileType.PERSONAL) != 0) {
-            return true;
-        }
-        return false;
+        return RecentLocationSnapshot.matchesProfileType(
+                userManager.isManagedProfile(request.userHandle.getIdentifier()), type);
     }
 }
@@ -16,10 +16,8 @@
 package com.android.settings.location;
 
 import static com.android.settings.location.RecentLocationRequestPreferenceController.createAppPreference;
-import static com.android.settings.location.RecentLocationRequestPreferenceController.isRequestMatchesProfileType;
 
 import android.content.Context;
-import android.os.UserManager;
 
 import androidx.preference.Preference;
 import androidx.preference.PreferenceScreen;
@@ -41,10 +39,12 @@ public class RecentLocationRequestSeeAllPreferenceController
     private boolean mShowSystem = false;
     private Preference mPreference;
     private int mType = ProfileSelectFragment.ProfileType.ALL;
+    private int mLoadGeneration;
+    private int mBoundGeneration;
 
     public RecentLocationRequestSeeAllPreferenceController(Context context, String key) {
         super(context, key);
-        mRecentLocationApps = new RecentLocationApps(context);
+        mRecentLocationApps = RecentLocationSnapshot.getRequestSource(context);
     }
 
     @Override
@@ -63,11 +63,29 @@ public class RecentLocationRequestSeeAllPreferenceController
         mCategoryAllRecentLocationRequests.removeAll();
         mPreference = preference;
 
-        final UserManager userManager = UserManager.get(mContext);
+        final int generation = ++mLoadGeneration;
+        RecentLocationSnapshot.forRequests(mContext, mRecentLocationApps).load(mShowSystem,
+                result -> {
+                    // Drop the result of a load superseded by a later update.
+                    if (generation == mLoadGeneration) {
+                        bind(preference, result);
+                    }
+                });
+        if (generation != mBoundGeneration) {
+            // Hold the place of the list until it is loaded.
+            mCategoryAllRecentLocationRequests.addPreference(
+                    RecentLocationSnapshot.createPlaceholder(mContext));
+        }
+    }
+
+    private void bind(Preference preference,
+            RecentLocationSnapshot.Result<RecentLocationApps.Request> result) {
+        mBoundGeneration = mLoadGeneration;
+        mCategoryAllRecentLocationRequests.removeAll();
+
         final List<RecentLocationApps.Request> recentLocationRequests = new ArrayList<>();
-        for (RecentLocationApps.Request request : mRecentLocationApps.getAppListSorted(
-                mShowSystem)) {
-            if (isRequestMatchesProfileType(userManager, request, mType)) {
+        for (RecentLocationApps.Request request : result.items) {
+            if (result.matchesProfileType(request.userHandle, mType)) {
                 recentLocationRequests.add(request);
             }
         }
@@ -0,0 +1,219 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.location;
+
+import android.content.Context;
+import android.os.SystemClock;
+import android.os.UserHandle;
+import android.os.UserManager;
+import android.util.SparseBooleanArray;
+
+import androidx.annotation.VisibleForTesting;
+import androidx.preference.Preference;
+
+import com.android.settings.R;
+import com.android.settings.dashboard.profileselector.ProfileSelectFragment;
+import com.android.settingslib.applications.RecentAppOpsAccess;
+import com.android.settingslib.location.RecentLocationApps;
+import com.android.settingslib.utils.ThreadUtils;
+import com.android.settingslib.widget.AppPreference;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Recent location accesses read from AppOps, shared by the location controllers.
+ *
+ * <p>Lists are loaded on a background thread and kept for {@link #TTL_MS}, so the controllers of
+ * the location screens opened within that window reuse the same AppOps query instead of issuing
+ * their own. Requests made while a load is running wait for its result. A snapshot belongs to the
+ * source it lists, controllers share one by using the sources returned by
+ * {@link #getAccessSource} and {@link #getRequestSource}.
+ *
+ * <p>All methods must be called on the main thread, and results are delivered on it.
+ *
+ * @param <T> the type of the items in the list
+ */
+class RecentLocationSnapshot<T> {
+
+    @VisibleForTesting
+    static final long TTL_MS = 5000;
+
+    private static RecentAppOpsAccess sAccessSource;
+    private static RecentLocationApps sRequestSource;
+    // Only the snapshot of the last source used is kept.
+    private static RecentLocationSnapshot<RecentAppOpsAccess.Access> sAccessSnapshot;
+    private static RecentLocationSnapshot<RecentLocationApps.Request> sRequestSnapshot;
+
+    /** Items of a snapshot, and the managed profile state of the users they belong to. */
+    static class Result<T> {
+        final List<T> items;
+        private final SparseBooleanArray mManagedProfiles;
+
+        Result(List<T> items, SparseBooleanArray managedProfiles) {
+            this.items = items;
+            mManagedProfiles = managedProfiles;
+        }
+
+        /**
+         * Returns true if {@code user} belongs to {@link ProfileSelectFragment.ProfileType}
+         * {@code type}.
+         */
+        boolean matchesProfileType(UserHandle user, @ProfileSelectFragment.ProfileType int type) {
+            return RecentLocationSnapshot.matchesProfileType(
+                    mManagedProfiles.get(user.getIdentifier()), type);
+        }
+    }
+
+    private final Context mContext;
+    private final Object mSource;
+    private final Function<Boolean, List<T>> mLoader;
+    private final Function<T, UserHandle> mUserGetter;
+    private final Slot<T> mSlot = new Slot<>();
+    private final Slot<T> mSystemSlot = new Slot<>();
+
+    private RecentLocationSnapshot(Context context, Object source,
+            Function<Boolean, List<T>> loader, Function<T, UserHandle> userGetter) {
+        mContext = context.getApplicationContext();
+        mSource = source;
+        mLoader = loader;
+        mUserGetter = userGetter;
+    }
+
+    /** Returns the {@link RecentAppOpsAccess} shared by the location controllers. */
+    static RecentAppOpsAccess getAccessSource(Context context) {
+        if (sAccessSource == null) {
+            sAccessSource = RecentAppOpsAccess.createForLocation(context.getApplicationContext());
+        }
+        return sAccessSource;
+    }
+
+    /** Returns the {@link RecentLocationApps} shared by the location controllers. */
+    static RecentLocationApps getRequestSource(Context context) {
+        if (sRequestSource == null) {
+            sRequestSource = new RecentLocationApps(context.getApplicationContext());
+        }
+        return sRequestSource;
+    }
+
+    /** Returns the snapshot of the accesses listed by {@code source}. */
+    static RecentLocationSnapshot<RecentAppOpsAccess.Access> forAccesses(Context context,
+            RecentAppOpsAccess source) {
+        if (sAccessSnapshot == null || sAccessSnapshot.mSource != source) {
+            sAccessSnapshot = new RecentLocationSnapshot<>(context, source,
+                    source::getAppListSorted, access -> access.userHandle);
+        }
+        return sAccessSnapshot;
+    }
+
+    /** Returns the snapshot of the requests listed by {@code source}. */
+    static RecentLocationSnapshot<RecentLocationApps.Request> forRequests(Context context,
+            RecentLocationApps source) {
+        if (sRequestSnapshot == null || sRequestSnapshot.mSource != source) {
+            sRequestSnapshot = new RecentLocationSnapshot<>(context, source,
+                    source::getAppListSorted, request -> request.userHandle);
+        }
+        return sRequestSnapshot;
+    }
+
+    /**
+     * Returns true if a user that is or is not a managed profile belongs to
+     * {@link ProfileSelectFragment.ProfileType} {@code type}.
+     */
+    static boolean matchesProfileType(boolean isManagedProfile,
+            @ProfileSelectFragment.ProfileType int type) {
+        if (isManagedProfile && (type & ProfileSelectFragment.ProfileType.WORK) != 0) {
+            return true;
+        }
+        if (!isManagedProfile && (type & ProfileSelectFragment.ProfileType.PERSONAL) != 0) {
+            return true;
+        }
+        return false;
+    }
+
+    /** Returns a preference holding the place of the list until it is loaded. */
+    static Preference createPlaceholder(Context prefContext) {
+        final Preference placeholder = new AppPreference(prefContext);
+        placeholder.setTitle(R.string.summary_placeholder);
+        placeholder.setSelectable(false);
+        return placeholder;
+    }
+
+    @VisibleForTesting
+    static void clear() {
+        sAccessSnapshot = null;
+        sRequestSnapshot = null;
+        sAccessSource = null;
+        sRequestSource = null;
+    }
+
+    /**
+     * Delivers the list of recent accesses, including system apps if {@code showSystem} is true,
+     * to {@code callback}. The callback runs right away if a fresh enough list is available.
+     */
+    void load(boolean showSystem, Consumer<Result<T>> callback) {
+        final Slot<T> slot = showSystem ? mSystemSlot : mSlot;
+        if (slot.mResult != null
+                && SystemClock.elapsedRealtime() - slot.mLoadedTime < TTL_MS) {
+            callback.accept(slot.mResult);
+            return;
+        }
+        if (slot.mCallbacks != null) {
+            slot.mCallbacks.add(callback);
+            return;
+        }
+        slot.mCallbacks = new ArrayList<>();
+        slot.mCallbacks.add(callback);
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final Result<T> result = loadResult(showSystem);
+            ThreadUtils.postOnMainThread(() -> {
+                slot.mResult = result;
+                slot.mLoadedTime = SystemClock.elapsedRealtime();
+                final List<Consumer<Result<T>>> callbacks = slot.mCallbacks;
+                slot.mCallbacks = null;
+                for (Consumer<Result<T>> pending : callbacks) {
+                    pending.accept(result);
+                }
+            });
+        });
+    }
+
+    private Result<T> loadResult(boolean showSystem) {
+        final List<T> items = mLoader.apply(showSystem);
+        // Look up each user once instead of once per access.
+        final UserManager userManager = UserManager.get(mContext);
+        final SparseBooleanArray managedProfiles = new SparseBooleanArray();
+        for (T item : items) {
+            final int userId = mUserGetter.apply(item).getIdentifier();
+            if (managedProfiles.indexOfKey(userId) < 0) {
+                managedProfiles.put(userId, userManager.isManagedProfile(userId));
+            }
+        }
+        return new Result<>(Collections.unmodifiableList(new ArrayList<>(items)),
+                managedProfiles);
+    }
+
+    private static class Slot<T> {
+        private Result<T> mResult;
+        private long mLoadedTime;
+        // Non null while a load is running.
+        private List<Consumer<Result<T>>> mCallbacks;
+    }
+}
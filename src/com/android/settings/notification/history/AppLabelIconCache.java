@@ -0,0 +1,169 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.notification.history;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.os.UserHandle;
+import android.util.LruCache;
+import android.util.SparseArray;
+
+import androidx.annotation.VisibleForTesting;
+
+/**
+ * Process wide cache of application labels and user badged icons, per user and package. Shared
+ * between notification history screens so that re-opening them does not hit the package manager
+ * again for every package. Entries of a package are dropped when the package changes.
+ */
+class AppLabelIconCache {
+
+    private static final int MAX_ENTRIES_PER_USER = 64;
+
+    private static final SparseArray<LruCache<String, CachedEntry>> sCaches = new SparseArray<>();
+
+    @VisibleForTesting
+    static final BroadcastReceiver sPackageReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            final Uri data = intent.getData();
+            if (data == null) {
+                return;
+            }
+            final int uid = intent.getIntExtra(Intent.EXTRA_UID, -1);
+            remove(data.getSchemeSpecificPart(), uid < 0 ? UserHandle.USER_ALL
+                    : UserHandle.getUserId(uid));
+        }
+    };
+
+    private static boolean sReceiverRegistered;
+
+    /** Label and icon of a package. The icon belongs to the caller and is not shared. */
+    static class Entry {
+        final CharSequence label;
+        final Drawable icon;
+
+        Entry(CharSequence label, Drawable icon) {
+            this.label = label;
+            this.icon = icon;
+        }
+    }
+
+    private static class CachedEntry {
+        final CharSequence label;
+        final Drawable.ConstantState iconState;
+
+        CachedEntry(CharSequence label, Drawable.ConstantState iconState) {
+            this.label = label;
+            this.iconState = iconState;
+        }
+    }
+
+    private AppLabelIconCache() {
+    }
+
+    /**
+     * Returns the label and badged icon of {@code pkg} for {@code userId}, loading them through
+     * {@code pm} if they are not cached yet. A missing package gets a {@code null} label and the
+     * default activity icon, and is not cached.
+     */
+    static Entry get(Context context, PackageManager pm, String pkg, int userId) {
+        registerReceiverIfNeeded(context);
+        final LruCache<String, CachedEntry> cache = getCache(userId);
+        final CachedEntry cached = cache.get(pkg);
+        if (cached != null) {
+            return new Entry(cached.label,
+                    cached.iconState == null ? null : cached.iconState.newDrawable());
+        }
+        final ApplicationInfo info;
+        try {
+            info = pm.getApplicationInfoAsUser(
+                    pkg,
+                    PackageManager.MATCH_UNINSTALLED_PACKAGES
+                            | PackageManager.MATCH_DISABLED_COMPONENTS
+                            | PackageManager.MATCH_DIRECT_BOOT_UNAWARE
+                            | PackageManager.MATCH_DIRECT_BOOT_AWARE,
+                    userId);
+        } catch (PackageManager.NameNotFoundException e) {
+            // app is gone, just show package name and generic icon
+            return new Entry(null, pm.getDefaultActivityIcon());
+        }
+        if (info == null) {
+            return new Entry(null, null);
+        }
+        final CharSequence label = String.valueOf(pm.getApplicationLabel(info));
+        final Drawable icon =
+                pm.getUserBadgedIcon(pm.getApplicationIcon(info), UserHandle.of(userId));
+        final Drawable.ConstantState iconState = icon == null ? null : icon.getConstantState();
+        if (icon != null && iconState == null) {
+            // An icon that can't be copied is handed out once and loaded again next time.
+            return new Entry(label, icon);
+        }
+        cache.put(pkg, new CachedEntry(label, iconState));
+        return new Entry(label, iconState == null ? null : iconState.newDrawable());
+    }
+
+    /** Drops the entry of {@code pkg} for {@code userId}, or for every user if USER_ALL. */
+    static void remove(String pkg, int userId) {
+        synchronized (sCaches) {
+            for (int i = 0; i < sCaches.size(); i++) {
+                if (userId == UserHandle.USER_ALL || sCaches.keyAt(i) == userId) {
+                    sCaches.valueAt(i).remove(pkg);
+                }
+            }
+        }
+    }
+
+    @VisibleForTesting
+    static void clear() {
+        synchronized (sCaches) {
+            sCaches.clear();
+        }
+    }
+
+    private static void registerReceiverIfNeeded(Context context) {
+        synchronized (sCaches) {
+            if (sReceiverRegistered) {
+                return;
+            }
+            final IntentFilter filter = new IntentFilter(Intent.ACTION_PACKAGE_ADDED);
+            filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+            filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+            filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+            filter.addDataScheme("package");
+            context.getApplicationContext().registerReceiverForAllUsers(sPackageReceiver, filter,
+                    null /* broadcastPermission */, null /* scheduler */);
+            sReceiverRegistered = true;
+        }
+    }
+
+    private static LruCache<String, CachedEntry> getCache(int userId) {
+        synchronized (sCaches) {
+            LruCache<String, CachedEntry> cache = sCaches.get(userId);
+            if (cache == null) {
+                cache = new LruCache<>(MAX_ENTRIES_PER_USER);
+                sCaches.put(userId, cache);
+            }
+            return cache;
+        }
+    }
+}
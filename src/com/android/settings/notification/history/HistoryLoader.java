@@ -19,25 +19,29 @@ package com.android.settings.notification.history;
 import android.app.NotificationHistory;
 import android.app.NotificationHistory.HistoricalNotification;
 import android.content.Context;
-import android.content.pm.ApplicationInfo;
 import android.content.pm.PackageManager;
 import android.os.UserHandle;
+import android.util.ArrayMap;
 import android.util.Slog;
+import android.util.SparseArray;
 
 import com.android.settings.notification.NotificationBackend;
 import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 public class HistoryLoader {
     private static final String TAG = "HistoryLoader";
+    // Packages are handed to the UI in batches of this size, most recent first.
+    private static final int BATCH_SIZE = 4;
     private final Context mContext;
     private final NotificationBackend mBackend;
     private final PackageManager mPm;
+    // Set on the main thread, results are delivered on the main thread only while it is unset.
+    private volatile boolean mCancelled;
 
     public HistoryLoader(Context context, NotificationBackend backend, PackageManager pm) {
         mContext = context;
@@ -45,48 +49,70 @@ public class HistoryLoader {
         mPm = pm;
     }
 
+    /**
+     * Stops delivering results to the listener of {@link #load}, including the batches already
+     * posted to the main thread. Must be called on the main thread.
+     */
+    public void cancel() {
+        mCancelled = true;
+    }
+
     public void load(OnHistoryLoaderListener listener) {
         ThreadUtils.postOnBackgroundThread(() -> {
             try {
-                Map<String, NotificationHistoryPackage> historicalNotifications = new HashMap<>();
+                // Keyed by uid, then package name.
+                final SparseArray<Map<String, NotificationHistoryPackage>> historicalNotifications =
+                        new SparseArray<>();
+                final List<NotificationHistoryPackage> packages = new ArrayList<>();
                 NotificationHistory history =
                         mBackend.getNotificationHistory(mContext.getPackageName(),
                                 mContext.getAttributionTag());
                 while (history.hasNextNotification()) {
                     HistoricalNotification hn = history.getNextNotification();
 
-                    String key = hn.getPackage() + "|" + hn.getUid();
-                    NotificationHistoryPackage hnsForPackage = historicalNotifications.getOrDefault(
-                            key,
-                            new NotificationHistoryPackage(hn.getPackage(), hn.getUid()));
+                    Map<String, NotificationHistoryPackage> packagesForUid =
+                            historicalNotifications.get(hn.getUid());
+                    if (packagesForUid == null) {
+                        packagesForUid = new ArrayMap<>();
+                        historicalNotifications.put(hn.getUid(), packagesForUid);
+                    }
+                    NotificationHistoryPackage hnsForPackage = packagesForUid.get(hn.getPackage());
+                    if (hnsForPackage == null) {
+                        hnsForPackage =
+                                new NotificationHistoryPackage(hn.getPackage(), hn.getUid());
+                        packagesForUid.put(hn.getPackage(), hnsForPackage);
+                        packages.add(hnsForPackage);
+                    }
                     hnsForPackage.notifications.add(hn);
-                    historicalNotifications.put(key, hnsForPackage);
                 }
-                List<NotificationHistoryPackage> packages =
-                        new ArrayList<>(historicalNotifications.values());
                 Collections.sort(packages,
                         (o1, o2) -> -1 * Long.compare(o1.getMostRecent(), o2.getMostRecent()));
-                for (NotificationHistoryPackage nhp : packages) {
-                    ApplicationInfo info;
-                    try {
-                        info = mPm.getApplicationInfoAsUser(
-                                nhp.pkgName,
-                                PackageManager.MATCH_UNINSTALLED_PACKAGES
-                                        | PackageManager.MATCH_DISABLED_COMPONENTS
-                                        | PackageManager.MATCH_DIRECT_BOOT_UNAWARE
-                                        | PackageManager.MATCH_DIRECT_BOOT_AWARE,
-                                UserHandle.getUserId(nhp.uid));
-                        if (info != null) {
-                            nhp.label = String.valueOf(mPm.getApplicationLabel(info));
-                            nhp.icon = mPm.getUserBadgedIcon(mPm.getApplicationIcon(info),
-                                    UserHandle.of(UserHandle.getUserId(nhp.uid)));
-                        }
-                    } catch (PackageManager.NameNotFoundException e) {
-                        // app is gone, just show package name and generic icon
-                        nhp.icon = mPm.getDefaultActivityIcon();
+                for (int start = 0; start < packages.size(); start += BATCH_SIZE) {
+                    if (mCancelled) {
+                        return;
                     }
+                    final int end = Math.min(start + BATCH_SIZE, packages.size());
+                    for (int i = start; i < end; i++) {
+                        final NotificationHistoryPackage nhp = packages.get(i);
+                        final AppLabelIconCache.Entry entry = AppLabelIconCache.get(mContext,
+                                mPm, nhp.pkgName, UserHandle.getUserId(nhp.uid));
+                        nhp.label = entry.label;
+                        nhp.icon = entry.icon;
+                    }
+                    final List<NotificationHistoryPackage> batch =
+                            new ArrayList<>(packages.subList(start, end));
+                    final int position = start;
+                    ThreadUtils.postOnMainThread(() -> {
+                        if (!mCancelled) {
+                            listener.onPackagesLoaded(batch, position);
+                        }
+                    });
                 }
-                ThreadUtils.postOnMainThread(() -> listener.onHistoryLoaded(packages));
+                ThreadUtils.postOnMainThread(() -> {
+                    if (!mCancelled) {
+                        listener.onHistoryLoaded(packages);
+                    }
+                });
             } catch (Exception e) {
                 Slog.e(TAG, "Error loading history", e);
             }
@@ -94,6 +120,16 @@ public class HistoryLoader {
     }
 
     interface OnHistoryLoaderListener {
+        /**
+         * Called on the main thread with the next packages, in recency order, as soon as their
+         * label and icon are resolved.
+         *
+         * @param position the position of the first package of the batch in the full list
+         */
+        void onPackagesLoaded(List<NotificationHistoryPackage> notificationsByPackage,
+                int position);
+
+        /** Called on the main thread once all packages have been delivered. */
         void onHistoryLoaded(List<NotificationHistoryPackage> notificationsByPackage);
     }
 }
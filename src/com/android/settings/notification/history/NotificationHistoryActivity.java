@@ -66,6 +66,7 @@ import com.android.settingslib.widget.OnMainSwitchChangeListener;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
@@ -149,14 +150,30 @@ public class NotificationHistoryActivity extends CollapsingToolbarBaseActivity {
         }
     }
 
-    private HistoryLoader.OnHistoryLoaderListener mOnHistoryLoaderListener = notifications -> {
-        findViewById(R.id.today_list).setVisibility(
-                notifications.isEmpty() ? View.GONE : View.VISIBLE);
-        mCountdownLatch.countDown();
-        View recyclerView = mTodayView.findViewById(R.id.apps);
-        recyclerView.setClipToOutline(true);
-        mTodayView.setOutlineProvider(mOutlineProvider);
-        mSnoozeView.setOutlineProvider(mOutlineProvider);
+    private HistoryLoader.OnHistoryLoaderListener mOnHistoryLoaderListener =
+            new HistoryLoader.OnHistoryLoaderListener() {
+        @Override
+        public void onPackagesLoaded(List<NotificationHistoryPackage> notifications,
+                int position) {
+            if (position == 0) {
+                findViewById(R.id.today_list).setVisibility(View.VISIBLE);
+                View recyclerView = mTodayView.findViewById(R.id.apps);
+                recyclerView.setClipToOutline(true);
+                mTodayView.setOutlineProvider(mOutlineProvider);
+                mSnoozeView.setOutlineProvider(mOutlineProvider);
+            }
+            addPackageViews(notifications, position);
+        }
+
+        @Override
+        public void onHistoryLoaded(List<NotificationHistoryPackage> notifications) {
+            findViewById(R.id.today_list).setVisibility(
+                    notifications.isEmpty() ? View.GONE : View.VISIBLE);
+            mCountdownLatch.countDown();
+        }
+    };
+
+    private void addPackageViews(List<NotificationHistoryPackage> notifications, int position) {
         // for each package, new header and recycler view
         for (int i = 0, notificationsSize = notifications.size(); i < notificationsSize; i++) {
             NotificationHistoryPackage nhp = notifications.get(i);
@@ -176,7 +193,7 @@ public class NotificationHistoryActivity extends CollapsingToolbarBaseActivity {
             header.setStateDescription(container.getVisibility() == View.VISIBLE
                     ? getString(R.string.condition_expand_hide)
                     : getString(R.string.condition_expand_show));
-            int finalI = i;
+            int finalI = position + i;
             header.setOnClickListener(v -> {
                 container.setVisibility(container.getVisibility() == View.VISIBLE
                         ? View.GONE : View.VISIBLE);
@@ -218,7 +235,7 @@ public class NotificationHistoryActivity extends CollapsingToolbarBaseActivity {
 
             mTodayView.addView(viewForPackage);
         }
-    };
+    }
 
     private void configureNotificationList(View recyclerView) {
         recyclerView.setClipToOutline(true);
@@ -257,6 +274,8 @@ public class NotificationHistoryActivity extends CollapsingToolbarBaseActivity {
         // wait for history loading and recent/snooze loading
         mCountdownLatch = new CountDownLatch(2);
 
+        // The rows of a load still in flight would be added again after the new ones.
+        cancelHistoryLoad();
         mTodayView.removeAllViews();
         mHistoryLoader = new HistoryLoader(this, new NotificationBackend(), mPm);
         mHistoryLoader.load(mOnHistoryLoaderListener);
@@ -294,6 +313,7 @@ public class NotificationHistoryActivity extends CollapsingToolbarBaseActivity {
 
     @Override
     public void onPause() {
+        cancelHistoryLoad();
         try {
             mListener.unregisterAsSystemService();
         } catch (RemoteException e) {
@@ -311,6 +331,13 @@ public class NotificationHistoryActivity extends CollapsingToolbarBaseActivity {
         super.onDestroy();
     }
 
+    private void cancelHistoryLoad() {
+        if (mHistoryLoader != null) {
+            mHistoryLoader.cancel();
+            mHistoryLoader = null;
+        }
+    }
+
     private @ColorInt int obtainThemeColor(@AttrRes int attrRes) {
         Resources.Theme theme = new ContextThemeWrapper(this,
                 android.R.style.Theme_DeviceDefault_DayNight).getTheme();
@@ -341,6 +368,7 @@ public class NotificationHistoryActivity extends CollapsingToolbarBaseActivity {
         } else {
             mHistoryOn.setVisibility(View.GONE);
             mHistoryOff.setVisibility(View.VISIBLE);
+            cancelHistoryLoad();
             mTodayView.removeAllViews();
         }
         mHistoryEmpty.setVisibility(View.GONE);
@@ -371,6 +399,7 @@ public class NotificationHistoryActivity extends CollapsingToolbarBaseActivity {
                     mHistoryOff.setVisibility(View.VISIBLE);
                     mHistoryEmpty.setVisibility(View.GONE);
                 }
+                cancelHistoryLoad();
                 mTodayView.removeAllViews();
             };
 
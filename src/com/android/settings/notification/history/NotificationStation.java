@@ -49,6 +49,7 @@ import android.text.SpannableString;
 import android.text.SpannableStringBuilder;
 import android.text.TextUtils;
 import android.text.style.StyleSpan;
+import android.util.ArrayMap;
 import android.util.Log;
 import android.view.View;
 import android.view.ViewGroup;
@@ -56,6 +57,7 @@ import android.widget.DateTimeView;
 import android.widget.ImageView;
 import android.widget.TextView;
 
+import androidx.annotation.VisibleForTesting;
 import androidx.preference.Preference;
 import androidx.preference.PreferenceViewHolder;
 import androidx.recyclerview.widget.RecyclerView;
@@ -63,11 +65,13 @@ import androidx.recyclerview.widget.RecyclerView;
 import com.android.settings.R;
 import com.android.settings.SettingsPreferenceFragment;
 import com.android.settings.Utils;
+import com.android.settingslib.utils.ThreadUtils;
 
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 public class NotificationStation extends SettingsPreferenceFragment {
     private static final String TAG = NotificationStation.class.getSimpleName();
@@ -76,6 +80,11 @@ public class NotificationStation extends SettingsPreferenceFragment {
     private static final boolean DUMP_EXTRAS = true;
     private static final boolean DUMP_PARCEL = true;
 
+    // Upper bound of notifications kept in the log, oldest entries are dropped first.
+    private static final int MAX_NOTIFICATION_INFOS = 200;
+    // Number of preferences added per main thread message while populating the log.
+    private static final int PAGE_SIZE = 20;
+
     private static class HistoricalNotificationInfo {
         public String key;
         public NotificationChannel channel;
@@ -97,10 +106,13 @@ public class NotificationStation extends SettingsPreferenceFragment {
         public CharSequence rankingExtra;
         public boolean alerted;
         public boolean visuallyInterruptive;
+        // Source of the small icon, dropped once the icon has been loaded on first bind.
+        public StatusBarNotification sbn;
 
         public void updateFrom(HistoricalNotificationInfo updatedInfo) {
             this.channel = updatedInfo.channel;
             this.icon = updatedInfo.icon;
+            this.sbn = updatedInfo.sbn;
             this.title = updatedInfo.title;
             this.text = updatedInfo.text;
             this.priority = updatedInfo.priority;
@@ -117,8 +129,14 @@ public class NotificationStation extends SettingsPreferenceFragment {
     private INotificationManager mNoMan;
     private RankingMap mRanking;
     private LinkedList<HistoricalNotificationInfo> mNotificationInfos;
-
-    private final NotificationListenerService mListener = new NotificationListenerService() {
+    // Live updates received while the log is being loaded, applied once it is populated.
+    private final List<Runnable> mPendingUpdates = new ArrayList<>();
+    private boolean mIsLoading;
+    private int mLoadGeneration;
+    private int mNextTopOrder = -1;
+
+    @VisibleForTesting
+    final NotificationListenerService mListener = new NotificationListenerService() {
         @Override
         public void onNotificationPosted(StatusBarNotification sbn, RankingMap ranking) {
             logd("onNotificationPosted: %s, with update for %d", sbn.getNotification(),
@@ -127,6 +145,10 @@ public class NotificationStation extends SettingsPreferenceFragment {
             if (sbn.getNotification().isGroupSummary()) {
                 return;
             }
+            if (mIsLoading) {
+                mPendingUpdates.add(() -> addOrUpdateNotification(sbn));
+                return;
+            }
             addOrUpdateNotification(sbn);
         }
 
@@ -138,6 +160,10 @@ public class NotificationStation extends SettingsPreferenceFragment {
             if (sbn.getNotification().isGroupSummary()) {
                 return;
             }
+            if (mIsLoading) {
+                mPendingUpdates.add(() -> markNotificationAsDismissed(sbn));
+                return;
+            }
             markNotificationAsDismissed(sbn);
         }
 
@@ -146,6 +172,10 @@ public class NotificationStation extends SettingsPreferenceFragment {
             logd("onNotificationRankingUpdate with update for %d",
                     ranking == null ? 0 : ranking.getOrderedKeys().length);
             mRanking = ranking;
+            if (mIsLoading) {
+                mPendingUpdates.add(() -> updateNotificationsFromRanking());
+                return;
+            }
             updateNotificationsFromRanking();
         }
 
@@ -217,20 +247,72 @@ public class NotificationStation extends SettingsPreferenceFragment {
     }
 
     /**
-     * Adds all current and historical notifications when the NLS connects.
+     * Adds all current and historical notifications when the NLS connects. The notifications are
+     * loaded and sorted in the background, then added to the screen a page at a time.
      */
-    private void populateNotifications() {
-        loadNotifications();
-        final int N = mNotificationInfos.size();
-        logd("adding %d infos", N);
-        if (getPreferenceScreen() == null) {
-            setPreferenceScreen(getPreferenceManager().createPreferenceScreen(getContext()));
+    @VisibleForTesting
+    void populateNotifications() {
+        final int generation = ++mLoadGeneration;
+        mIsLoading = true;
+        mPendingUpdates.clear();
+        // mRanking is replaced by the listener on the main thread, load with a snapshot of it.
+        final RankingMap ranking = mRanking;
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final List<HistoricalNotificationInfo> infos = loadNotifications(ranking);
+            ThreadUtils.postOnMainThread(() -> {
+                if (!isLoadCurrent(generation)) {
+                    return;
+                }
+                mNotificationInfos = new LinkedList<>(infos);
+                final int N = mNotificationInfos.size();
+                logd("adding %d infos", N);
+                if (getPreferenceScreen() == null) {
+                    setPreferenceScreen(
+                            getPreferenceManager().createPreferenceScreen(getContext()));
+                }
+                getPreferenceScreen().removeAll();
+                mNextTopOrder = -1;
+                addPreferencePage(generation, infos, 0);
+            });
+        });
+    }
+
+    private void addPreferencePage(int generation, List<HistoricalNotificationInfo> infos,
+            int start) {
+        if (!isLoadCurrent(generation)) {
+            return;
         }
-        getPreferenceScreen().removeAll();
-        for (int i = 0; i < N; i++) {
+        final int end = Math.min(start + PAGE_SIZE, infos.size());
+        for (int i = start; i < end; i++) {
             getPreferenceScreen().addPreference(new HistoricalNotificationPreference(
-                    getPrefContext(), mNotificationInfos.get(i), i));
+                    getPrefContext(), infos.get(i), i));
+        }
+        if (end < infos.size()) {
+            ThreadUtils.postOnMainThread(() -> addPreferencePage(generation, infos, end));
+            return;
         }
+        mIsLoading = false;
+        for (Runnable update : mPendingUpdates) {
+            update.run();
+        }
+        mPendingUpdates.clear();
+    }
+
+    /**
+     * Returns true if the load {@code generation} should go on. A load of a detached fragment
+     * ends there, so that later updates are no longer queued for it.
+     */
+    private boolean isLoadCurrent(int generation) {
+        if (generation != mLoadGeneration) {
+            // A newer load owns the loading state.
+            return false;
+        }
+        if (getActivity() == null) {
+            mIsLoading = false;
+            mPendingUpdates.clear();
+            return false;
+        }
+        return true;
     }
 
     /**
@@ -254,7 +336,8 @@ public class NotificationStation extends SettingsPreferenceFragment {
      * would consider a new notification) adds a new entry at the start of the list.
      */
     private void addOrUpdateNotification(StatusBarNotification sbn) {
-        HistoricalNotificationInfo newInfo = createFromSbn(sbn, true);
+        HistoricalNotificationInfo newInfo = createFromSbn(sbn, true, null /* packageNames */,
+                mRanking);
         boolean needsAdd = true;
         final int N = mNotificationInfos.size();
         for (int i = 0; i < N; i++) {
@@ -272,8 +355,14 @@ public class NotificationStation extends SettingsPreferenceFragment {
         if (needsAdd) {
             mNotificationInfos.addFirst(newInfo);
             getPreferenceScreen().addPreference(new HistoricalNotificationPreference(
-                    getPrefContext(), mNotificationInfos.peekFirst(),
-                    -1 * mNotificationInfos.size()));
+                    getPrefContext(), mNotificationInfos.peekFirst(), mNextTopOrder--));
+            while (mNotificationInfos.size() > MAX_NOTIFICATION_INFOS) {
+                final HistoricalNotificationInfo oldest = mNotificationInfos.removeLast();
+                final Preference pref = getPreferenceScreen().findPreference(oldest.key);
+                if (pref != null) {
+                    getPreferenceScreen().removePreference(pref);
+                }
+            }
         }
     }
 
@@ -281,16 +370,14 @@ public class NotificationStation extends SettingsPreferenceFragment {
      * Updates all notifications in the list based on new information in the ranking.
      */
     private void updateNotificationsFromRanking() {
-        Ranking rank = new Ranking();
-        for (int i = 0; i < getPreferenceScreen().getPreferenceCount(); i++) {
+        for (HistoricalNotificationInfo info : mNotificationInfos) {
             final HistoricalNotificationPreference p =
-                    (HistoricalNotificationPreference) getPreferenceScreen().getPreference(i);
-            final HistoricalNotificationInfo info = mNotificationInfos.get(i);
-            mRanking.getRanking(p.getKey(), rank);
-
-            updateFromRanking(info);
-            ((HistoricalNotificationPreference) getPreferenceScreen().findPreference(
-                    info.key)).updatePreference(info);
+                    getPreferenceScreen().findPreference(info.key);
+            if (p == null) {
+                continue;
+            }
+            updateFromRanking(info, mRanking);
+            p.updatePreference(info);
         }
     }
 
@@ -342,9 +429,10 @@ public class NotificationStation extends SettingsPreferenceFragment {
         return text == null ? "" : String.valueOf(text);
     }
 
-    private Drawable loadIcon(HistoricalNotificationInfo info, StatusBarNotification sbn) {
+    private static Drawable loadIcon(Context context, HistoricalNotificationInfo info,
+            StatusBarNotification sbn) {
         Drawable draw = sbn.getNotification().getSmallIcon().loadDrawableAsUser(
-                sbn.getPackageContext(mContext), info.user);
+                sbn.getPackageContext(context), info.user);
         if (draw == null) {
             return null;
         }
@@ -369,24 +457,25 @@ public class NotificationStation extends SettingsPreferenceFragment {
     /**
      * Reads all current and past notifications (up to the system limit, since the device was
      * booted), stores the data we need to present them, and sorts them chronologically for display.
+     * Icons are not loaded here, they are loaded when a row is first bound.
      */
-    private void loadNotifications() {
+    private List<HistoricalNotificationInfo> loadNotifications(RankingMap ranking) {
+        final List<HistoricalNotificationInfo> list = new ArrayList<>();
         try {
             StatusBarNotification[] active = mNoMan.getActiveNotificationsWithAttribution(
                     mContext.getPackageName(), mContext.getAttributionTag());
             StatusBarNotification[] dismissed = mNoMan.getHistoricalNotificationsWithAttribution(
                     mContext.getPackageName(), mContext.getAttributionTag(), 50, false);
 
-            List<HistoricalNotificationInfo> list
-                    = new ArrayList<>(active.length + dismissed.length);
-
+            final Map<String, CharSequence> packageNames = new ArrayMap<>();
             for (StatusBarNotification[] resultSet
                     : new StatusBarNotification[][] { active, dismissed }) {
                 for (StatusBarNotification sbn : resultSet) {
                     if (sbn.getNotification().isGroupSummary()) {
                         continue;
                     }
-                    final HistoricalNotificationInfo info = createFromSbn(sbn, resultSet == active);
+                    final HistoricalNotificationInfo info =
+                            createFromSbn(sbn, resultSet == active, packageNames, ranking);
                     logd("   [%d] %s: %s", info.timestamp, info.pkg, info.title);
                     list.add(info);
                 }
@@ -395,25 +484,27 @@ public class NotificationStation extends SettingsPreferenceFragment {
             // notifications are given to us in the same order as the shade; sorted by inferred
             // priority. Resort chronologically for our display.
             list.sort(mNotificationSorter);
-            mNotificationInfos = new LinkedList<>(list);
-
         } catch (RemoteException e) {
             Log.e(TAG, "Cannot load Notifications: ", e);
         }
+        return list.size() > MAX_NOTIFICATION_INFOS
+                ? new ArrayList<>(list.subList(0, MAX_NOTIFICATION_INFOS)) : list;
     }
 
-    private HistoricalNotificationInfo createFromSbn(StatusBarNotification sbn, boolean active) {
+    private HistoricalNotificationInfo createFromSbn(StatusBarNotification sbn, boolean active,
+            Map<String, CharSequence> packageNames, RankingMap ranking) {
         final Notification n = sbn.getNotification();
         final HistoricalNotificationInfo info = new HistoricalNotificationInfo();
         info.pkg = sbn.getPackageName();
         info.user = sbn.getUserId() == UserHandle.USER_ALL
                 ? UserHandle.USER_SYSTEM : sbn.getUserId();
         info.badged = info.user != ActivityManager.getCurrentUser();
-        info.icon = loadIcon(info, sbn);
-        if (info.icon == null) {
-            info.icon = loadPackageIconDrawable(info.pkg, info.user);
+        info.sbn = sbn;
+        if (packageNames == null) {
+            info.pkgname = loadPackageName(info.pkg);
+        } else {
+            info.pkgname = packageNames.computeIfAbsent(info.pkg, this::loadPackageName);
         }
-        info.pkgname = loadPackageName(info.pkg);
         info.title = getTitleString(n);
         info.text = getTextString(sbn.getPackageContext(mContext), n);
         info.timestamp = sbn.getPostTime();
@@ -424,38 +515,40 @@ public class NotificationStation extends SettingsPreferenceFragment {
         info.active = active;
         info.notificationExtra = generateExtraText(sbn, info);
 
-        updateFromRanking(info);
+        updateFromRanking(info, ranking);
 
         return info;
     }
 
-    private void updateFromRanking(HistoricalNotificationInfo info) {
+    private void updateFromRanking(HistoricalNotificationInfo info, RankingMap ranking) {
         Ranking rank = new Ranking();
-        if (mRanking == null) {
+        if (ranking == null) {
             return;
         }
-        mRanking.getRanking(info.key, rank);
+        ranking.getRanking(info.key, rank);
         info.alerted = rank.getLastAudiblyAlertedMillis() > 0;
         info.visuallyInterruptive = rank.isTextChanged();
         info.channel = rank.getChannel();
-        info.rankingExtra = generateRankingExtraText(info);
+        info.rankingExtra = generateRankingExtraText(info, ranking);
     }
 
     /**
      * Generates a string of debug information for this notification based on the RankingMap
      */
-    private CharSequence generateRankingExtraText(HistoricalNotificationInfo info) {
+    private CharSequence generateRankingExtraText(HistoricalNotificationInfo info,
+            RankingMap ranking) {
         final SpannableStringBuilder sb = new SpannableStringBuilder();
-        final String delim = getString(R.string.notification_log_details_delimiter);
+        final String delim = mContext.getString(R.string.notification_log_details_delimiter);
 
         Ranking rank = new Ranking();
-        if (mRanking != null && mRanking.getRanking(info.key, rank)) {
+        if (ranking != null && ranking.getRanking(info.key, rank)) {
             if (info.active && info.alerted) {
                 sb.append("\n")
-                        .append(bold(getString(R.string.notification_log_details_alerted)));
+                        .append(bold(mContext.getString(
+                                R.string.notification_log_details_alerted)));
             }
             sb.append("\n")
-                    .append(bold(getString(R.string.notification_log_channel)))
+                    .append(bold(mContext.getString(R.string.notification_log_channel)))
                     .append(delim)
                     .append(info.channel.toString());
             sb.append("\n")
@@ -472,31 +565,31 @@ public class NotificationStation extends SettingsPreferenceFragment {
                     .append(rank.isBubble() ? "true" : "false");
             if (info.active) {
                 sb.append("\n")
-                        .append(bold(getString(
+                        .append(bold(mContext.getString(
                                 R.string.notification_log_details_importance)))
                         .append(delim)
                         .append(Ranking.importanceToString(rank.getImportance()));
                 if (rank.getImportanceExplanation() != null) {
                     sb.append("\n")
-                            .append(bold(getString(
+                            .append(bold(mContext.getString(
                                     R.string.notification_log_details_explanation)))
                             .append(delim)
                             .append(rank.getImportanceExplanation());
                 }
                 sb.append("\n")
-                        .append(bold(getString(
+                        .append(bold(mContext.getString(
                                 R.string.notification_log_details_badge)))
                         .append(delim)
                         .append(Boolean.toString(rank.canShowBadge()));
             }
         } else {
-            if (mRanking == null) {
+            if (ranking == null) {
                 sb.append("\n")
-                        .append(bold(getString(
+                        .append(bold(mContext.getString(
                                 R.string.notification_log_details_ranking_null)));
             } else {
                 sb.append("\n")
-                        .append(bold(getString(
+                        .append(bold(mContext.getString(
                                 R.string.notification_log_details_ranking_none)));
             }
         }
@@ -511,16 +604,16 @@ public class NotificationStation extends SettingsPreferenceFragment {
                                            HistoricalNotificationInfo info) {
         final Notification n = sbn.getNotification();
         final SpannableStringBuilder sb = new SpannableStringBuilder();
-        final String delim = getString(R.string.notification_log_details_delimiter);
-        sb.append(bold(getString(R.string.notification_log_details_package)))
+        final String delim = mContext.getString(R.string.notification_log_details_delimiter);
+        sb.append(bold(mContext.getString(R.string.notification_log_details_package)))
                 .append(delim)
                 .append(info.pkg)
                 .append("\n")
-                .append(bold(getString(R.string.notification_log_details_key)))
+                .append(bold(mContext.getString(R.string.notification_log_details_key)))
                 .append(delim)
                 .append(sbn.getKey());
         sb.append("\n")
-                .append(bold(getString(R.string.notification_log_details_icon)))
+                .append(bold(mContext.getString(R.string.notification_log_details_icon)))
                 .append(delim)
                 .append(String.valueOf(n.getSmallIcon()));
         sb.append("\n")
@@ -535,17 +628,17 @@ public class NotificationStation extends SettingsPreferenceFragment {
         }
         if (sbn.isGroup()) {
             sb.append("\n")
-                    .append(bold(getString(R.string.notification_log_details_group)))
+                    .append(bold(mContext.getString(R.string.notification_log_details_group)))
                     .append(delim)
                     .append(String.valueOf(sbn.getGroupKey()));
             if (n.isGroupSummary()) {
                 sb.append(bold(
-                        getString(R.string.notification_log_details_group_summary)));
+                        mContext.getString(R.string.notification_log_details_group_summary)));
             }
         }
         if (n.publicVersion != null) {
             sb.append("\n")
-                    .append(bold(getString(
+                    .append(bold(mContext.getString(
                             R.string.notification_log_details_public_version)))
                     .append(delim)
                     .append(getTitleString(n.publicVersion));
@@ -553,45 +646,45 @@ public class NotificationStation extends SettingsPreferenceFragment {
 
         if (n.contentIntent != null) {
             sb.append("\n")
-                    .append(bold(getString(
+                    .append(bold(mContext.getString(
                             R.string.notification_log_details_content_intent)))
                     .append(delim)
                     .append(formatPendingIntent(n.contentIntent));
         }
         if (n.deleteIntent != null) {
             sb.append("\n")
-                    .append(bold(getString(
+                    .append(bold(mContext.getString(
                             R.string.notification_log_details_delete_intent)))
                     .append(delim)
                     .append(formatPendingIntent(n.deleteIntent));
         }
         if (n.fullScreenIntent != null) {
             sb.append("\n")
-                    .append(bold(getString(
+                    .append(bold(mContext.getString(
                             R.string.notification_log_details_full_screen_intent)))
                     .append(delim)
                     .append(formatPendingIntent(n.fullScreenIntent));
         }
         if (n.actions != null && n.actions.length > 0) {
             sb.append("\n")
-                    .append(bold(getString(R.string.notification_log_details_actions)));
+                    .append(bold(mContext.getString(R.string.notification_log_details_actions)));
             for (int ai=0; ai<n.actions.length; ai++) {
                 final Notification.Action action = n.actions[ai];
                 sb.append("\n  ").append(String.valueOf(ai)).append(' ')
-                        .append(bold(getString(
+                        .append(bold(mContext.getString(
                                 R.string.notification_log_details_title)))
                         .append(delim)
                         .append(action.title);
                 if (action.actionIntent != null) {
                     sb.append("\n    ")
-                            .append(bold(getString(
+                            .append(bold(mContext.getString(
                                     R.string.notification_log_details_content_intent)))
                             .append(delim)
                             .append(formatPendingIntent(action.actionIntent));
                 }
                 if (action.getRemoteInputs() != null) {
                     sb.append("\n    ")
-                            .append(bold(getString(
+                            .append(bold(mContext.getString(
                                     R.string.notification_log_details_remoteinput)))
                             .append(delim)
                             .append(String.valueOf(action.getRemoteInputs().length));
@@ -600,7 +693,7 @@ public class NotificationStation extends SettingsPreferenceFragment {
         }
         if (n.contentView != null) {
             sb.append("\n")
-                    .append(bold(getString(
+                    .append(bold(mContext.getString(
                             R.string.notification_log_details_content_view)))
                     .append(delim)
                     .append(n.contentView.toString());
@@ -621,7 +714,7 @@ public class NotificationStation extends SettingsPreferenceFragment {
         if (DUMP_EXTRAS) {
             if (n.extras != null && n.extras.size() > 0) {
                 sb.append("\n")
-                        .append(bold(getString(
+                        .append(bold(mContext.getString(
                                 R.string.notification_log_details_extras)));
                 for (String extraKey : n.extras.keySet()) {
                     String val = String.valueOf(n.extras.get(extraKey));
@@ -634,11 +727,11 @@ public class NotificationStation extends SettingsPreferenceFragment {
             final Parcel p = Parcel.obtain();
             n.writeToParcel(p, 0);
             sb.append("\n")
-                    .append(bold(getString(R.string.notification_log_details_parcel)))
+                    .append(bold(mContext.getString(R.string.notification_log_details_parcel)))
                     .append(delim)
                     .append(String.valueOf(p.dataPosition()))
                     .append(' ')
-                    .append(bold(getString(R.string.notification_log_details_ashmem)))
+                    .append(bold(mContext.getString(R.string.notification_log_details_ashmem)))
                     .append(delim)
                     .append(String.valueOf(p.getBlobAshmemSize()))
                     .append("\n");
@@ -646,10 +739,10 @@ public class NotificationStation extends SettingsPreferenceFragment {
         return sb;
     }
 
-    private Drawable loadPackageIconDrawable(String pkg, int userId) {
+    private static Drawable loadPackageIconDrawable(PackageManager pm, String pkg) {
         Drawable icon = null;
         try {
-            icon = mPm.getApplicationIcon(pkg);
+            icon = pm.getApplicationIcon(pkg);
         } catch (PackageManager.NameNotFoundException e) {
             Log.e(TAG, "Cannot get application icon", e);
         }
@@ -705,6 +798,14 @@ public class NotificationStation extends SettingsPreferenceFragment {
             if (mItemView == null) {
                 return;
             }
+            if (info.sbn != null) {
+                // Icons are only loaded for rows which are actually shown.
+                info.icon = loadIcon(mContext, info, info.sbn);
+                if (info.icon == null) {
+                    info.icon = loadPackageIconDrawable(mContext.getPackageManager(), info.pkg);
+                }
+                info.sbn = null;
+            }
             if (info.icon != null) {
                 ((ImageView) mItemView.findViewById(R.id.icon)).setImageDrawable(mInfo.icon);
             }
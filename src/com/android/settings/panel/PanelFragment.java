@@ -45,6 +45,7 @@ import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentActivity;
 import androidx.lifecycle.LifecycleObserver;
 import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
 import androidx.slice.Slice;
@@ -329,27 +330,41 @@ public class PanelFragment extends Fragment {
         mPanelSlicesLoaderCountdownLatch = new PanelSlicesLoaderCountdownLatch(sliceUris.size());
 
         for (Uri uri : sliceUris) {
-            final LiveData<Slice> sliceLiveData = SliceLiveData.fromUri(getActivity(), uri,
+            final LiveData<Slice> boundSliceLiveData = SliceLiveData.fromUri(getActivity(), uri,
                     (int type, Throwable source)-> {
+                            PanelSliceCache.remove(uri);
                             removeSliceLiveData(uri);
                             mPanelSlicesLoaderCountdownLatch.markSliceLoaded(uri);
                     });
 
+            // Render the slice shown the last time this uri was on a panel right away, and swap
+            // in the bound slice once it arrives.
+            final Slice cachedSlice = PanelSliceCache.get(uri);
+            final LiveData<Slice> sliceLiveData;
+            if (cachedSlice != null) {
+                final MediatorLiveData<Slice> mediatorLiveData = new MediatorLiveData<>();
+                mediatorLiveData.setValue(cachedSlice);
+                mediatorLiveData.addSource(boundSliceLiveData, mediatorLiveData::setValue);
+                sliceLiveData = mediatorLiveData;
+                mPanelSlicesLoaderCountdownLatch.markSliceLoaded(uri);
+            } else {
+                sliceLiveData = boundSliceLiveData;
+            }
+
             // Add slice first to make it in order.  Will remove it later if there's an error.
             mSliceLiveData.put(uri, sliceLiveData);
 
             sliceLiveData.observe(getViewLifecycleOwner(), slice -> {
-                // If the Slice has already loaded, do nothing.
-                if (mPanelSlicesLoaderCountdownLatch.isSliceLoaded(uri)) {
-                    return;
-                }
-
                 /**
                  * Watching for the {@link Slice} to load.
                  * <p>
                  *     If the Slice comes back {@code null} or with the Error attribute, if slice
                  *     uri is not in the allowlist, remove the Slice data from the list, otherwise
-                 *     keep the Slice data.
+                 *     keep the Slice data. This applies even if the Slice was already shown from
+                 *     the cache, so that a stale cached Slice is dropped.
+                 * <p>
+                 *     If the Slice has already loaded, e.g. from the cache, only remember it for
+                 *     the next panel.
                  * <p>
                  *     If the Slice has come back fully loaded, then mark the Slice as loaded.  No
                  *     other actions required since we already have the Slice data in the list.
@@ -361,9 +376,14 @@ public class PanelFragment extends Fragment {
                  */
                 final SliceMetadata metadata = SliceMetadata.from(getActivity(), slice);
                 if (slice == null || metadata.isErrorSlice()) {
+                    PanelSliceCache.remove(uri);
                     removeSliceLiveData(uri);
                     mPanelSlicesLoaderCountdownLatch.markSliceLoaded(uri);
+                } else if (mPanelSlicesLoaderCountdownLatch.isSliceLoaded(uri)) {
+                    PanelSliceCache.update(getActivity(), uri, slice);
+                    return;
                 } else if (metadata.getLoadingState() == SliceMetadata.LOADED_ALL) {
+                    PanelSliceCache.update(getActivity(), uri, slice);
                     mPanelSlicesLoaderCountdownLatch.markSliceLoaded(uri);
                 } else {
                     Handler handler = new Handler();
@@ -376,6 +396,9 @@ public class PanelFragment extends Fragment {
                 loadPanelWhenReady();
             });
         }
+
+        // When every slice was cached the panel animates in on its first layout.
+        loadPanelWhenReady();
     }
 
     private void removeSliceLiveData(Uri uri) {
@@ -383,7 +406,11 @@ public class PanelFragment extends Fragment {
                 getResources().getStringArray(
                         R.array.config_panel_keep_observe_uri));
         if (!allowList.contains(uri.toString())) {
-            mSliceLiveData.remove(uri);
+            final LiveData<Slice> sliceLiveData = mSliceLiveData.remove(uri);
+            if (mAdapter != null && sliceLiveData != null) {
+                // The panel is already shown, e.g. with a cached Slice that turned out stale.
+                mAdapter.removeSliceLiveData(sliceLiveData);
+            }
         }
     }
 
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.panel;
+
+import android.content.Context;
+import android.net.Uri;
+import android.util.LruCache;
+
+import androidx.annotation.VisibleForTesting;
+import androidx.slice.Slice;
+import androidx.slice.SliceMetadata;
+
+/**
+ * Keeps the last fully loaded {@link Slice} of each panel uri, so that a panel opened again can
+ * render it right away while the fresh slice is being bound.
+ */
+class PanelSliceCache {
+
+    private static final int MAX_SLICES = 16;
+
+    private static final LruCache<Uri, Slice> sSlices = new LruCache<>(MAX_SLICES);
+
+    private PanelSliceCache() {
+    }
+
+    static Slice get(Uri uri) {
+        return sSlices.get(uri);
+    }
+
+    /**
+     * Stores {@param slice} if it is fully loaded, and drops the entry of {@param uri} if the
+     * slice is missing or reports an error. Partially loaded slices are ignored.
+     */
+    static void update(Context context, Uri uri, Slice slice) {
+        if (slice == null) {
+            sSlices.remove(uri);
+            return;
+        }
+        if (slice == sSlices.get(uri)) {
+            return;
+        }
+        final SliceMetadata metadata = SliceMetadata.from(context, slice);
+        if (metadata.isErrorSlice()) {
+            sSlices.remove(uri);
+        } else if (metadata.getLoadingState() == SliceMetadata.LOADED_ALL) {
+            sSlices.put(uri, slice);
+        }
+    }
+
+    static void remove(Uri uri) {
+        sSlices.remove(uri);
+    }
+
+    @VisibleForTesting
+    static void clear() {
+        sSlices.evictAll();
+    }
+}
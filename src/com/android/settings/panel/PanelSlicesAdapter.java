@@ -100,6 +100,24 @@ public class PanelSlicesAdapter
         return mPanelFragment.getPanelViewType();
     }
 
+    /**
+     * Removes the row of {@param sliceLiveData}, if it has one, once the panel is shown.
+     */
+    void removeSliceLiveData(LiveData<Slice> sliceLiveData) {
+        final int position = mSliceLiveData.indexOf(sliceLiveData);
+        if (position < 0) {
+            return;
+        }
+        mSliceLiveData.remove(position);
+        if (position < MAX_NUM_OF_SLICES) {
+            notifyItemRemoved(position);
+            if (mSliceLiveData.size() >= MAX_NUM_OF_SLICES) {
+                // The first Slice over the limit moves up into the last row.
+                notifyItemInserted(MAX_NUM_OF_SLICES - 1);
+            }
+        }
+    }
+
     /**
      * Return the available data from the adapter. If the number of Slices over the max number
      * allowed, the list will only have the first MAX_NUM_OF_SLICES of slices.
@@ -18,10 +18,14 @@ package com.android.settings.panel;
 
 import static com.android.settingslib.media.MediaOutputConstants.EXTRA_PACKAGE_NAME;
 
+import android.content.Context;
 import android.content.Intent;
 import android.content.res.Configuration;
+import android.net.Uri;
 import android.os.Bundle;
+import android.provider.Settings;
 import android.text.TextUtils;
+import android.util.ArrayMap;
 import android.util.Log;
 import android.view.Gravity;
 import android.view.Window;
@@ -32,10 +36,17 @@ import androidx.annotation.Nullable;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentActivity;
 import androidx.fragment.app.FragmentManager;
+import androidx.slice.SliceViewManager;
 
 import com.android.internal.annotations.VisibleForTesting;
 import com.android.settings.R;
+import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.core.lifecycle.HideNonSystemOverlayMixin;
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Dialog Activity to host Settings Slices.
@@ -51,6 +62,9 @@ public class SettingsPanelActivity extends FragmentActivity {
     @VisibleForTesting
     PanelFragment mPanelFragment;
 
+    // Slices pinned ahead of the panel, unpinned when the activity is destroyed.
+    private final Map<Uri, SliceViewManager.SliceCallback> mPrewarmedSlices = new ArrayMap<>();
+
     /**
      * Key specifying which Panel the app is requesting.
      */
@@ -95,6 +109,22 @@ public class SettingsPanelActivity extends FragmentActivity {
         }
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        final SliceViewManager manager = SliceViewManager.getInstance(this);
+        for (Map.Entry<Uri, SliceViewManager.SliceCallback> entry : mPrewarmedSlices.entrySet()) {
+            ThreadUtils.postOnBackgroundThread(() -> {
+                try {
+                    manager.unregisterSliceCallback(entry.getKey(), entry.getValue());
+                } catch (SecurityException | IllegalArgumentException e) {
+                    Log.w(TAG, "Failed to unpin slice " + entry.getKey(), e);
+                }
+            });
+        }
+        mPrewarmedSlices.clear();
+    }
+
     @Override
     public void onConfigurationChanged(@NonNull Configuration newConfig) {
         super.onConfigurationChanged(newConfig);
@@ -115,6 +145,7 @@ public class SettingsPanelActivity extends FragmentActivity {
         mBundle.putString(KEY_PANEL_TYPE_ARGUMENT, action);
         mBundle.putString(KEY_CALLING_PACKAGE_NAME, getCallingPackage());
         mBundle.putString(KEY_MEDIA_PACKAGE_NAME, mediaPackageName);
+        prewarmSlices(mBundle);
 
         final FragmentManager fragmentManager = getSupportFragmentManager();
         final Fragment fragment = fragmentManager.findFragmentById(R.id.main_content);
@@ -149,4 +180,56 @@ public class SettingsPanelActivity extends FragmentActivity {
             fragmentManager.beginTransaction().add(R.id.main_content, mPanelFragment).commit();
         }
     }
+
+    /**
+     * Pins and binds the slices of the panel for {@param arguments} in the background, so that
+     * their background workers start and their content is cached while the panel is being
+     * inflated.
+     */
+    private void prewarmSlices(Bundle arguments) {
+        final List<Uri> uris = getPrewarmSliceUris(arguments);
+        if (uris.isEmpty()) {
+            return;
+        }
+        final Context context = getApplicationContext();
+        final SliceViewManager manager = SliceViewManager.getInstance(this);
+        for (Uri uri : uris) {
+            if (mPrewarmedSlices.containsKey(uri)) {
+                continue;
+            }
+            final SliceViewManager.SliceCallback callback =
+                    slice -> PanelSliceCache.update(context, uri, slice);
+            mPrewarmedSlices.put(uri, callback);
+            ThreadUtils.postOnBackgroundThread(() -> {
+                try {
+                    manager.registerSliceCallback(uri, callback);
+                    PanelSliceCache.update(context, uri, manager.bindSlice(uri));
+                } catch (SecurityException | IllegalArgumentException e) {
+                    Log.w(TAG, "Failed to prewarm slice " + uri, e);
+                }
+            });
+        }
+    }
+
+    @VisibleForTesting
+    List<Uri> getPrewarmSliceUris(Bundle arguments) {
+        final String action = arguments.getString(KEY_PANEL_TYPE_ARGUMENT);
+        // The internet panel is a SystemUI dialog, getting it here would show it twice.
+        if (action == null
+                || TextUtils.equals(action, Settings.Panel.ACTION_INTERNET_CONNECTIVITY)) {
+            return Collections.emptyList();
+        }
+        final PanelContent panel;
+        try {
+            panel = FeatureFactory.getFactory(this).getPanelFeatureProvider()
+                    .getPanel(this, arguments);
+        } catch (IllegalStateException e) {
+            // Unknown panel, reported by the panel fragment.
+            return Collections.emptyList();
+        }
+        if (panel == null || panel.getSlices() == null) {
+            return Collections.emptyList();
+        }
+        return panel.getSlices();
+    }
 }
@@ -25,9 +25,11 @@ import android.content.Context;
 import android.content.Intent;
 import android.content.IntentFilter;
 import android.content.pm.PackageManager;
+import android.database.ContentObserver;
 import android.net.Uri;
 import android.os.Binder;
 import android.os.StrictMode;
+import android.os.SystemClock;
 import android.provider.Settings;
 import android.provider.SettingsSlicesContract;
 import android.text.TextUtils;
@@ -53,14 +55,18 @@ import com.android.settings.overlay.FeatureFactory;
 import com.android.settingslib.SliceBroadcastRelay;
 import com.android.settingslib.utils.ThreadUtils;
 
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
 /**
@@ -135,19 +141,32 @@ public class SettingsSliceProvider extends SliceProvider {
 
     private static final KeyValueListParser KEY_VALUE_LIST_PARSER = new KeyValueListParser(',');
 
+    // Upper bound of uris tracked in bind stats, callers can bind arbitrary uris.
+    private static final int MAX_BIND_STATS = 64;
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+
     @VisibleForTesting
     SlicesDatabaseAccessor mSlicesDatabaseAccessor;
 
     @VisibleForTesting
     Map<Uri, SliceData> mSliceWeakDataCache;
 
+    // Updated on the main thread, read from binder threads in onBindSlice.
+    @VisibleForTesting
+    final Map<Uri, SliceBackgroundWorker> mPinnedWorkers = new ConcurrentHashMap<>();
+
+    // Bind latency per slice uri, reported in dumpsys.
     @VisibleForTesting
-    final Map<Uri, SliceBackgroundWorker> mPinnedWorkers = new ArrayMap<>();
+    final ArrayMap<Uri, BindStats> mBindStats = new ArrayMap<>();
 
     private Boolean mNightMode;
     private boolean mFirstSlicePinned;
     private boolean mFirstSliceBound;
 
+    // Immutable snapshot of Settings.Global.BLOCKED_SLICES, refreshed by mBlockedSlicesObserver.
+    private volatile Set<String> mBlockedKeys;
+    private ContentObserver mBlockedSlicesObserver;
+
     public SettingsSliceProvider() {
         super(READ_SEARCH_INDEXABLES);
         Log.d(TAG, "init");
@@ -205,6 +224,7 @@ public class SettingsSliceProvider extends SliceProvider {
         if (!mFirstSliceBound) {
             Log.d(TAG, "onBindSlice start: " + sliceUri);
         }
+        final long startTime = SystemClock.elapsedRealtimeNanos();
         final StrictMode.ThreadPolicy oldPolicy = StrictMode.getThreadPolicy();
         try {
             if (!ThreadUtils.isMainThread()) {
@@ -219,6 +239,11 @@ public class SettingsSliceProvider extends SliceProvider {
                 return null;
             }
 
+            final SliceBackgroundWorker worker = mPinnedWorkers.get(sliceUri);
+            if (worker != null) {
+                worker.bind();
+            }
+
             final boolean nightMode = Utils.isNightMode(getContext());
             if (mNightMode == null) {
                 mNightMode = nightMode;
@@ -272,6 +297,7 @@ public class SettingsSliceProvider extends SliceProvider {
             return SliceBuilderUtils.buildSlice(getContext(), cachedSliceData);
         } finally {
             StrictMode.setThreadPolicy(oldPolicy);
+            recordBindLatency(sliceUri, SystemClock.elapsedRealtimeNanos() - startTime);
             if (!mFirstSliceBound) {
                 Log.v(TAG, "onBindSlice end");
                 mFirstSliceBound = true;
@@ -385,11 +411,33 @@ public class SettingsSliceProvider extends SliceProvider {
         }
     }
 
+    @Override
+    public void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        writer.println("SettingsSliceProvider bind latency (count, avg ms, max ms):");
+        synchronized (mBindStats) {
+            for (int i = 0; i < mBindStats.size(); i++) {
+                final BindStats stats = mBindStats.valueAt(i);
+                writer.println(String.format(Locale.US, "  %s: %d, %.2f, %.2f",
+                        mBindStats.keyAt(i), stats.mCount,
+                        stats.mTotalNanos / (stats.mCount * NANOS_PER_MILLI),
+                        stats.mMaxNanos / NANOS_PER_MILLI));
+            }
+        }
+    }
+
     @Override
     public void shutdown() {
         ThreadUtils.postOnMainThread(() -> {
             SliceBackgroundWorker.shutdown();
         });
+        synchronized (this) {
+            if (mBlockedSlicesObserver != null) {
+                getContext().getContentResolver().unregisterContentObserver(
+                        mBlockedSlicesObserver);
+                mBlockedSlicesObserver = null;
+            }
+            mBlockedKeys = null;
+        }
     }
 
     @VisibleForTesting
@@ -442,8 +490,37 @@ public class SettingsSliceProvider extends SliceProvider {
                 intentFilter);
     }
 
+    /**
+     * @return the keys of blocked slices. The set is parsed once and then kept up to date by an
+     * observer on {@link Settings.Global#BLOCKED_SLICES}, so binding does not hit the settings
+     * provider.
+     */
     @VisibleForTesting
     Set<String> getBlockedKeys() {
+        final Set<String> blockedKeys = mBlockedKeys;
+        if (blockedKeys != null) {
+            return blockedKeys;
+        }
+        synchronized (this) {
+            if (mBlockedSlicesObserver == null) {
+                mBlockedSlicesObserver = new ContentObserver(null /* handler */) {
+                    @Override
+                    public void onChange(boolean selfChange) {
+                        reloadBlockedKeys();
+                    }
+                };
+                getContext().getContentResolver().registerContentObserver(
+                        Settings.Global.getUriFor(Settings.Global.BLOCKED_SLICES),
+                        false /* notifyForDescendants */, mBlockedSlicesObserver);
+            }
+            if (mBlockedKeys == null) {
+                reloadBlockedKeys();
+            }
+            return mBlockedKeys;
+        }
+    }
+
+    private synchronized void reloadBlockedKeys() {
         final String value = Settings.Global.getString(getContext().getContentResolver(),
                 Settings.Global.BLOCKED_SLICES);
         final Set<String> set = new ArraySet<>();
@@ -452,12 +529,29 @@ public class SettingsSliceProvider extends SliceProvider {
             KEY_VALUE_LIST_PARSER.setString(value);
         } catch (IllegalArgumentException e) {
             Log.e(TAG, "Bad Settings Slices Allowlist flags", e);
-            return set;
+            mBlockedKeys = Collections.emptySet();
+            return;
         }
 
         final String[] parsedValues = parseStringArray(value);
         Collections.addAll(set, parsedValues);
-        return set;
+        mBlockedKeys = Collections.unmodifiableSet(set);
+    }
+
+    private void recordBindLatency(Uri uri, long latencyNanos) {
+        synchronized (mBindStats) {
+            BindStats stats = mBindStats.get(uri);
+            if (stats == null) {
+                if (mBindStats.size() >= MAX_BIND_STATS) {
+                    return;
+                }
+                stats = new BindStats();
+                mBindStats.put(uri, stats);
+            }
+            stats.mCount++;
+            stats.mTotalNanos += latencyNanos;
+            stats.mMaxNanos = Math.max(stats.mMaxNanos, latencyNanos);
+        }
     }
 
     @VisibleForTesting
@@ -513,6 +607,13 @@ public class SettingsSliceProvider extends SliceProvider {
         return new Slice.Builder(uri).build();
     }
 
+    @VisibleForTesting
+    static class BindStats {
+        int mCount;
+        long mTotalNanos;
+        long mMaxNanos;
+    }
+
     private static String[] parseStringArray(String value) {
         if (value != null) {
             String[] parts = value.split(":");
@@ -54,7 +54,10 @@ public abstract class SliceBackgroundWorker<E> implements Closeable {
 
     private static final String TAG = "SliceBackgroundWorker";
 
-    private static final long SLICE_UPDATE_THROTTLE_INTERVAL = 300L;
+    /**
+     * Default minimum interval between two slice change notifications of the same worker.
+     */
+    protected static final long SLICE_UPDATE_THROTTLE_INTERVAL = 300L;
 
     private static final Map<Uri, SliceBackgroundWorker> LIVE_WORKERS = new ArrayMap<>();
 
@@ -138,6 +141,25 @@ public abstract class SliceBackgroundWorker<E> implements Closeable {
     @MainThread
     protected abstract void onSliceUnpinned();
 
+    /**
+     * Called when the pinned Slice has been bound by its host. May be called from a binder thread.
+     */
+    protected void onSliceBound() {
+    }
+
+    /**
+     * Called on the notifier thread right before the Slice host is asked to re-bind the Slice.
+     */
+    protected void onSliceChangeNotified() {
+    }
+
+    /**
+     * @return the minimum interval in milliseconds between two slice change notifications
+     */
+    protected long getUpdateThrottleInterval() {
+        return SLICE_UPDATE_THROTTLE_INTERVAL;
+    }
+
     /**
      * @return a {@link List} of cached results
      */
@@ -180,6 +202,10 @@ public abstract class SliceBackgroundWorker<E> implements Closeable {
         onSlicePinned();
     }
 
+    void bind() {
+        onSliceBound();
+    }
+
     void unpin() {
         onSliceUnpinned();
         NotifySliceChangeHandler.getInstance().cancelSliceUpdate(this);
@@ -218,6 +244,7 @@ public abstract class SliceBackgroundWorker<E> implements Closeable {
             final Uri uri = worker.getUri();
             final Context context = worker.getContext();
             mLastUpdateTimeLookup.put(uri, SystemClock.uptimeMillis());
+            worker.onSliceChangeNotified();
             context.getContentResolver().notifyChange(uri, null);
         }
 
@@ -227,16 +254,16 @@ public abstract class SliceBackgroundWorker<E> implements Closeable {
             }
 
             final Message message = obtainMessage(MSG_UPDATE_SLICE, worker);
+            final long throttleInterval = worker.getUpdateThrottleInterval();
             final long lastUpdateTime = mLastUpdateTimeLookup.getOrDefault(worker.getUri(), 0L);
             if (lastUpdateTime == 0L) {
                 // Postpone the first update triggering by onSlicePinned() to avoid being too close
                 // to the first Slice bind.
-                sendMessageDelayed(message, SLICE_UPDATE_THROTTLE_INTERVAL);
-            } else if (SystemClock.uptimeMillis() - lastUpdateTime
-                    > SLICE_UPDATE_THROTTLE_INTERVAL) {
+                sendMessageDelayed(message, throttleInterval);
+            } else if (SystemClock.uptimeMillis() - lastUpdateTime > throttleInterval) {
                 sendMessage(message);
             } else {
-                sendMessageAtTime(message, lastUpdateTime + SLICE_UPDATE_THROTTLE_INTERVAL);
+                sendMessageAtTime(message, lastUpdateTime + throttleInterval);
             }
         }
 
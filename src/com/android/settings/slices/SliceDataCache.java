@@ -0,0 +1,70 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.slices;
+
+import android.net.Uri;
+import android.util.LruCache;
+
+/**
+ * Bounded cache of {@link SliceData} read from the slices index, by key and by {@link Uri}.
+ *
+ * <p>Entries read before the last {@link #invalidate()} are never stored, so a lookup racing with
+ * a rebuild of the index cannot put stale data back into the cache.
+ */
+class SliceDataCache {
+
+    private static final int MAX_ENTRIES = 32;
+
+    // Rows of the index as returned for a key, without a uri.
+    private final LruCache<String, SliceData> mKeyCache = new LruCache<>(MAX_ENTRIES);
+    // Slice data bound to the uri it was requested with.
+    private final LruCache<Uri, SliceData> mUriCache = new LruCache<>(MAX_ENTRIES);
+
+    private int mGeneration;
+
+    /** Returns the generation to pass back to the put methods after reading the index. */
+    synchronized int getGeneration() {
+        return mGeneration;
+    }
+
+    SliceData getByKey(String key) {
+        return mKeyCache.get(key);
+    }
+
+    SliceData getByUri(Uri uri) {
+        return mUriCache.get(uri);
+    }
+
+    synchronized void putByKey(int generation, String key, SliceData data) {
+        if (generation == mGeneration) {
+            mKeyCache.put(key, data);
+        }
+    }
+
+    synchronized void putByUri(int generation, Uri uri, SliceData data) {
+        if (generation == mGeneration) {
+            mUriCache.put(uri, data);
+        }
+    }
+
+    /** Drops every entry. Called whenever the index is rebuilt. */
+    synchronized void invalidate() {
+        mGeneration++;
+        mKeyCache.evictAll();
+        mUriCache.evictAll();
+    }
+}
@@ -53,6 +53,8 @@ public class SlicesDatabaseAccessor {
             IndexColumns.HIGHLIGHT_MENU_RESOURCE,
     };
 
+    private static final String KEY_MATCH_WHERE_CLAUSE = IndexColumns.KEY + " = ?";
+
     private final Context mContext;
     private final SlicesDatabaseHelper mHelper;
 
@@ -72,9 +74,17 @@ public class SlicesDatabaseAccessor {
         if (pathData == null) {
             throw new IllegalStateException("Invalid Slices uri: " + uri);
         }
-        try (Cursor cursor = getIndexedSliceData(pathData.second /* key */)) {
-            return buildSliceData(cursor, uri, pathData.first /* isIntentOnly */);
+        verifyIndexing();
+        final SliceDataCache cache = mHelper.getSliceDataCache();
+        final SliceData cached = cache.getByUri(uri);
+        if (cached != null) {
+            return cached;
         }
+        final int generation = cache.getGeneration();
+        final SliceData sliceData = buildSliceData(getSliceDataRow(pathData.second /* key */),
+                uri, pathData.first /* isIntentOnly */);
+        cache.putByUri(generation, uri, sliceData);
+        return sliceData;
     }
 
     /**
@@ -83,9 +93,8 @@ public class SlicesDatabaseAccessor {
      * Used when handling the action of the {@link Slice}.
      */
     public SliceData getSliceDataFromKey(String key) {
-        try (Cursor cursor = getIndexedSliceData(key)) {
-            return buildSliceData(cursor, null /* uri */, false /* isIntentOnly */);
-        }
+        verifyIndexing();
+        return getSliceDataRow(key);
     }
 
     /**
@@ -116,14 +125,29 @@ public class SlicesDatabaseAccessor {
         return uris;
     }
 
-    private Cursor getIndexedSliceData(String path) {
-        verifyIndexing();
+    /**
+     * @return the {@link SliceData} of the row matching {@param key}, without a {@link Uri}.
+     */
+    private SliceData getSliceDataRow(String key) {
+        final SliceDataCache cache = mHelper.getSliceDataCache();
+        SliceData sliceData = cache.getByKey(key);
+        if (sliceData != null) {
+            return sliceData;
+        }
+        final int generation = cache.getGeneration();
+        try (Cursor cursor = getIndexedSliceData(key)) {
+            sliceData = buildSliceData(cursor, null /* uri */, false /* isIntentOnly */);
+        }
+        cache.putByKey(generation, key, sliceData);
+        return sliceData;
+    }
 
-        final String whereClause = buildKeyMatchWhereClause();
+    private Cursor getIndexedSliceData(String path) {
         final SQLiteDatabase database = mHelper.getReadableDatabase();
         final String[] selection = new String[]{path};
         final Cursor resultCursor = database.query(TABLE_SLICES_INDEX, SELECT_COLUMNS_ALL,
-                whereClause, selection, null /* groupBy */, null /* having */, null /* orderBy */);
+                KEY_MATCH_WHERE_CLAUSE, selection, null /* groupBy */, null /* having */,
+                null /* orderBy */);
 
         int numResults = resultCursor.getCount();
 
@@ -142,10 +166,24 @@ public class SlicesDatabaseAccessor {
         return resultCursor;
     }
 
-    private String buildKeyMatchWhereClause() {
-        return new StringBuilder(IndexColumns.KEY)
-                .append(" = ?")
-                .toString();
+    /**
+     * Copies a row read by {@link #getSliceDataRow(String)} and binds it to {@param uri}.
+     */
+    private static SliceData buildSliceData(SliceData row, Uri uri, boolean isIntentOnly) {
+        return new SliceData.Builder()
+                .setKey(row.getKey())
+                .setTitle(row.getTitle())
+                .setSummary(row.getSummary())
+                .setScreenTitle(row.getScreenTitle())
+                .setKeywords(row.getKeywords())
+                .setIcon(row.getIconResource())
+                .setFragmentName(row.getFragmentClassName())
+                .setPreferenceControllerClassName(row.getPreferenceController())
+                .setUri(uri)
+                .setSliceType(isIntentOnly ? SliceData.SliceType.INTENT : row.getSliceType())
+                .setUnavailableSliceSubtitle(row.getUnavailableSliceSubtitle())
+                .setHighlightMenuRes(row.getHighlightMenuRes())
+                .build();
     }
 
     private static SliceData buildSliceData(Cursor cursor, Uri uri, boolean isIntentOnly) {
@@ -142,6 +142,7 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
                     + ");";
 
     private final Context mContext;
+    private final SliceDataCache mSliceDataCache = new SliceDataCache();
 
     private static SlicesDatabaseHelper sSingleton;
 
@@ -182,6 +183,7 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
                 .apply();
         dropTables(db);
         createDatabases(db);
+        mSliceDataCache.invalidate();
     }
 
     /**
@@ -202,6 +204,14 @@ public class SlicesDatabaseHelper extends SQLiteOpenHelper {
         return isBuildIndexed() && isLocaleIndexed();
     }
 
+    /**
+     * @return the cache of {@link SliceData} read from the index, invalidated on every
+     * {@link #reconstruct(SQLiteDatabase)}.
+     */
+    SliceDataCache getSliceDataCache() {
+        return mSliceDataCache;
+    }
+
     private void createDatabases(SQLiteDatabase db) {
         db.execSQL(CREATE_SLICES_TABLE);
         Log.d(TAG, "Created databases");
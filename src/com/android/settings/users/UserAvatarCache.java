@@ -0,0 +1,250 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.users;
+
+import android.accounts.AccountManager;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.os.UserHandle;
+import android.os.UserManager;
+import android.util.LruCache;
+import android.util.SparseArray;
+
+import androidx.annotation.VisibleForTesting;
+
+import com.android.internal.util.UserIcons;
+import com.android.settings.R;
+import com.android.settingslib.utils.ThreadUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Process wide cache of user photos and of the account avatar shown on the homepage.
+ *
+ * <p>Bitmaps are down-sampled to the size they are displayed at before being cached, and the
+ * cache is bounded by the number of bytes it holds. The photo of a user is dropped when
+ * {@link Intent#ACTION_USER_INFO_CHANGED} is received for that user, and the account avatar when
+ * the accounts change.
+ */
+public class UserAvatarCache {
+
+    private static final int MAX_BYTES = 8 * 1024 * 1024;
+    private static final String KEY_USER_PREFIX = "user/";
+    private static final String KEY_ACCOUNT = "account";
+
+    private static UserAvatarCache sInstance;
+
+    private final LruCache<String, Bitmap> mBitmaps = new LruCache<String, Bitmap>(MAX_BYTES) {
+        @Override
+        protected int sizeOf(String key, Bitmap bitmap) {
+            return bitmap.getAllocationByteCount();
+        }
+    };
+    // Default icons are small and shared by every user without a photo.
+    private final SparseArray<Bitmap> mDefaultIcons = new SparseArray<>();
+
+    private final BroadcastReceiver mReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            if (AccountManager.LOGIN_ACCOUNTS_CHANGED_ACTION.equals(intent.getAction())) {
+                removeAccountAvatar();
+                return;
+            }
+            final int userId = intent.getIntExtra(Intent.EXTRA_USER_HANDLE, UserHandle.USER_NULL);
+            if (userId != UserHandle.USER_NULL) {
+                remove(userId);
+            }
+        }
+    };
+
+    private boolean mInitialized;
+    private int mUserIconSize;
+    private int mAccountAvatarSize;
+    private String mAccountName;
+    // Incremented whenever an entry is dropped, so loads started before are not cached.
+    private int mGeneration;
+
+    @VisibleForTesting
+    UserAvatarCache() {
+    }
+
+    /** Returns the cache shared by the whole process. */
+    public static synchronized UserAvatarCache getInstance() {
+        if (sInstance == null) {
+            sInstance = new UserAvatarCache();
+        }
+        return sInstance;
+    }
+
+    /**
+     * Reads the display sizes of the avatars and starts listening for user and account changes.
+     * Must be called on the main thread before the cache is used, repeated calls are ignored.
+     */
+    public void init(Context context) {
+        if (mInitialized) {
+            return;
+        }
+        mInitialized = true;
+        final Context appContext = context.getApplicationContext();
+        final Resources res = appContext.getResources();
+        // Size CircleFramedDrawable draws user photos at.
+        mUserIconSize = res.getDimensionPixelSize(com.android.internal.R.dimen.user_icon_size);
+        mAccountAvatarSize = res.getDimensionPixelSize(R.dimen.avatar_length);
+
+        final IntentFilter filter = new IntentFilter(Intent.ACTION_USER_INFO_CHANGED);
+        filter.addAction(Intent.ACTION_USER_REMOVED);
+        filter.addAction(AccountManager.LOGIN_ACCOUNTS_CHANGED_ACTION);
+        appContext.registerReceiver(mReceiver, filter);
+    }
+
+    /** Returns the cached photo of {@code userId}, or null if it is not loaded. */
+    public Bitmap get(int userId) {
+        return mBitmaps.get(KEY_USER_PREFIX + userId);
+    }
+
+    /**
+     * Caches the photo of {@code userId}, down-sampled to the display size.
+     *
+     * @return the bitmap that was cached
+     */
+    public Bitmap put(int userId, Bitmap photo) {
+        return put(getGeneration(), KEY_USER_PREFIX + userId, photo, mUserIconSize);
+    }
+
+    /** Drops the photo of {@code userId}. */
+    public synchronized void remove(int userId) {
+        mGeneration++;
+        mBitmaps.remove(KEY_USER_PREFIX + userId);
+        if (userId == UserHandle.myUserId()) {
+            // The account avatar may be derived from the profile of the current user.
+            mBitmaps.remove(KEY_ACCOUNT);
+        }
+    }
+
+    /**
+     * Loads the photos of {@code userIds} on a background thread, falling back to the default
+     * icon of users without one, and runs {@code onLoaded} on the main thread once they are
+     * cached.
+     */
+    public void loadUserIcons(Context context, UserManager userManager, List<Integer> userIds,
+            Runnable onLoaded) {
+        final Resources res = context.getResources();
+        final List<Integer> ids = new ArrayList<>(userIds);
+        final int generation = getGeneration();
+        ThreadUtils.postOnBackgroundThread(() -> {
+            for (int userId : ids) {
+                Bitmap bitmap = userManager.getUserIcon(userId);
+                if (bitmap == null) {
+                    bitmap = getDefaultUserIcon(res, userId);
+                }
+                put(generation, KEY_USER_PREFIX + userId, bitmap, mUserIconSize);
+            }
+            ThreadUtils.postOnMainThread(onLoaded);
+        });
+    }
+
+    /**
+     * Returns the default icon of {@code userId}, or of any user if {@code userId} is
+     * {@link UserHandle#USER_NULL}. The bitmap is not down-sampled, as it may be assigned to the
+     * user as its photo.
+     */
+    public Bitmap getDefaultUserIcon(Resources resources, int userId) {
+        synchronized (mDefaultIcons) {
+            Bitmap bitmap = mDefaultIcons.get(userId);
+            if (bitmap == null) {
+                bitmap = UserIcons.convertToBitmap(
+                        UserIcons.getDefaultUserIcon(resources, userId, false));
+                mDefaultIcons.put(userId, bitmap);
+            }
+            return bitmap;
+        }
+    }
+
+    /** Returns the cached account avatar, or null if it is not loaded. */
+    public Bitmap getAccountAvatar() {
+        return mBitmaps.get(KEY_ACCOUNT);
+    }
+
+    /** Returns the name of the account whose avatar is cached. */
+    public synchronized String getAccountName() {
+        return mAccountName;
+    }
+
+    /**
+     * Caches the avatar of {@code accountName}, down-sampled to the display size, unless an entry
+     * was dropped since {@code generation} was read.
+     *
+     * @return the bitmap that was cached
+     */
+    public synchronized Bitmap putAccountAvatar(int generation, String accountName,
+            Bitmap avatar) {
+        final Bitmap bitmap = put(generation, KEY_ACCOUNT, avatar, mAccountAvatarSize);
+        if (generation == mGeneration) {
+            mAccountName = accountName;
+        }
+        return bitmap;
+    }
+
+    /** Drops the account avatar. */
+    public synchronized void removeAccountAvatar() {
+        mGeneration++;
+        mBitmaps.remove(KEY_ACCOUNT);
+        mAccountName = null;
+    }
+
+    /** Returns the generation to pass back to {@link #putAccountAvatar} after loading it. */
+    public synchronized int getGeneration() {
+        return mGeneration;
+    }
+
+    @VisibleForTesting
+    public synchronized void clear() {
+        mGeneration++;
+        mBitmaps.evictAll();
+        mAccountName = null;
+    }
+
+    private Bitmap put(int generation, String key, Bitmap bitmap, int size) {
+        if (bitmap == null) {
+            return null;
+        }
+        final Bitmap scaled = scaleDown(bitmap, size);
+        synchronized (this) {
+            if (generation == mGeneration) {
+                mBitmaps.put(key, scaled);
+            }
+        }
+        return scaled;
+    }
+
+    /** Scales {@code bitmap} so that its shorter side is no longer than {@code size}. */
+    @VisibleForTesting
+    static Bitmap scaleDown(Bitmap bitmap, int size) {
+        final int shortSide = Math.min(bitmap.getWidth(), bitmap.getHeight());
+        if (size <= 0 || shortSide <= size) {
+            return bitmap;
+        }
+        final float scale = (float) size / shortSide;
+        return Bitmap.createScaledBitmap(bitmap, Math.round(bitmap.getWidth() * scale),
+                Math.round(bitmap.getHeight() * scale), true /* filter */);
+    }
+}
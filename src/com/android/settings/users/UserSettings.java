@@ -45,7 +45,6 @@ import android.os.UserManager;
 import android.provider.ContactsContract;
 import android.text.TextUtils;
 import android.util.Log;
-import android.util.SparseArray;
 import android.view.Menu;
 import android.view.MenuInflater;
 import android.view.MenuItem;
@@ -164,7 +163,7 @@ public class UserSettings extends SettingsPreferenceFragment
     @VisibleForTesting
     RestrictedPreference mAddUser;
     @VisibleForTesting
-    SparseArray<Bitmap> mUserIcons = new SparseArray<>();
+    UserAvatarCache mUserIcons = UserAvatarCache.getInstance();
     private int mRemovingUserId = -1;
     private boolean mAddingUser;
     private boolean mGuestUserAutoCreated;
@@ -173,7 +172,6 @@ public class UserSettings extends SettingsPreferenceFragment
     private boolean mShouldUpdateUserList = true;
     private final Object mUserLock = new Object();
     private UserManager mUserManager;
-    private static SparseArray<Bitmap> sDarkDefaultUserBitmapCache = new SparseArray<>();
 
     private MultiUserSwitchBarController mSwitchBarController;
     private EditUserInfoController mEditUserInfoController =
@@ -275,6 +273,7 @@ public class UserSettings extends SettingsPreferenceFragment
 
         mUserCaps = UserCapabilities.create(activity);
         mUserManager = (UserManager) activity.getSystemService(Context.USER_SERVICE);
+        mUserIcons.init(activity);
         if (!mUserCaps.mEnabled) {
             return;
         }
@@ -438,8 +437,7 @@ public class UserSettings extends SettingsPreferenceFragment
         int myUserId = UserHandle.myUserId();
         Bitmap b = mUserManager.getUserIcon(myUserId);
         if (b != null) {
-            mMePreference.setIcon(encircle(b));
-            mUserIcons.put(myUserId, b);
+            mMePreference.setIcon(encircle(mUserIcons.put(myUserId, b)));
         }
     }
 
@@ -1117,24 +1115,11 @@ public class UserSettings extends SettingsPreferenceFragment
     }
 
     private void loadIconsAsync(List<Integer> missingIcons) {
-        new AsyncTask<List<Integer>, Void, Void>() {
-            @Override
-            protected void onPostExecute(Void result) {
+        mUserIcons.loadUserIcons(getContext(), mUserManager, missingIcons, () -> {
+            if (getActivity() != null) {
                 updateUserList();
             }
-
-            @Override
-            protected Void doInBackground(List<Integer>... values) {
-                for (int userId : values[0]) {
-                    Bitmap bitmap = mUserManager.getUserIcon(userId);
-                    if (bitmap == null) {
-                        bitmap = getDefaultUserIconAsBitmap(getContext().getResources(), userId);
-                    }
-                    mUserIcons.append(userId, bitmap);
-                }
-                return null;
-            }
-        }.execute(missingIcons);
+        });
     }
 
     private Drawable getEncircledDefaultIcon() {
@@ -1230,16 +1215,7 @@ public class UserSettings extends SettingsPreferenceFragment
      * @param userId    the user id or {@code UserHandle.USER_NULL} for a non-user specific icon
      */
     private static Bitmap getDefaultUserIconAsBitmap(Resources resources, int userId) {
-        Bitmap bitmap = null;
-        // Try finding the corresponding bitmap in the dark bitmap cache
-        bitmap = sDarkDefaultUserBitmapCache.get(userId);
-        if (bitmap == null) {
-            bitmap = UserIcons.convertToBitmap(
-                    UserIcons.getDefaultUserIcon(resources, userId, false));
-            // Save it to cache
-            sDarkDefaultUserBitmapCache.put(userId, bitmap);
-        }
-        return bitmap;
+        return UserAvatarCache.getInstance().getDefaultUserIcon(resources, userId);
     }
 
     /**
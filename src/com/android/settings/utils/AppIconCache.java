@@ -0,0 +1,203 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.utils;
+
+import android.app.ActivityManager;
+import android.content.BroadcastReceiver;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.Drawable;
+import android.net.Uri;
+import android.util.LruCache;
+
+import androidx.annotation.IntDef;
+import androidx.annotation.VisibleForTesting;
+
+import com.android.settings.Utils;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.util.function.Supplier;
+
+/**
+ * Process wide cache of app icons, keyed by package, user, density and icon variant.
+ *
+ * <p>Icons are rasterized once, down-sampled to the launcher icon size, and kept in an LRU cache
+ * bounded by the number of bytes it holds. Entries of a package are dropped when the package
+ * changes, and the cache shrinks when the system asks the process to trim its memory.
+ */
+public class AppIconCache implements ComponentCallbacks2 {
+
+    private static final int MAX_BYTES = 4 * 1024 * 1024;
+
+    @Retention(RetentionPolicy.SOURCE)
+    @IntDef({Variant.BADGED, Variant.FACTORY_BADGED})
+    public @interface Variant {
+        /** Icon badged by {@link com.android.settingslib.Utils#getBadgedIcon}. */
+        int BADGED = 0;
+        /** Icon badged by {@link android.util.IconDrawableFactory}. */
+        int FACTORY_BADGED = 1;
+    }
+
+    private static AppIconCache sInstance;
+
+    private final LruCache<String, Bitmap> mIcons = new LruCache<String, Bitmap>(MAX_BYTES) {
+        @Override
+        protected int sizeOf(String key, Bitmap bitmap) {
+            return bitmap.getAllocationByteCount();
+        }
+    };
+
+    private final BroadcastReceiver mPackageReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            final Uri data = intent.getData();
+            if (data != null) {
+                removePackage(data.getSchemeSpecificPart());
+            }
+        }
+    };
+
+    private final int mMaxIconSize;
+
+    @VisibleForTesting
+    AppIconCache(int maxIconSize) {
+        mMaxIconSize = maxIconSize;
+    }
+
+    /** Returns the cache shared by the whole process. */
+    public static synchronized AppIconCache getInstance(Context context) {
+        if (sInstance == null) {
+            final Context appContext = context.getApplicationContext();
+            sInstance = new AppIconCache(
+                    appContext.getSystemService(ActivityManager.class).getLauncherLargeIconSize());
+
+            final IntentFilter filter = new IntentFilter(Intent.ACTION_PACKAGE_ADDED);
+            filter.addAction(Intent.ACTION_PACKAGE_CHANGED);
+            filter.addAction(Intent.ACTION_PACKAGE_REMOVED);
+            filter.addAction(Intent.ACTION_PACKAGE_REPLACED);
+            filter.addDataScheme("package");
+            // Icons are cached for every user, so are the package changes of every user.
+            appContext.registerReceiverForAllUsers(sInstance.mPackageReceiver, filter,
+                    /* broadcastPermission */ null, /* scheduler */ null);
+            appContext.registerComponentCallbacks(sInstance);
+        }
+        return sInstance;
+    }
+
+    /**
+     * Returns the {@code variant} icon of {@code packageName} for {@code userId}, calling
+     * {@code loader} to load it if it is not cached. Icons without an intrinsic size are returned
+     * as loaded, without being cached.
+     */
+    public Drawable getIcon(Context context, String packageName, int userId,
+            @Variant int variant, Supplier<Drawable> loader) {
+        final String key = getKey(context, packageName, userId, variant);
+        Bitmap bitmap = mIcons.get(key);
+        if (bitmap == null) {
+            final Drawable icon = loader.get();
+            bitmap = toBitmap(icon);
+            if (bitmap == null) {
+                return icon;
+            }
+            mIcons.put(key, bitmap);
+        }
+        return new BitmapDrawable(context.getResources(), bitmap);
+    }
+
+    /** Drops the icons of {@code packageName}, for every user. */
+    public void removePackage(String packageName) {
+        final String suffix = "/" + packageName;
+        for (String key : mIcons.snapshot().keySet()) {
+            if (key.endsWith(suffix)) {
+                mIcons.remove(key);
+            }
+        }
+    }
+
+    /** Returns the statistics of the cache, for dumpsys. */
+    public JSONObject dump() throws JSONException {
+        final JSONObject obj = new JSONObject();
+        final int hits = mIcons.hitCount();
+        final int misses = mIcons.missCount();
+        obj.put("entries", mIcons.snapshot().size());
+        obj.put("bytes", mIcons.size());
+        obj.put("max_bytes", mIcons.maxSize());
+        obj.put("hits", hits);
+        obj.put("misses", misses);
+        obj.put("hit_rate", hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+        return obj;
+    }
+
+    @VisibleForTesting
+    public void clear() {
+        mIcons.evictAll();
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_BACKGROUND) {
+            mIcons.evictAll();
+        } else if (level >= TRIM_MEMORY_RUNNING_LOW) {
+            mIcons.trimToSize(mIcons.maxSize() / 2);
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        mIcons.evictAll();
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+    private static String getKey(Context context, String packageName, int userId, int variant) {
+        // The package name goes last, see removePackage().
+        return variant + "/" + userId + "/"
+                + context.getResources().getDisplayMetrics().densityDpi + "/" + packageName;
+    }
+
+    private Bitmap toBitmap(Drawable icon) {
+        if (icon == null) {
+            return null;
+        }
+        final int width = icon.getIntrinsicWidth();
+        final int height = icon.getIntrinsicHeight();
+        if (width <= 0 || height <= 0) {
+            return null;
+        }
+        final float scale = Math.min(1f, (float) mMaxIconSize / Math.max(width, height));
+        final int scaledWidth = Math.max(1, Math.round(width * scale));
+        final int scaledHeight = Math.max(1, Math.round(height * scale));
+        if (icon instanceof BitmapDrawable) {
+            final Bitmap bitmap = ((BitmapDrawable) icon).getBitmap();
+            if (bitmap != null) {
+                return Bitmap.createScaledBitmap(bitmap, scaledWidth, scaledHeight, true);
+            }
+        }
+        return Utils.createBitmap(icon, scaledWidth, scaledHeight);
+    }
+}
@@ -143,7 +143,7 @@ public class EntityHeaderController {
      * accessibility purposes.
      */
     public EntityHeaderController setIcon(ApplicationsState.AppEntry appEntry) {
-        mIcon = Utils.getBadgedIcon(mAppContext, appEntry.info);
+        mIcon = Utils.getBadgedIconCached(mAppContext, appEntry.info);
         return this;
     }
 
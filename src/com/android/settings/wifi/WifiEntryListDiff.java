@@ -0,0 +1,124 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.wifi;
+
+import android.util.ArrayMap;
+import android.util.ArraySet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Computes the operations needed to turn one ordered list of Wi-Fi entry keys into another.
+ *
+ * <p>Keys are compared by value so that a {@code WifiEntry} which was replaced by a new object
+ * with the same key is reported as an update instead of a remove followed by an insert.
+ */
+public class WifiEntryListDiff {
+
+    private final List<String> mRemoved;
+    private final List<String> mInserted;
+    private final List<String> mMoved;
+    private final List<String> mUpdated;
+
+    private WifiEntryListDiff(List<String> removed, List<String> inserted, List<String> moved,
+            List<String> updated) {
+        mRemoved = Collections.unmodifiableList(removed);
+        mInserted = Collections.unmodifiableList(inserted);
+        mMoved = Collections.unmodifiableList(moved);
+        mUpdated = Collections.unmodifiableList(updated);
+    }
+
+    /**
+     * Calculates the difference between two key lists.
+     *
+     * @param oldKeys keys currently displayed, in display order
+     * @param newKeys keys that should be displayed, in display order
+     * @param isReplaced returns true for a key present in both lists whose backing entry object
+     *                   has changed and needs to be re-bound
+     */
+    public static WifiEntryListDiff calculate(List<String> oldKeys, List<String> newKeys,
+            Predicate<String> isReplaced) {
+        final Set<String> newKeySet = new ArraySet<>(newKeys);
+
+        final List<String> removed = new ArrayList<>();
+        for (String key : oldKeys) {
+            if (!newKeySet.contains(key)) {
+                removed.add(key);
+            }
+        }
+
+        final List<String> inserted = new ArrayList<>();
+        final List<String> moved = new ArrayList<>();
+        final List<String> updated = new ArrayList<>();
+        // Relative position among the kept keys, ignoring removals and insertions, so that a
+        // single insertion does not report every following key as moved.
+        final Map<String, Integer> oldRelative = new ArrayMap<>(oldKeys.size());
+        int relative = 0;
+        for (String key : oldKeys) {
+            if (newKeySet.contains(key)) {
+                oldRelative.put(key, relative++);
+            }
+        }
+        relative = 0;
+        for (String key : newKeys) {
+            final Integer oldRelativePosition = oldRelative.get(key);
+            if (oldRelativePosition == null) {
+                inserted.add(key);
+                continue;
+            }
+            if (oldRelativePosition != relative) {
+                moved.add(key);
+            }
+            if (isReplaced.test(key)) {
+                updated.add(key);
+            }
+            relative++;
+        }
+        return new WifiEntryListDiff(removed, inserted, moved, updated);
+    }
+
+    /** Keys that are no longer present. */
+    public List<String> getRemoved() {
+        return mRemoved;
+    }
+
+    /** Keys that were not present before, in new display order. */
+    public List<String> getInserted() {
+        return mInserted;
+    }
+
+    /** Keys present in both lists whose relative position has changed. */
+    public List<String> getMoved() {
+        return mMoved;
+    }
+
+    /** Keys present in both lists whose backing entry object has been replaced. */
+    public List<String> getUpdated() {
+        return mUpdated;
+    }
+
+    /** Returns true if the two key lists are identical and no entry was replaced. */
+    public boolean isEmpty() {
+        return mRemoved.isEmpty() && mInserted.isEmpty() && mMoved.isEmpty()
+                && mUpdated.isEmpty();
+    }
+}
@@ -40,8 +40,10 @@ import android.os.SimpleClock;
 import android.os.SystemClock;
 import android.provider.Settings;
 import android.text.TextUtils;
+import android.util.ArrayMap;
 import android.util.FeatureFlagUtils;
 import android.util.Log;
+import android.view.Choreographer;
 import android.view.ContextMenu;
 import android.view.ContextMenu.ContextMenuInfo;
 import android.view.Menu;
@@ -83,7 +85,10 @@ import com.android.wifitrackerlib.WifiPickerTracker;
 
 import java.time.Clock;
 import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -166,8 +171,19 @@ public class WifiSettings extends RestrictedSettingsFragment
         return WifiPickerTracker.isVerboseLoggingEnabled();
     }
 
+    // The update interval grows with the number of entries so that dense environments, where
+    // every scan result touches hundreds of preferences, are not re-laid out on every callback.
+    @VisibleForTesting
+    static final long MIN_UPDATE_INTERVAL_MS = 100;
+    @VisibleForTesting
+    static final long MAX_UPDATE_INTERVAL_MS = 1000;
+    private static final long UPDATE_INTERVAL_PER_ENTRY_MS = 3;
+
     private boolean mIsWifiEntryListStale = true;
-    private final Runnable mUpdateWifiEntryPreferencesRunnable = () -> {
+    private boolean mIsUpdateScheduled;
+    private long mLastUpdateTime;
+    private final Choreographer.FrameCallback mUpdateWifiEntryPreferencesCallback = f -> {
+        mIsUpdateScheduled = false;
         updateWifiEntryPreferences();
     };
     private final Runnable mHideProgressBarRunnable = () -> {
@@ -429,7 +445,8 @@ public class WifiSettings extends RestrictedSettingsFragment
 
     @Override
     public void onStop() {
-        getView().removeCallbacks(mUpdateWifiEntryPreferencesRunnable);
+        Choreographer.getInstance().removeFrameCallback(mUpdateWifiEntryPreferencesCallback);
+        mIsUpdateScheduled = false;
         getView().removeCallbacks(mHideProgressBarRunnable);
         mIsWifiEntryListStale = true;
         super.onStop();
@@ -730,30 +747,40 @@ public class WifiSettings extends RestrictedSettingsFragment
     }
 
     /**
-     * Updates WifiEntries from {@link WifiPickerTracker#getWifiEntries()}. Adds a delay to have
-     * progress bar displayed before starting to modify entries.
+     * Updates WifiEntries from {@link WifiPickerTracker#getWifiEntries()} on a later frame. Bursts
+     * of callbacks are coalesced into a single update, rate limited by
+     * {@link #getUpdateIntervalMs(int)}.
      */
     private void updateWifiEntryPreferencesDelayed() {
         // Safeguard from some delayed event handling
         if (getActivity() != null && !mIsRestricted
                 && mWifiPickerTracker.getWifiState() == WifiManager.WIFI_STATE_ENABLED) {
-            final View view = getView();
-            final Handler handler = view.getHandler();
-            if (handler != null && handler.hasCallbacks(mUpdateWifiEntryPreferencesRunnable)) {
+            if (mIsUpdateScheduled) {
                 return;
             }
+            mIsUpdateScheduled = true;
             setProgressBarVisible(true);
-            view.postDelayed(mUpdateWifiEntryPreferencesRunnable, 300);
+            final long elapsed = SystemClock.elapsedRealtime() - mLastUpdateTime;
+            final long interval =
+                    getUpdateIntervalMs(mWifiEntryPreferenceCategory.getPreferenceCount());
+            Choreographer.getInstance().postFrameCallbackDelayed(
+                    mUpdateWifiEntryPreferencesCallback, Math.max(0, interval - elapsed));
         }
     }
 
+    @VisibleForTesting
+    static long getUpdateIntervalMs(int entryCount) {
+        return Math.max(MIN_UPDATE_INTERVAL_MS,
+                Math.min(MAX_UPDATE_INTERVAL_MS, entryCount * UPDATE_INTERVAL_PER_ENTRY_MS));
+    }
+
     private void updateWifiEntryPreferences() {
         // in case state has changed
         if (mWifiPickerTracker.getWifiState() != WifiManager.WIFI_STATE_ENABLED) {
             return;
         }
+        mLastUpdateTime = SystemClock.elapsedRealtime();
 
-        boolean hasAvailableWifiEntries = false;
         mStatusMessagePreference.setVisible(false);
         mWifiEntryPreferenceCategory.setVisible(true);
 
@@ -790,57 +817,128 @@ public class WifiSettings extends RestrictedSettingsFragment
             mConnectedWifiEntryPreferenceCategory.removeAll();
         }
 
-        int index = 0;
-        cacheRemoveAllPrefs(mWifiEntryPreferenceCategory);
-        List<WifiEntry> wifiEntries = mWifiPickerTracker.getWifiEntries();
-        for (WifiEntry wifiEntry : wifiEntries) {
-            hasAvailableWifiEntries = true;
-
-            String key = wifiEntry.getKey();
-            LongPressWifiEntryPreference pref =
-                    (LongPressWifiEntryPreference) getCachedPreference(key);
-            if (pref != null) {
-                if (pref.getWifiEntry() == wifiEntry) {
-                    pref.setOrder(index++);
-                    continue;
-                } else {
-                    // Create a new preference if the underlying WifiEntry object has changed
-                    removePreference(key);
-                }
-            }
-
-            pref = createLongPressWifiEntryPreference(wifiEntry);
-            pref.setKey(wifiEntry.getKey());
-            pref.setOrder(index++);
-            pref.refresh();
-
-            if (wifiEntry.getHelpUriString() != null) {
-                pref.setOnButtonClickListener(preference -> {
-                    openSubscriptionHelpPage(wifiEntry);
-                });
-            }
-            mWifiEntryPreferenceCategory.addPreference(pref);
-        }
-        removeCachedPrefs(mWifiEntryPreferenceCategory);
+        final List<WifiEntry> wifiEntries = mWifiPickerTracker.getWifiEntries();
+        final boolean hasAvailableWifiEntries = !wifiEntries.isEmpty();
+        applyWifiEntryDiff(wifiEntries);
 
+        int index = wifiEntries.size();
+        final Preference emptyPref = mWifiEntryPreferenceCategory.findPreference(
+                PREF_KEY_EMPTY_WIFI_LIST);
         if (!hasAvailableWifiEntries) {
             setProgressBarVisible(true);
-            Preference pref = new Preference(getPrefContext());
-            pref.setSelectable(false);
-            pref.setSummary(R.string.wifi_empty_list_wifi_on);
-            pref.setOrder(index++);
-            pref.setKey(PREF_KEY_EMPTY_WIFI_LIST);
-            mWifiEntryPreferenceCategory.addPreference(pref);
+            if (emptyPref == null) {
+                Preference pref = new Preference(getPrefContext());
+                pref.setSelectable(false);
+                pref.setSummary(R.string.wifi_empty_list_wifi_on);
+                pref.setOrder(index++);
+                pref.setKey(PREF_KEY_EMPTY_WIFI_LIST);
+                mWifiEntryPreferenceCategory.addPreference(pref);
+            } else {
+                emptyPref.setOrder(index++);
+            }
         } else {
+            if (emptyPref != null) {
+                mWifiEntryPreferenceCategory.removePreference(emptyPref);
+            }
             // Continuing showing progress bar for an additional delay to overlap with animation
             getView().postDelayed(mHideProgressBarRunnable, 1700 /* delay millis */);
         }
 
         mAddWifiNetworkPreference.setOrder(index++);
-        mWifiEntryPreferenceCategory.addPreference(mAddWifiNetworkPreference);
+        if (mAddWifiNetworkPreference.getParent() != mWifiEntryPreferenceCategory) {
+            mWifiEntryPreferenceCategory.addPreference(mAddWifiNetworkPreference);
+        }
         setAdditionalSettingsSummaries();
     }
 
+    /**
+     * Applies the given entries to {@link #mWifiEntryPreferenceCategory} by key, so that only
+     * preferences which were inserted, moved, removed or re-bound are touched.
+     */
+    private void applyWifiEntryDiff(List<WifiEntry> wifiEntries) {
+        final Map<String, LongPressWifiEntryPreference> currentPrefs = new ArrayMap<>();
+        final List<LongPressWifiEntryPreference> orderedPrefs = new ArrayList<>();
+        for (int i = 0; i < mWifiEntryPreferenceCategory.getPreferenceCount(); i++) {
+            final Preference pref = mWifiEntryPreferenceCategory.getPreference(i);
+            if (pref instanceof LongPressWifiEntryPreference) {
+                orderedPrefs.add((LongPressWifiEntryPreference) pref);
+            }
+        }
+        orderedPrefs.sort(Comparator.comparingInt(Preference::getOrder));
+        final List<String> oldKeys = new ArrayList<>(orderedPrefs.size());
+        for (LongPressWifiEntryPreference pref : orderedPrefs) {
+            currentPrefs.put(pref.getKey(), pref);
+            oldKeys.add(pref.getKey());
+        }
+
+        final Map<String, WifiEntry> newEntries = new ArrayMap<>(wifiEntries.size());
+        final List<String> newKeys = new ArrayList<>(wifiEntries.size());
+        for (WifiEntry wifiEntry : wifiEntries) {
+            newEntries.put(wifiEntry.getKey(), wifiEntry);
+            newKeys.add(wifiEntry.getKey());
+        }
+
+        final WifiEntryListDiff diff = WifiEntryListDiff.calculate(oldKeys, newKeys,
+                key -> currentPrefs.get(key).getWifiEntry() != newEntries.get(key));
+        if (diff.isEmpty()) {
+            return;
+        }
+
+        for (String key : diff.getRemoved()) {
+            mWifiEntryPreferenceCategory.removePreference(currentPrefs.remove(key));
+        }
+        // The settingslib preference is bound to its WifiEntry for its whole lifetime, so a
+        // replaced entry is re-bound by swapping in a new preference at the same position.
+        for (String key : diff.getUpdated()) {
+            mWifiEntryPreferenceCategory.removePreference(currentPrefs.remove(key));
+        }
+
+        final Map<String, Integer> newPositions = new ArrayMap<>(newKeys.size());
+        for (int i = 0; i < newKeys.size(); i++) {
+            newPositions.put(newKeys.get(i), i);
+        }
+        for (String key : diff.getInserted()) {
+            addWifiEntryPreference(newEntries.get(key), newPositions.get(key));
+        }
+        for (String key : diff.getUpdated()) {
+            addWifiEntryPreference(newEntries.get(key), newPositions.get(key));
+        }
+
+        if (diff.getRemoved().isEmpty() && diff.getInserted().isEmpty()) {
+            // Nothing shifted, only the kept preferences that moved need a new order.
+            for (String key : diff.getMoved()) {
+                currentPrefs.get(key).setOrder(newPositions.get(key));
+            }
+            return;
+        }
+        // Insertions and removals shift the positions of the following preferences.
+        for (Map.Entry<String, LongPressWifiEntryPreference> entry : currentPrefs.entrySet()) {
+            final int position = newPositions.get(entry.getKey());
+            if (entry.getValue().getOrder() != position) {
+                entry.getValue().setOrder(position);
+            }
+        }
+    }
+
+    private void addWifiEntryPreference(WifiEntry wifiEntry, int order) {
+        final LongPressWifiEntryPreference pref = createWifiEntryPreference(wifiEntry);
+        pref.setOrder(order);
+        mWifiEntryPreferenceCategory.addPreference(pref);
+    }
+
+    private LongPressWifiEntryPreference createWifiEntryPreference(WifiEntry wifiEntry) {
+        final LongPressWifiEntryPreference pref = createLongPressWifiEntryPreference(wifiEntry);
+        pref.setKey(wifiEntry.getKey());
+        pref.refresh();
+
+        if (wifiEntry.getHelpUriString() != null) {
+            pref.setOnButtonClickListener(preference -> {
+                openSubscriptionHelpPage(wifiEntry);
+            });
+        }
+        return pref;
+    }
+
     private void launchNetworkDetailsFragment(LongPressWifiEntryPreference pref) {
         final WifiEntry wifiEntry = pref.getWifiEntry();
         final Context context = getContext();
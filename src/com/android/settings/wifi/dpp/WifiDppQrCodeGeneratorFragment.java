@@ -44,6 +44,7 @@ import com.android.internal.app.chooser.DisplayResolveInfo;
 import com.android.internal.app.chooser.TargetInfo;
 import com.android.settings.R;
 import com.android.settings.wifi.qrcode.QrCodeGenerator;
+import com.android.settingslib.utils.ThreadUtils;
 
 import com.google.zxing.WriterException;
 
@@ -260,14 +261,32 @@ public class WifiDppQrCodeGeneratorFragment extends WifiDppQrCodeBaseFragment {
     }
 
     private void setQrCode() {
-        try {
-            final int qrcodeSize = getContext().getResources().getDimensionPixelSize(
-                    R.dimen.qrcode_size);
-            final Bitmap bmp = QrCodeGenerator.encodeQrCode(mQrCode, qrcodeSize);
-            mQrCodeView.setImageBitmap(bmp);
-        } catch (WriterException e) {
-            Log.e(TAG, "Error generating QR code bitmap " + e);
+        final int qrcodeSize = getContext().getResources().getDimensionPixelSize(
+                R.dimen.qrcode_size);
+        final String qrCode = mQrCode;
+        final Bitmap cached = QrCodeGenerator.getCachedQrCode(qrCode, qrcodeSize);
+        if (cached != null) {
+            mQrCodeView.setImageBitmap(cached);
+            return;
         }
+
+        // Generating the bitmap takes a while on low end devices, keep it off the main thread.
+        final ImageView qrCodeView = mQrCodeView;
+        ThreadUtils.postOnBackgroundThread(() -> {
+            final Bitmap bmp;
+            try {
+                bmp = QrCodeGenerator.encodeQrCodeCached(qrCode, qrcodeSize);
+            } catch (WriterException e) {
+                Log.e(TAG, "Error generating QR code bitmap " + e);
+                return;
+            }
+            ThreadUtils.postOnMainThread(() -> {
+                // Skip if the view was recreated meanwhile.
+                if (mQrCodeView == qrCodeView) {
+                    qrCodeView.setImageBitmap(bmp);
+                }
+            });
+        });
     }
 
     private WifiNetworkConfig getWifiNetworkConfigFromHostActivity() {
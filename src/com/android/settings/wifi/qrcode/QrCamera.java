@@ -18,6 +18,7 @@ package com.android.settings.wifi.qrcode;
 
 import android.content.Context;
 import android.content.res.Configuration;
+import android.graphics.ImageFormat;
 import android.graphics.Matrix;
 import android.graphics.Rect;
 import android.graphics.SurfaceTexture;
@@ -41,15 +42,19 @@ import com.google.zxing.DecodeHintType;
 import com.google.zxing.MultiFormatReader;
 import com.google.zxing.ReaderException;
 import com.google.zxing.Result;
-import com.google.zxing.common.HybridBinarizer;
 
 import java.io.IOException;
 import java.lang.ref.WeakReference;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.Semaphore;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Manage the camera for the QR scanner and help the decoder to get the image inside the scanning
@@ -72,6 +77,18 @@ public class QrCamera extends Handler {
 
     private static final long AUTOFOCUS_INTERVAL_MS = 1500L;
 
+    private static final int DECODE_THREADS = 2;
+    // One buffer per decoding thread, plus one for the camera to fill meanwhile.
+    private static final int PREVIEW_BUFFERS = DECODE_THREADS + 1;
+    private static final long IDLE_THREAD_TIMEOUT_SECONDS = 10L;
+
+    // Shared by all scanners, the threads go away once scanning stops. Each scanner holds a
+    // camera thread for as long as it scans.
+    private static final ExecutorService sCameraExecutor = Executors.newCachedThreadPool();
+    private static final ThreadPoolExecutor sDecodeExecutor = createDecodeExecutor();
+    private static final ThreadLocal<QrFrameDecoder> sFrameDecoder =
+            ThreadLocal.withInitial(QrFrameDecoder::new);
+
     private static Map<DecodeHintType, List<BarcodeFormat>> HINTS = new ArrayMap<>();
     private static List<BarcodeFormat> FORMATS = new ArrayList<>();
 
@@ -108,7 +125,7 @@ public class QrCamera extends Handler {
         if (mDecodeTask == null) {
             mDecodeTask = new DecodingTask(surface);
             // Execute in the separate thread pool to prevent block other AsyncTask.
-            mDecodeTask.executeOnExecutor(Executors.newSingleThreadExecutor());
+            mDecodeTask.executeOnExecutor(sCameraExecutor);
         }
     }
 
@@ -123,10 +140,18 @@ public class QrCamera extends Handler {
             mDecodeTask = null;
         }
         if (mCamera != null) {
+            mCamera.setPreviewCallbackWithBuffer(null);
             mCamera.stopPreview();
         }
     }
 
+    private static ThreadPoolExecutor createDecodeExecutor() {
+        final ThreadPoolExecutor executor = new ThreadPoolExecutor(DECODE_THREADS, DECODE_THREADS,
+                IDLE_THREAD_TIMEOUT_SECONDS, TimeUnit.SECONDS, new LinkedBlockingQueue<>());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
     /** The scanner which includes this QrCamera class should implement this */
     public interface ScannerCallback {
 
@@ -230,8 +255,8 @@ public class QrCamera extends Handler {
     }
 
     private class DecodingTask extends AsyncTask<Void, Void, String> {
-        private QrYuvLuminanceSource mImage;
-        private SurfaceTexture mSurface;
+        private final SurfaceTexture mSurface;
+        private final BlockingQueue<String> mResult = new ArrayBlockingQueue<>(1);
 
         private DecodingTask(SurfaceTexture surface) {
             mSurface = surface;
@@ -243,40 +268,50 @@ public class QrCamera extends Handler {
                 return null;
             }
 
-            final Semaphore imageGot = new Semaphore(0);
-            while (true) {
-                // This loop will try to capture preview image continuously until a valid QR Code
-                // decoded. The caller can also call {@link #stop()} to interrupts scanning loop.
-                mCamera.setOneShotPreviewCallback(
-                        (imageData, camera) -> {
-                            mImage = getFrameImage(imageData);
-                            imageGot.release();
-                        });
-                try {
-                    // Semaphore.acquire() blocking until permit is available, or the thread is
-                    // interrupted.
-                    imageGot.acquire();
-                    Result qrCode = null;
-                    try {
-                        qrCode =
-                                mReader.decodeWithState(
-                                        new BinaryBitmap(new HybridBinarizer(mImage)));
-                    } catch (ReaderException e) {
-                        // No logging since every time the reader cannot decode the
-                        // image, this ReaderException will be thrown.
-                    } finally {
-                        mReader.reset();
-                    }
-                    if (qrCode != null) {
-                        if (mScannerCallback.isValid(qrCode.getText())) {
-                            return qrCode.getText();
-                        }
-                    }
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                    return null;
-                }
+            // Preview frames are written to recycled buffers and decoded in parallel, until a
+            // valid QR Code is decoded. The caller can also call {@link #stop()} to interrupt
+            // scanning.
+            final Camera camera = mCamera;
+            final int width = mPreviewSize.getWidth();
+            final int height = mPreviewSize.getHeight();
+            final Rect frame = mScannerCallback.getFramePosition(mPreviewSize, mCameraOrientation);
+            final int bufferSize =
+                    width * height * ImageFormat.getBitsPerPixel(ImageFormat.NV21) / 8;
+            for (int i = 0; i < PREVIEW_BUFFERS; i++) {
+                camera.addCallbackBuffer(new byte[bufferSize]);
             }
+            camera.setPreviewCallbackWithBuffer((imageData, unused) ->
+                    sDecodeExecutor.execute(() -> decodeFrame(camera, imageData, width, height,
+                            frame)));
+            try {
+                // BlockingQueue.take() blocking until a result is available, or the thread is
+                // interrupted.
+                return mResult.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return null;
+            }
+        }
+
+        private void decodeFrame(Camera camera, byte[] imageData, int width, int height,
+                Rect frame) {
+            if (isCancelled() || !mResult.isEmpty()) {
+                return;
+            }
+            final String qrCode = sFrameDecoder.get().decode(imageData, width, height, frame);
+            // Codes decoded in parallel are validated one at a time on the handler thread, as
+            // the scanner callback is not thread safe.
+            post(() -> {
+                if (mDecodeTask != this || isCancelled() || !mResult.isEmpty()) {
+                    return;
+                }
+                if (qrCode != null && mScannerCallback.isValid(qrCode)) {
+                    mResult.offer(qrCode);
+                    return;
+                }
+                // Hand the buffer back to the camera for another frame.
+                camera.addCallbackBuffer(imageData);
+            });
         }
 
         @Override
@@ -364,14 +399,6 @@ public class QrCamera extends Handler {
         mScannerCallback.setTransform(matrix);
     }
 
-    private QrYuvLuminanceSource getFrameImage(byte[] imageData) {
-        final Rect frame = mScannerCallback.getFramePosition(mPreviewSize, mCameraOrientation);
-        final QrYuvLuminanceSource image = new QrYuvLuminanceSource(imageData,
-                mPreviewSize.getWidth(), mPreviewSize.getHeight());
-        return (QrYuvLuminanceSource)
-                image.crop(frame.left, frame.top, frame.width(), frame.height());
-    }
-
     @Override
     public void handleMessage(Message msg) {
         switch (msg.what) {
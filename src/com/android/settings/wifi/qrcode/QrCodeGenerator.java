@@ -18,6 +18,9 @@ package com.android.settings.wifi.qrcode;
 
 import android.graphics.Bitmap;
 import android.graphics.Color;
+import android.text.TextUtils;
+
+import androidx.annotation.VisibleForTesting;
 
 import com.google.zxing.BarcodeFormat;
 import com.google.zxing.EncodeHintType;
@@ -27,10 +30,16 @@ import com.google.zxing.common.BitMatrix;
 
 import java.nio.charset.CharsetEncoder;
 import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
 
 public final class QrCodeGenerator {
+    // Last bitmap handed out by encodeQrCodeCached(), shared with every caller asking for it.
+    private static String sCachedContents;
+    private static int sCachedSize;
+    private static Bitmap sCachedBitmap;
+
     /**
      * Generates a barcode image with {@code contents}.
      *
@@ -45,17 +54,80 @@ public final class QrCodeGenerator {
             hints.put(EncodeHintType.CHARACTER_SET, StandardCharsets.UTF_8.name());
         }
 
-        final BitMatrix qrBits = new MultiFormatWriter().encode(contents, BarcodeFormat.QR_CODE,
-                size, size, hints);
+        // A size of 0 gets one bit per module, quiet zone included. The modules are scaled up to
+        // the largest whole multiple that fits and centered, the way the writer would.
+        final BitMatrix modules = new MultiFormatWriter().encode(contents, BarcodeFormat.QR_CODE,
+                0, 0, hints);
+        final int modulesSize = modules.getWidth();
+        final int scale = Math.max(1, size / modulesSize);
+        final int padding = Math.max(0, (size - modulesSize * scale) / 2);
+
         final Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.RGB_565);
-        for (int x = 0; x < size; x++) {
-            for (int y = 0; y < size; y++) {
-                bitmap.setPixel(x, y, qrBits.get(x, y) ? Color.BLACK : Color.WHITE);
+        bitmap.eraseColor(Color.WHITE);
+        // Pixels of one row of modules, written with a single call.
+        final int[] pixels = new int[size * scale];
+        Arrays.fill(pixels, 0, size, Color.WHITE);
+        for (int y = 0; y < modulesSize; y++) {
+            final int top = padding + y * scale;
+            if (top >= size) {
+                break;
+            }
+            for (int x = 0; x < modulesSize; x++) {
+                final int left = padding + x * scale;
+                if (left >= size) {
+                    break;
+                }
+                Arrays.fill(pixels, left, Math.min(left + scale, size),
+                        modules.get(x, y) ? Color.BLACK : Color.WHITE);
+            }
+            final int rows = Math.min(scale, size - top);
+            for (int i = 1; i < rows; i++) {
+                System.arraycopy(pixels, 0, pixels, i * size, size);
             }
+            bitmap.setPixels(pixels, 0, size, 0, top, size, rows);
+        }
+        return bitmap;
+    }
+
+    /**
+     * Same as {@link #encodeQrCode}, but returns the previous bitmap if it was generated with the
+     * same {@code contents} and {@code size}. The bitmap is shared and must not be recycled or
+     * modified. Safe to call from any thread.
+     */
+    public static Bitmap encodeQrCodeCached(String contents, int size)
+            throws WriterException, IllegalArgumentException {
+        final Bitmap cached = getCachedQrCode(contents, size);
+        if (cached != null) {
+            return cached;
+        }
+        final Bitmap bitmap = encodeQrCode(contents, size);
+        synchronized (QrCodeGenerator.class) {
+            sCachedContents = contents;
+            sCachedSize = size;
+            sCachedBitmap = bitmap;
         }
         return bitmap;
     }
 
+    /**
+     * Returns the bitmap last generated by {@link #encodeQrCodeCached} if it matches
+     * {@code contents} and {@code size}, or null otherwise.
+     */
+    public static synchronized Bitmap getCachedQrCode(String contents, int size) {
+        if (sCachedBitmap != null && !sCachedBitmap.isRecycled() && sCachedSize == size
+                && TextUtils.equals(sCachedContents, contents)) {
+            return sCachedBitmap;
+        }
+        return null;
+    }
+
+    @VisibleForTesting
+    static synchronized void clearCache() {
+        sCachedContents = null;
+        sCachedSize = 0;
+        sCachedBitmap = null;
+    }
+
     private static boolean isIso88591(String contents) {
         CharsetEncoder encoder = StandardCharsets.ISO_8859_1.newEncoder();
         return encoder.canEncode(contents);
@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.wifi.qrcode;
+
+import android.graphics.Rect;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.DecodeHintType;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.ReaderException;
+import com.google.zxing.common.HybridBinarizer;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Decodes QR codes from NV21 camera preview frames.
+ *
+ * <p>The decoder keeps its reader and a luminance view of the scanning frame between calls, so
+ * decoding a frame of the same size as the previous one does not copy the preview data. It is not
+ * thread safe, use one decoder per thread.
+ */
+public class QrFrameDecoder {
+
+    private static final Map<DecodeHintType, List<BarcodeFormat>> HINTS =
+            Collections.singletonMap(DecodeHintType.POSSIBLE_FORMATS,
+                    Collections.singletonList(BarcodeFormat.QR_CODE));
+
+    private final MultiFormatReader mReader = new MultiFormatReader();
+    private QrYuvLuminanceSource mSource;
+    private int mDataWidth;
+    private int mDataHeight;
+    private final Rect mFrame = new Rect();
+
+    public QrFrameDecoder() {
+        mReader.setHints(HINTS);
+    }
+
+    /**
+     * Returns the text of the QR code inside {@code frame} of a {@code width} x {@code height}
+     * NV21 image, or null if none could be decoded.
+     */
+    public String decode(byte[] nv21, int width, int height, Rect frame) {
+        if (mSource == null || mDataWidth != width || mDataHeight != height
+                || !mFrame.equals(frame)) {
+            mSource = new QrYuvLuminanceSource(nv21, width, height, frame.left, frame.top,
+                    frame.width(), frame.height());
+            mDataWidth = width;
+            mDataHeight = height;
+            mFrame.set(frame);
+        } else {
+            mSource.setData(nv21);
+        }
+
+        try {
+            return mReader.decodeWithState(new BinaryBitmap(new HybridBinarizer(mSource)))
+                    .getText();
+        } catch (ReaderException e) {
+            // No logging since every time the reader cannot decode the
+            // image, this ReaderException will be thrown.
+            return null;
+        } finally {
+            mReader.reset();
+        }
+    }
+}
@@ -20,18 +20,45 @@ import com.google.zxing.LuminanceSource;
 
 /**
  * This helper class implements crop method to crop preview picture.
+ *
+ * <p>Cropping does not copy the image, the cropped source reads the rows of the original data in
+ * place. A source can also be pointed at another frame of the same size with {@link #setData}, so
+ * a single instance serves every preview frame.
  */
 public class QrYuvLuminanceSource extends LuminanceSource {
 
     private byte[] mYuvData;
-    private int mWidth;
-    private int mHeight;
+    private final int mDataWidth;
+    private final int mDataHeight;
+    private final int mLeft;
+    private final int mTop;
+    // Copy of the cropped area returned by getMatrix(), reused across frames.
+    private byte[] mMatrix;
 
     public QrYuvLuminanceSource(byte[] yuvData, int width, int height) {
+        this(yuvData, width, height, 0, 0, width, height);
+    }
+
+    /**
+     * Creates a source reading the {@code width} x {@code height} area at ({@code left},
+     * {@code top}) of a {@code dataWidth} x {@code dataHeight} image.
+     */
+    public QrYuvLuminanceSource(byte[] yuvData, int dataWidth, int dataHeight, int left, int top,
+            int width, int height) {
         super(width, height);
+        if (left < 0 || top < 0 || left + width > dataWidth || top + height > dataHeight) {
+            throw new IllegalArgumentException("cropped rectangle does not fit within image data.");
+        }
+
+        mDataWidth = dataWidth;
+        mDataHeight = dataHeight;
+        mLeft = left;
+        mTop = top;
+        mYuvData = yuvData;
+    }
 
-        mWidth = width;
-        mHeight = height;
+    /** Points this source at {@code yuvData}, a frame of the same size as the current one. */
+    public void setData(byte[] yuvData) {
         mYuvData = yuvData;
     }
 
@@ -42,34 +69,41 @@ public class QrYuvLuminanceSource extends LuminanceSource {
 
     @Override
     public LuminanceSource crop(int left, int top, int crop_width, int crop_height) {
-        final byte[] newImage = new byte[crop_width * crop_height];
-        int inputOffset = top * mWidth + left;
-
-        if (left + crop_width > mWidth || top + crop_height > mHeight) {
+        if (left + crop_width > getWidth() || top + crop_height > getHeight()) {
             throw new IllegalArgumentException("cropped rectangle does not fit within image data.");
         }
-
-        for (int y = 0; y < crop_height; y++) {
-            System.arraycopy(mYuvData, inputOffset, newImage, y * crop_width, crop_width);
-            inputOffset += mWidth;
-        }
-        return new QrYuvLuminanceSource(newImage, crop_width, crop_height);
+        return new QrYuvLuminanceSource(mYuvData, mDataWidth, mDataHeight, mLeft + left,
+                mTop + top, crop_width, crop_height);
     }
 
     @Override
     public byte[] getRow(int y, byte[] row) {
-        if (y < 0 || y >= mHeight) {
+        if (y < 0 || y >= getHeight()) {
             throw new IllegalArgumentException("Requested row is outside the image: " + y);
         }
-        if (row == null || row.length < mWidth) {
-            row = new byte[mWidth];
+        final int width = getWidth();
+        if (row == null || row.length < width) {
+            row = new byte[width];
         }
-        System.arraycopy(mYuvData, y * mWidth, row, 0, mWidth);
+        System.arraycopy(mYuvData, (mTop + y) * mDataWidth + mLeft, row, 0, width);
         return row;
     }
 
     @Override
     public byte[] getMatrix() {
-        return mYuvData;
+        final int width = getWidth();
+        final int height = getHeight();
+        if (width == mDataWidth && height == mDataHeight) {
+            return mYuvData;
+        }
+        if (mMatrix == null) {
+            mMatrix = new byte[width * height];
+        }
+        int inputOffset = mTop * mDataWidth + mLeft;
+        for (int y = 0; y < height; y++) {
+            System.arraycopy(mYuvData, inputOffset, mMatrix, y * width, width);
+            inputOffset += mDataWidth;
+        }
+        return mMatrix;
     }
 }
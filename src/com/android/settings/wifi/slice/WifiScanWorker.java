@@ -45,12 +45,19 @@ public class WifiScanWorker extends SliceBackgroundWorker<WifiSliceItem> impleme
 
     private static final String TAG = "WifiScanWorker";
 
+    @VisibleForTesting
+    static final long MAX_UPDATE_THROTTLE_INTERVAL = 2400L;
+
     @VisibleForTesting
     final LifecycleRegistry mLifecycleRegistry;
     @VisibleForTesting
     protected WifiPickerTracker mWifiPickerTracker;
     protected WifiPickerTrackerHelper mWifiPickerTrackerHelper;
 
+    // Binds arrive on binder threads and notifications on the notifier thread, guarded by this.
+    private long mUpdateThrottleInterval = SLICE_UPDATE_THROTTLE_INTERVAL;
+    private boolean mIsWaitingForBind;
+
     public WifiScanWorker(Context context, Uri uri) {
         super(context, uri);
 
@@ -65,6 +72,10 @@ public class WifiScanWorker extends SliceBackgroundWorker<WifiSliceItem> impleme
 
     @Override
     protected void onSlicePinned() {
+        synchronized (this) {
+            mUpdateThrottleInterval = SLICE_UPDATE_THROTTLE_INTERVAL;
+            mIsWaitingForBind = false;
+        }
         mLifecycleRegistry.markState(Lifecycle.State.STARTED);
         mLifecycleRegistry.markState(Lifecycle.State.RESUMED);
         updateResults();
@@ -76,6 +87,37 @@ public class WifiScanWorker extends SliceBackgroundWorker<WifiSliceItem> impleme
         mLifecycleRegistry.markState(Lifecycle.State.CREATED);
     }
 
+    /**
+     * The host re-bound the Slice, so it keeps up with the updates. Speed back up towards the
+     * default interval.
+     */
+    @Override
+    protected synchronized void onSliceBound() {
+        if (mIsWaitingForBind) {
+            mIsWaitingForBind = false;
+            mUpdateThrottleInterval = Math.max(SLICE_UPDATE_THROTTLE_INTERVAL,
+                    mUpdateThrottleInterval / 2);
+        }
+    }
+
+    /**
+     * The host has not re-bound the Slice since the previous notification, so the updates are
+     * arriving faster than it can draw them. Back off until it catches up.
+     */
+    @Override
+    protected synchronized void onSliceChangeNotified() {
+        if (mIsWaitingForBind) {
+            mUpdateThrottleInterval = Math.min(MAX_UPDATE_THROTTLE_INTERVAL,
+                    mUpdateThrottleInterval * 2);
+        }
+        mIsWaitingForBind = true;
+    }
+
+    @Override
+    protected synchronized long getUpdateThrottleInterval() {
+        return mUpdateThrottleInterval;
+    }
+
     @Override
     public void close() {
         mLifecycleRegistry.markState(Lifecycle.State.DESTROYED);
@@ -151,6 +193,8 @@ public class WifiScanWorker extends SliceBackgroundWorker<WifiSliceItem> impleme
             return;
         }
 
+        // Only the rows shown by the Slice are compared. WifiSliceItem compares the displayed
+        // signal level rather than the RSSI, so signal fluctuations within a level are ignored.
         final List<WifiSliceItem> resultList = new ArrayList<>();
         final WifiEntry connectedWifiEntry = mWifiPickerTracker.getConnectedWifiEntry();
         if (connectedWifiEntry != null) {
@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.android.settings.tests.perf;
+
+import static androidx.test.platform.app.InstrumentationRegistry.getInstrumentation;
+
+import static junit.framework.TestCase.assertEquals;
+
+import android.app.Activity;
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.util.Log;
+
+import androidx.test.runner.AndroidJUnit4;
+
+import com.android.settings.wifi.qrcode.QrCodeGenerator;
+import com.android.settings.wifi.qrcode.QrFrameDecoder;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Measures how fast the Wi-Fi QR scanner decodes preview frames.
+ *
+ * <p>Recorded NV21 frames are replayed from {@link #FRAMES_DIR} when present, each file named
+ * {@code <width>x<height>_<index>.nv21}. Otherwise frames are synthesized from a generated QR code
+ * with some sensor noise added.
+ */
+@RunWith(AndroidJUnit4.class)
+public class QrDecodeBenchmarkTest {
+    private static final String TAG = "SettingsPerfTests";
+    private static final String FRAMES_DIR = "/data/local/tmp/qr_frames";
+    private static final String QR_CONTENT = "WIFI:S:PerfTest;T:WPA;P:password;;";
+    private static final int FRAME_WIDTH = 1280;
+    private static final int FRAME_HEIGHT = 720;
+    private static final int QR_SIZE = 480;
+    private static final int SYNTHETIC_FRAMES = 8;
+    private static final int ROUNDS = 20;
+    private static final int THREADS = 2;
+
+    private static class Frame {
+        final byte[] data;
+        final int width;
+        final int height;
+
+        Frame(byte[] data, int width, int height) {
+            this.data = data;
+            this.width = width;
+            this.height = height;
+        }
+    }
+
+    private final List<Frame> mFrames = new ArrayList<>();
+    private Bundle mBundle;
+    private boolean mSynthetic;
+
+    @Before
+    public void setUp() throws Exception {
+        mBundle = new Bundle();
+        loadRecordedFrames();
+        if (mFrames.isEmpty()) {
+            mSynthetic = true;
+            synthesizeFrames();
+        }
+    }
+
+    @Test
+    public void decodeFrames_singleThread() {
+        final QrFrameDecoder decoder = new QrFrameDecoder();
+        // Warm up.
+        decodeAll(decoder);
+
+        final long start = SystemClock.elapsedRealtimeNanos();
+        int decoded = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            decoded += decodeAll(decoder);
+        }
+        report("single_thread", start, decoded);
+    }
+
+    @Test
+    public void decodeFrames_threadPool() throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        final ThreadLocal<QrFrameDecoder> decoders = ThreadLocal.withInitial(QrFrameDecoder::new);
+        try {
+            final long start = SystemClock.elapsedRealtimeNanos();
+            final List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < ROUNDS; i++) {
+                for (Frame frame : mFrames) {
+                    results.add(executor.submit(() -> decode(decoders.get(), frame)));
+                }
+            }
+            int decoded = 0;
+            for (Future<Boolean> result : results) {
+                decoded += result.get() ? 1 : 0;
+            }
+            report("thread_pool_" + THREADS, start, decoded);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private int decodeAll(QrFrameDecoder decoder) {
+        int decoded = 0;
+        for (Frame frame : mFrames) {
+            decoded += decode(decoder, frame) ? 1 : 0;
+        }
+        return decoded;
+    }
+
+    private static boolean decode(QrFrameDecoder decoder, Frame frame) {
+        return decoder.decode(frame.data, frame.width, frame.height,
+                new Rect(0, 0, frame.width, frame.height)) != null;
+    }
+
+    private void report(String name, long startNanos, int decoded) {
+        final int frames = ROUNDS * mFrames.size();
+        final long elapsedMs = (SystemClock.elapsedRealtimeNanos() - startNanos) / 1_000_000;
+        final float framesPerSecond = elapsedMs == 0 ? 0 : frames * 1000f / elapsedMs;
+        Log.d(TAG, name + ": " + frames + " frames, " + decoded + " decoded, " + elapsedMs
+                + " ms, " + framesPerSecond + " fps");
+        mBundle.putString("qr_decode_" + name + "_fps", String.valueOf(framesPerSecond));
+        getInstrumentation().sendStatus(Activity.RESULT_FIRST_USER, mBundle);
+        if (mSynthetic) {
+            // Synthesized frames always hold a readable code.
+            assertEquals(frames, decoded);
+        }
+    }
+
+    private void loadRecordedFrames() throws IOException {
+        final File[] files = new File(FRAMES_DIR).listFiles();
+        if (files == null) {
+            return;
+        }
+        for (File file : files) {
+            final String name = file.getName();
+            if (!name.endsWith(".nv21")) {
+                continue;
+            }
+            final String[] size = name.substring(0, name.indexOf('_')).split("x");
+            mFrames.add(new Frame(Files.readAllBytes(file.toPath()), Integer.parseInt(size[0]),
+                    Integer.parseInt(size[1])));
+        }
+    }
+
+    private void synthesizeFrames() throws Exception {
+        final Bitmap qrCode = QrCodeGenerator.encodeQrCode(QR_CONTENT, QR_SIZE);
+        final int[] pixels = new int[QR_SIZE * QR_SIZE];
+        qrCode.getPixels(pixels, 0, QR_SIZE, 0, 0, QR_SIZE, QR_SIZE);
+        qrCode.recycle();
+
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < SYNTHETIC_FRAMES; i++) {
+            // NV21: a luminance plane followed by interleaved chroma at quarter resolution.
+            final byte[] nv21 = new byte[FRAME_WIDTH * FRAME_HEIGHT * 3 / 2];
+            final int left = random.nextInt(FRAME_WIDTH - QR_SIZE);
+            final int top = random.nextInt(FRAME_HEIGHT - QR_SIZE);
+            for (int y = 0; y < FRAME_HEIGHT; y++) {
+                for (int x = 0; x < FRAME_WIDTH; x++) {
+                    int luma = 0xc0;
+                    if (x >= left && x < left + QR_SIZE && y >= top && y < top + QR_SIZE) {
+                        luma = pixels[(y - top) * QR_SIZE + x - left] & 0xff;
+                    }
+                    luma += random.nextInt(-16, 17);
+                    nv21[y * FRAME_WIDTH + x] = (byte) Math.max(0, Math.min(0xff, luma));
+                }
+            }
+            mFrames.add(new Frame(nv21, FRAME_WIDTH, FRAME_HEIGHT));
+        }
+    }
+}
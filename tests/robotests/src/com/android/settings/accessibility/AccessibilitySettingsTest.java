@@ -40,9 +40,11 @@ import android.content.pm.ActivityInfo;
 import android.content.pm.ApplicationInfo;
 import android.content.pm.ResolveInfo;
 import android.content.pm.ServiceInfo;
+import android.graphics.drawable.Drawable;
 import android.os.Build;
 import android.os.Bundle;
 import android.provider.Settings;
+import android.util.ArrayMap;
 import android.view.accessibility.AccessibilityManager;
 
 import androidx.fragment.app.FragmentActivity;
@@ -77,6 +79,7 @@ import org.xmlpull.v1.XmlPullParserException;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 /** Test for {@link AccessibilitySettings}. */
 @RunWith(RobolectricTestRunner.class)
@@ -268,6 +271,32 @@ public class AccessibilitySettingsTest {
         assertThat(preference.getKey()).isEqualTo(key);
     }
 
+    @Test
+    public void preload_hasOneServiceInfo_cachesIcon() {
+        final Map<ComponentName, Drawable> iconCache = new ArrayMap<>();
+        final AccessibilitySettings.RestrictedPreferenceHelper helper =
+                new AccessibilitySettings.RestrictedPreferenceHelper(mContext, iconCache);
+
+        helper.preload(new ArrayList<>(), singletonList(mServiceInfo));
+
+        assertThat(iconCache).containsKey(COMPONENT_NAME);
+    }
+
+    @Test
+    public void preload_hasOneServiceInfo_createsPreferenceWithPreloadedTexts() {
+        final AccessibilitySettings.RestrictedPreferenceHelper helper =
+                new AccessibilitySettings.RestrictedPreferenceHelper(mContext);
+        final List<AccessibilityServiceInfo> infoList = singletonList(mServiceInfo);
+        doReturn(DEFAULT_SUMMARY).when(mServiceInfo).loadSummary(any());
+        helper.preload(new ArrayList<>(), infoList);
+        doReturn(EMPTY_STRING).when(mServiceInfo).loadSummary(any());
+
+        final RestrictedPreference preference =
+                helper.createAccessibilityServicePreferenceList(infoList).get(0);
+
+        assertThat(preference.getSummary().toString()).contains(DEFAULT_SUMMARY);
+    }
+
     @Test
     public void createAccessibilityActivityPreferenceList_hasOneInfo_containsSameKey() {
         final String key = COMPONENT_NAME.flattenToString();
@@ -357,6 +386,58 @@ public class AccessibilitySettingsTest {
 
     }
 
+    @Test
+    @Config(shadows = {ShadowFragment.class, ShadowUserManager.class})
+    public void onContentChanged_serviceUnchanged_keepsPreference() {
+        setupFragment();
+        mShadowAccessibilityManager.setInstalledAccessibilityServiceList(
+                singletonList(mServiceInfo));
+        mFragment.onContentChanged();
+        final RestrictedPreference preference = mFragment.getPreferenceScreen().findPreference(
+                COMPONENT_NAME.flattenToString());
+
+        mFragment.onContentChanged();
+
+        assertThat((RestrictedPreference) mFragment.getPreferenceScreen().findPreference(
+                COMPONENT_NAME.flattenToString())).isSameInstanceAs(preference);
+    }
+
+    @Test
+    @Config(shadows = {ShadowFragment.class, ShadowUserManager.class})
+    public void onContentChanged_serviceEnabled_replacesPreference() {
+        setupFragment();
+        mShadowAccessibilityManager.setInstalledAccessibilityServiceList(
+                singletonList(mServiceInfo));
+        mFragment.onContentChanged();
+        final RestrictedPreference preference = mFragment.getPreferenceScreen().findPreference(
+                COMPONENT_NAME.flattenToString());
+
+        Settings.Secure.putString(mContext.getContentResolver(),
+                Settings.Secure.ENABLED_ACCESSIBILITY_SERVICES, COMPONENT_NAME.flattenToString());
+        mFragment.onContentChanged();
+
+        final RestrictedPreference newPreference = mFragment.getPreferenceScreen().findPreference(
+                COMPONENT_NAME.flattenToString());
+        assertThat(newPreference).isNotSameInstanceAs(preference);
+        assertThat(newPreference.getSummary().toString()).isEqualTo(
+                mContext.getText(R.string.accessibility_summary_state_enabled).toString());
+    }
+
+    @Test
+    @Config(shadows = {ShadowFragment.class, ShadowUserManager.class})
+    public void onContentChanged_serviceUninstalled_removesPreference() {
+        setupFragment();
+        mShadowAccessibilityManager.setInstalledAccessibilityServiceList(
+                singletonList(mServiceInfo));
+        mFragment.onContentChanged();
+
+        mShadowAccessibilityManager.setInstalledAccessibilityServiceList(new ArrayList<>());
+        mFragment.onContentChanged();
+
+        assertThat((RestrictedPreference) mFragment.getPreferenceScreen().findPreference(
+                COMPONENT_NAME.flattenToString())).isNull();
+    }
+
     private AccessibilityServiceInfo getMockAccessibilityServiceInfo(String packageName,
             String className) {
         final ApplicationInfo applicationInfo = new ApplicationInfo();
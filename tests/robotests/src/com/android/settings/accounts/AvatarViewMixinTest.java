@@ -43,6 +43,7 @@ import android.widget.ImageView;
 import com.android.settings.homepage.SettingsHomepageActivity;
 import com.android.settings.homepage.contextualcards.slices.BatteryFixSliceTest;
 import com.android.settings.testutils.shadow.ShadowUserManager;
+import com.android.settings.users.UserAvatarCache;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -105,6 +106,24 @@ public class AvatarViewMixinTest {
         verify(mockAvatar).hasAccount();
     }
 
+    @Test
+    @Config(shadows = ShadowAccountFeatureProviderImpl.class)
+    public void onStart_cachedAvatar_shouldStillLoadAccount() {
+        final UserAvatarCache cache = UserAvatarCache.getInstance();
+        final AvatarViewMixin avatarViewMixin = spy(new AvatarViewMixin(mActivity, mImageView));
+        cache.putAccountAvatar(cache.getGeneration(), FAKE_ACCOUNT,
+                Bitmap.createBitmap(1, 1, Bitmap.Config.ARGB_8888));
+
+        try {
+            avatarViewMixin.onStart();
+
+            assertThat(avatarViewMixin.mAccountName).isEqualTo(FAKE_ACCOUNT);
+            verify(avatarViewMixin).queryProviderAuthority();
+        } finally {
+            cache.clear();
+        }
+    }
+
     @Test
     public void onStart_noAccount_mAccountNameShouldBeNull() {
         final AvatarViewMixin avatarViewMixin = new AvatarViewMixin(mActivity, mImageView);
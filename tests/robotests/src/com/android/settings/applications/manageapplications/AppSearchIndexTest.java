@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.applications.manageapplications;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+
+import com.android.settingslib.applications.ApplicationsState.AppEntry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class AppSearchIndexTest {
+
+    @Test
+    public void normalize_shouldFoldCaseAndAccents() {
+        assertThat(AppSearchIndex.normalize("Café Crème")).isEqualTo("cafe creme");
+        assertThat(AppSearchIndex.normalize(null)).isEmpty();
+    }
+
+    @Test
+    public void search_shouldMatchAccentFoldedSubstrings() {
+        final AppSearchIndex index = new AppSearchIndex(
+                getTestAppList("Apricot", "Café", "Cantaloupe", "Mango"));
+
+        assertThat(getLabels(index.search("CAFE"))).containsExactly("Café");
+        assertThat(getLabels(index.search("an"))).containsExactly("Cantaloupe", "Mango")
+                .inOrder();
+    }
+
+    @Test
+    public void search_refinedQuery_shouldKeepOrderAndDropEntries() {
+        final AppSearchIndex index = new AppSearchIndex(
+                getTestAppList("Banana", "Cantaloupe", "Mango"));
+
+        assertThat(getLabels(index.search("a"))).containsExactly("Banana", "Cantaloupe", "Mango")
+                .inOrder();
+        assertThat(getLabels(index.search("an"))).containsExactly("Banana", "Cantaloupe", "Mango")
+                .inOrder();
+        assertThat(getLabels(index.search("ana"))).containsExactly("Banana");
+        // Widening the query searches the whole list again.
+        assertThat(getLabels(index.search("ngo"))).containsExactly("Mango");
+    }
+
+    @Test
+    public void isIndexOf_shouldCompareListInstance() {
+        final List<AppEntry> entries = getTestAppList("Fig");
+        final AppSearchIndex index = new AppSearchIndex(entries);
+
+        assertThat(index.isIndexOf(entries)).isTrue();
+        assertThat(index.isIndexOf(new ArrayList<>(entries))).isFalse();
+    }
+
+    private static List<AppEntry> getTestAppList(String... appNames) {
+        final List<AppEntry> appList = new ArrayList<>();
+        for (String name : appNames) {
+            final AppEntry appEntry = mock(AppEntry.class);
+            appEntry.label = name;
+            appList.add(appEntry);
+        }
+        return appList;
+    }
+
+    private static List<String> getLabels(List<AppEntry> entries) {
+        final List<String> labels = new ArrayList<>();
+        for (AppEntry entry : entries) {
+            labels.add(entry.label);
+        }
+        return labels;
+    }
+}
@@ -28,6 +28,7 @@ import static com.google.common.truth.Truth.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
@@ -446,6 +447,88 @@ public class ManageApplicationsTest {
         assertThat(adapter.getAppEntry(2).label).isEqualTo("Mango");
     }
 
+    @Test
+    public void onRebuildComplete_noSearchQuery_shouldBuildSearchIndex() {
+        final SearchView searchView = mock(SearchView.class);
+        ReflectionHelpers.setField(mFragment, "mSearchView", searchView);
+        ReflectionHelpers.setField(
+                mFragment, "mFilterAdapter", mock(ManageApplications.FilterSpinnerAdapter.class));
+        final ManageApplications.ApplicationsAdapter adapter =
+                new ManageApplications.ApplicationsAdapter(mState, mFragment,
+                        AppFilterRegistry.getInstance().get(FILTER_APPS_ALL),
+                        null /* savedInstanceState */);
+        ReflectionHelpers.setField(adapter, "mLoadingViewController",
+                mock(LoadingViewController.class));
+        final ArrayList<AppEntry> appList = getTestAppList(new String[] {"Banana", "Fig"});
+
+        adapter.onRebuildComplete(appList);
+
+        final AppSearchIndex searchIndex = ReflectionHelpers.getField(adapter, "mSearchIndex");
+        assertThat(searchIndex.isIndexOf(appList)).isTrue();
+    }
+
+    @Test
+    public void onRebuildComplete_hasEntries_shouldOnlyNotifyChangedItems() {
+        final ManageApplications.ApplicationsAdapter adapter =
+                new ManageApplications.ApplicationsAdapter(mState, mFragment,
+                        AppFilterRegistry.getInstance().get(FILTER_APPS_ALL),
+                        null /* savedInstanceState */);
+        ReflectionHelpers.setField(adapter, "mLoadingViewController",
+                mock(LoadingViewController.class));
+        ReflectionHelpers.setField(
+                mFragment, "mFilterAdapter", mock(ManageApplications.FilterSpinnerAdapter.class));
+        final AppEntry first = createAppEntry(1);
+        final AppEntry second = createAppEntry(2);
+        final ArrayList<AppEntry> appList = new ArrayList<>();
+        appList.add(first);
+        appList.add(second);
+        adapter.onRebuildComplete(appList);
+        final RecyclerView.AdapterDataObserver observer =
+                mock(RecyclerView.AdapterDataObserver.class);
+        adapter.registerAdapterDataObserver(observer);
+
+        final ArrayList<AppEntry> rebuiltList = new ArrayList<>();
+        rebuiltList.add(second);
+        rebuiltList.add(createAppEntry(3));
+        adapter.onRebuildComplete(rebuiltList);
+
+        verify(observer, never()).onChanged();
+        verify(observer).onItemRangeRemoved(0, 1);
+        verify(observer).onItemRangeInserted(anyInt(), eq(1));
+        assertThat(adapter.getItemCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void onRebuildComplete_sortModeChanged_shouldNotifyDataSetChanged() {
+        final ManageApplications.ApplicationsAdapter adapter =
+                new ManageApplications.ApplicationsAdapter(mState, mFragment,
+                        AppFilterRegistry.getInstance().get(FILTER_APPS_ALL),
+                        null /* savedInstanceState */);
+        ReflectionHelpers.setField(adapter, "mLoadingViewController",
+                mock(LoadingViewController.class));
+        ReflectionHelpers.setField(
+                mFragment, "mFilterAdapter", mock(ManageApplications.FilterSpinnerAdapter.class));
+        final AppEntry first = createAppEntry(1);
+        final AppEntry second = createAppEntry(2);
+        final ArrayList<AppEntry> appList = new ArrayList<>();
+        appList.add(first);
+        appList.add(second);
+        adapter.onRebuildComplete(appList);
+        final RecyclerView.AdapterDataObserver observer =
+                mock(RecyclerView.AdapterDataObserver.class);
+        adapter.registerAdapterDataObserver(observer);
+
+        ReflectionHelpers.setField(adapter, "mLastSortMode", R.id.sort_order_size);
+        final ArrayList<AppEntry> resortedList = new ArrayList<>();
+        resortedList.add(second);
+        resortedList.add(first);
+        adapter.onRebuildComplete(resortedList);
+
+        verify(observer).onChanged();
+        verify(observer, never()).onItemRangeMoved(anyInt(), anyInt(), anyInt());
+        assertThat(adapter.getAppEntry(0)).isSameInstanceAs(second);
+    }
+
     @Test
     public void sortOrderSavedOnRebuild() {
         when(mUserManager.getProfileIdsWithDisabled(anyInt())).thenReturn(new int[]{});
@@ -624,6 +707,12 @@ public class ManageApplicationsTest {
         return appList;
     }
 
+    private AppEntry createAppEntry(long id) {
+        final ApplicationInfo info = new ApplicationInfo();
+        info.sourceDir = "abc";
+        return new AppEntry(mContext, info, id);
+    }
+
     private AppEntry createPowerAllowListApp(boolean isPowerAllowListed) {
         final ApplicationInfo info = new ApplicationInfo();
         info.sourceDir = "abc";
@@ -183,6 +183,33 @@ public class BluetoothDeviceUpdaterTest {
                 containsKey(mSubBluetoothDevice)).isFalse();
     }
 
+    @Test
+    public void onDeviceAdded_sameFrame_shouldUpdateLaterDevicesOnNextFrame() {
+        prepareSubDevice();
+
+        mBluetoothDeviceUpdater.onDeviceAdded(mCachedBluetoothDevice);
+        mBluetoothDeviceUpdater.onDeviceAdded(mSubCachedBluetoothDevice);
+
+        assertThat(mBluetoothDeviceUpdater.mPreferenceMap).containsKey(mBluetoothDevice);
+        assertThat(mBluetoothDeviceUpdater.mPreferenceMap).doesNotContainKey(mSubBluetoothDevice);
+
+        mBluetoothDeviceUpdater.mUpdatePendingDevicesCallback.doFrame(0 /* frameTimeNanos */);
+
+        assertThat(mBluetoothDeviceUpdater.mPreferenceMap).containsKey(mSubBluetoothDevice);
+    }
+
+    @Test
+    public void onDeviceDeleted_pendingDevice_shouldNotUpdateOnNextFrame() {
+        prepareSubDevice();
+        mBluetoothDeviceUpdater.onDeviceAdded(mCachedBluetoothDevice);
+        mBluetoothDeviceUpdater.onDeviceAdded(mSubCachedBluetoothDevice);
+
+        mBluetoothDeviceUpdater.onDeviceDeleted(mSubCachedBluetoothDevice);
+        mBluetoothDeviceUpdater.mUpdatePendingDevicesCallback.doFrame(0 /* frameTimeNanos */);
+
+        assertThat(mBluetoothDeviceUpdater.mPreferenceMap).doesNotContainKey(mSubBluetoothDevice);
+    }
+
     @Test
     public void testDeviceProfilesListener_click_startBluetoothDeviceDetailPage() {
         doReturn(mSettingsActivity).when(mDashboardFragment).getContext();
@@ -274,4 +301,10 @@ public class BluetoothDeviceUpdaterTest {
 
         assertThat(mPreference.getTitle()).isEqualTo(TEST_NAME);
     }
+
+    private void prepareSubDevice() {
+        when(mSubCachedBluetoothDevice.getAddress()).thenReturn(SUB_MAC_ADDRESS);
+        when(mSubCachedBluetoothDevice.getDrawableWithDescription())
+                .thenReturn(new Pair<>(mDrawable, "fake_sub_device"));
+    }
 }
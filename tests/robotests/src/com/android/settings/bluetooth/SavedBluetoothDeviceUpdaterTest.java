@@ -16,6 +16,7 @@
 package com.android.settings.bluetooth;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
@@ -112,6 +113,23 @@ public class SavedBluetoothDeviceUpdaterTest {
                 BluetoothDevicePreference.SortType.TYPE_NO_SORT);
     }
 
+    @Test
+    public void applyFilterResult_matched_addUnsortedPreference() {
+        mBluetoothDeviceUpdater.applyFilterResult(mCachedBluetoothDevice, true /* matched */);
+
+        verify(mBluetoothDeviceUpdater).addPreference(mCachedBluetoothDevice,
+                BluetoothDevicePreference.SortType.TYPE_NO_SORT);
+        verify(mBluetoothDeviceUpdater, never()).removePreference(mCachedBluetoothDevice);
+    }
+
+    @Test
+    public void applyFilterResult_notMatched_removePreference() {
+        mBluetoothDeviceUpdater.applyFilterResult(mCachedBluetoothDevice, false /* matched */);
+
+        verify(mBluetoothDeviceUpdater).removePreference(mCachedBluetoothDevice);
+        verify(mBluetoothDeviceUpdater, never()).addPreference(any(), anyInt());
+    }
+
     @Test
     public void update_filterNotMatch_removePreference() {
         doReturn(BluetoothDevice.BOND_NONE).when(mBluetoothDevice).getBondState();
@@ -18,8 +18,10 @@ package com.android.settings.core;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anySet;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 import android.content.BroadcastReceiver;
@@ -80,6 +82,30 @@ public class CategoryMixinTest {
         verify(listener).onCategoriesChanged(anySet());
     }
 
+    @Test
+    public void resumeActivityAgain_nothingChanged_shouldNotNotifyListener() {
+        mActivityController.setup().pause();
+        final CategoryMixin categoryMixin = mActivityController.get().getCategoryMixin();
+        final CategoryListener listener = mock(CategoryListener.class);
+        categoryMixin.addCategoryListener(listener);
+
+        mActivityController.resume();
+
+        verify(listener, never()).onCategoriesChanged(any());
+    }
+
+    @Test
+    public void updateCategories_shouldNotifyListenerToRefreshAll() {
+        mActivityController.setup().pause();
+        final CategoryMixin categoryMixin = mActivityController.get().getCategoryMixin();
+        final CategoryListener listener = mock(CategoryListener.class);
+        categoryMixin.addCategoryListener(listener);
+
+        categoryMixin.updateCategories();
+
+        verify(listener).onCategoriesChanged(null);
+    }
+
     static class TestActivity extends AppCompatActivity implements CategoryMixin.CategoryHandler {
 
         private CategoryMixin mCategoryMixin;
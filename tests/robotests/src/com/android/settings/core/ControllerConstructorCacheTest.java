@@ -0,0 +1,98 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.core;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+
+import com.android.settings.slices.FakeContextOnlyPreferenceController;
+import com.android.settings.slices.FakePreferenceController;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class ControllerConstructorCacheTest {
+
+    private static final String KEY = "key";
+
+    private Context mContext;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+    }
+
+    @After
+    public void tearDown() {
+        ControllerConstructorCache.clear();
+    }
+
+    @Test
+    public void create_shouldResolveThroughReflection() {
+        final BasePreferenceController controller = ControllerConstructorCache.create(mContext,
+                FakePreferenceController.class.getName(), KEY);
+
+        assertThat(controller).isInstanceOf(FakePreferenceController.class);
+        assertThat(controller.getPreferenceKey()).isEqualTo(KEY);
+    }
+
+    @Test
+    public void create_calledTwice_shouldCreateNewControllers() {
+        final String name = FakePreferenceController.class.getName();
+
+        final BasePreferenceController first =
+                ControllerConstructorCache.create(mContext, name, KEY);
+        final BasePreferenceController second =
+                ControllerConstructorCache.create(mContext, name, KEY);
+
+        assertThat(second).isInstanceOf(FakePreferenceController.class);
+        assertThat(second).isNotSameInstanceAs(first);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void create_missingClass_shouldThrowException() {
+        ControllerConstructorCache.create(mContext, "com.android.settings.NotAController", KEY);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void create_noContextOnlyConstructor_shouldThrowException() {
+        ControllerConstructorCache.create(mContext, FakePreferenceController.class.getName());
+    }
+
+    @Test
+    public void createPreferred_contextOnlyConstructor_shouldIgnoreKey() {
+        final BasePreferenceController controller = ControllerConstructorCache.createPreferred(
+                mContext, FakeContextOnlyPreferenceController.class.getName(), KEY);
+
+        assertThat(controller.getPreferenceKey())
+                .isEqualTo(FakeContextOnlyPreferenceController.KEY);
+    }
+
+    @Test
+    public void createPreferred_keyConstructorOnly_shouldUseKey() {
+        final BasePreferenceController controller = ControllerConstructorCache.createPreferred(
+                mContext, FakePreferenceController.class.getName(), KEY);
+
+        assertThat(controller.getPreferenceKey()).isEqualTo(KEY);
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.dashboard;
+
+import static com.android.settingslib.drawer.TileUtils.META_DATA_PREFERENCE_TITLE;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.content.pm.ActivityInfo;
+import android.os.Bundle;
+import android.util.ArrayMap;
+import android.util.ArraySet;
+import android.util.Pair;
+
+import com.android.settingslib.drawer.ActivityTile;
+import com.android.settingslib.drawer.CategoryKey;
+import com.android.settingslib.drawer.DashboardCategory;
+import com.android.settingslib.drawer.Tile;
+import com.android.settingslib.drawer.TileUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+import org.robolectric.annotation.Implementation;
+import org.robolectric.annotation.Implements;
+import org.robolectric.annotation.Resetter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(shadows = CategoryManagerTest.ShadowTileUtils.class)
+public class CategoryManagerTest {
+
+    private static final String PACKAGE_A = "com.android.a";
+    private static final String PACKAGE_B = "com.android.b";
+    private static final String PACKAGE_C = "com.android.c";
+
+    private Context mContext;
+    private CategoryManager mCategoryManager;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mCategoryManager = new CategoryManager(mContext);
+        ShadowTileUtils.setTiles(
+                new TileSpec(PACKAGE_A, "A1", CategoryKey.CATEGORY_ACCOUNT, "a1"),
+                new TileSpec(PACKAGE_B, "B1", CategoryKey.CATEGORY_ACCOUNT, "b1"),
+                new TileSpec(PACKAGE_C, "C1", CategoryKey.CATEGORY_ACCOUNT, "c1"));
+        mCategoryManager.getCategories(mContext);
+    }
+
+    @After
+    public void tearDown() {
+        ShadowTileUtils.reset();
+    }
+
+    @Test
+    public void reloadCategoriesForPackages_shouldResolveTilesOnceForAllPackages() {
+        final int queryCount = ShadowTileUtils.sQueryCount;
+
+        mCategoryManager.reloadCategoriesForPackages(mContext,
+                new ArraySet<>(Arrays.asList(PACKAGE_A, PACKAGE_B)));
+
+        assertThat(ShadowTileUtils.sQueryCount).isEqualTo(queryCount + 1);
+    }
+
+    @Test
+    public void reloadCategoriesForPackages_noPackage_shouldNotResolveTiles() {
+        final int queryCount = ShadowTileUtils.sQueryCount;
+
+        final Set<String> changed =
+                mCategoryManager.reloadCategoriesForPackages(mContext, new ArraySet<>());
+
+        assertThat(changed).isEmpty();
+        assertThat(ShadowTileUtils.sQueryCount).isEqualTo(queryCount);
+    }
+
+    @Test
+    public void reloadCategoriesForPackages_unchangedTiles_shouldReturnNoCategory() {
+        final Set<String> changed = mCategoryManager.reloadCategoriesForPackages(mContext,
+                new ArraySet<>(Arrays.asList(PACKAGE_A)));
+
+        assertThat(changed).isEmpty();
+        assertThat(getTileNames(CategoryKey.CATEGORY_ACCOUNT))
+                .containsExactly("A1", "B1", "C1");
+    }
+
+    @Test
+    public void reloadCategoriesForPackages_shouldOnlyPatchTilesOfChangedPackages() {
+        final Tile tileC = findTile(CategoryKey.CATEGORY_ACCOUNT, "C1");
+        ShadowTileUtils.setTiles(
+                new TileSpec(PACKAGE_A, "A1", CategoryKey.CATEGORY_ACCOUNT, "a1"),
+                new TileSpec(PACKAGE_A, "A2", CategoryKey.CATEGORY_SYSTEM, "a2"),
+                new TileSpec(PACKAGE_C, "C1", CategoryKey.CATEGORY_ACCOUNT, "c1 new title"));
+
+        final Set<String> changed = mCategoryManager.reloadCategoriesForPackages(mContext,
+                new ArraySet<>(Arrays.asList(PACKAGE_A, PACKAGE_B)));
+
+        // B1 is removed from the account category, and A2 is added to the system category.
+        assertThat(changed).containsExactly(CategoryKey.CATEGORY_ACCOUNT,
+                CategoryKey.CATEGORY_SYSTEM);
+        assertThat(getTileNames(CategoryKey.CATEGORY_ACCOUNT)).containsExactly("A1", "C1");
+        assertThat(getTileNames(CategoryKey.CATEGORY_SYSTEM)).containsExactly("A2");
+        // The tile of the unchanged package is left untouched.
+        assertThat(findTile(CategoryKey.CATEGORY_ACCOUNT, "C1")).isSameInstanceAs(tileC);
+    }
+
+    @Test
+    public void reloadCategoriesForPackages_retitledTile_shouldReturnItsCategory() {
+        ShadowTileUtils.setTiles(
+                new TileSpec(PACKAGE_A, "A1", CategoryKey.CATEGORY_ACCOUNT, "a1 new title"),
+                new TileSpec(PACKAGE_B, "B1", CategoryKey.CATEGORY_ACCOUNT, "b1"),
+                new TileSpec(PACKAGE_C, "C1", CategoryKey.CATEGORY_ACCOUNT, "c1"));
+
+        final Set<String> changed = mCategoryManager.reloadCategoriesForPackages(mContext,
+                new ArraySet<>(Arrays.asList(PACKAGE_A)));
+
+        assertThat(changed).containsExactly(CategoryKey.CATEGORY_ACCOUNT);
+        assertThat(findTile(CategoryKey.CATEGORY_ACCOUNT, "A1").getTitle(mContext))
+                .isEqualTo("a1 new title");
+    }
+
+    private List<String> getTileNames(String categoryKey) {
+        final List<String> names = new ArrayList<>();
+        for (Tile tile : mCategoryManager.getTilesByCategory(mContext, categoryKey).getTiles()) {
+            names.add(tile.getComponentName());
+        }
+        return names;
+    }
+
+    private Tile findTile(String categoryKey, String name) {
+        for (Tile tile : mCategoryManager.getTilesByCategory(mContext, categoryKey).getTiles()) {
+            if (name.equals(tile.getComponentName())) {
+                return tile;
+            }
+        }
+        return null;
+    }
+
+    private static class TileSpec {
+        final String mPackageName;
+        final String mName;
+        final String mCategory;
+        final String mTitle;
+
+        TileSpec(String packageName, String name, String category, String title) {
+            mPackageName = packageName;
+            mName = name;
+            mCategory = category;
+            mTitle = title;
+        }
+    }
+
+    @Implements(TileUtils.class)
+    public static class ShadowTileUtils {
+
+        private static final List<TileSpec> sTiles = new ArrayList<>();
+        private static int sQueryCount;
+
+        @Resetter
+        public static void reset() {
+            sTiles.clear();
+            sQueryCount = 0;
+        }
+
+        static void setTiles(TileSpec... tiles) {
+            sTiles.clear();
+            sTiles.addAll(Arrays.asList(tiles));
+        }
+
+        @Implementation
+        protected static List<DashboardCategory> getCategories(Context context,
+                Map<Pair<String, String>, Tile> cache) {
+            sQueryCount++;
+            final Map<String, DashboardCategory> categories = new ArrayMap<>();
+            for (TileSpec spec : sTiles) {
+                final ActivityInfo activityInfo = new ActivityInfo();
+                activityInfo.packageName = spec.mPackageName;
+                activityInfo.name = spec.mName;
+                activityInfo.metaData = new Bundle();
+                activityInfo.metaData.putString(META_DATA_PREFERENCE_TITLE, spec.mTitle);
+                final Tile tile = new ActivityTile(activityInfo, spec.mCategory);
+                cache.put(new Pair<>(spec.mPackageName, spec.mName), tile);
+                DashboardCategory category = categories.get(spec.mCategory);
+                if (category == null) {
+                    category = new DashboardCategory(spec.mCategory);
+                    categories.put(spec.mCategory, category);
+                }
+                category.addTile(tile);
+            }
+            return new ArrayList<>(categories.values());
+        }
+    }
+}
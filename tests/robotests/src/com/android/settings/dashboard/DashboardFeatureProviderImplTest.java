@@ -39,6 +39,7 @@ import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
@@ -312,6 +313,24 @@ public class DashboardFeatureProviderImplTest {
         assertThat(observers.get(0).getUri().toString()).isEqualTo(uriString);
     }
 
+    @Test
+    @Config(shadows = {ShadowTileUtils.class})
+    public void bindPreference_summaryUriBoundTwice_shouldLoadSummaryForBothPreferences() {
+        final Preference preference1 = new Preference(RuntimeEnvironment.application);
+        final Preference preference2 = new Preference(RuntimeEnvironment.application);
+        final Tile tile = new ActivityTile(mActivityInfo, CategoryKey.CATEGORY_HOMEPAGE);
+        mActivityInfo.metaData.putString(TileUtils.META_DATA_PREFERENCE_SUMMARY_URI,
+                "content://com.android.settings/tile_summary");
+
+        mImpl.bindPreferenceToTileAndGetObservers(mActivity, mFragment, mForceRoundedIcon,
+                preference1, tile, null /* key */, Preference.DEFAULT_ORDER);
+        mImpl.bindPreferenceToTileAndGetObservers(mActivity, mFragment, mForceRoundedIcon,
+                preference2, tile, null /* key */, Preference.DEFAULT_ORDER);
+
+        assertThat(preference1.getSummary()).isEqualTo(ShadowTileUtils.MOCK_SUMMARY);
+        assertThat(preference2.getSummary()).isEqualTo(ShadowTileUtils.MOCK_SUMMARY);
+    }
+
     @Test
     @Config(shadows = {ShadowTileUtils.class})
     public void bindPreference_hasTitleUri_shouldLoadFromContentProviderAndHaveObserver() {
@@ -434,6 +453,24 @@ public class DashboardFeatureProviderImplTest {
         assertThat(preference.getIcon()).isNotNull();
     }
 
+    @Test
+    @Config(shadows = {ShadowTileUtils.class})
+    public void bindIcon_withCachedIconUri_shouldSetIconOnlyOnce() {
+        mActivityInfo.packageName = RuntimeEnvironment.application.getPackageName();
+        final Tile tile = new ActivityTile(mActivityInfo, CategoryKey.CATEGORY_HOMEPAGE);
+        mActivityInfo.metaData.putString(META_DATA_PREFERENCE_KEYHINT, "key");
+        mActivityInfo.metaData.putString(META_DATA_PREFERENCE_ICON_URI,
+                "content://com.android.settings/tile_icon");
+        mImpl.bindIcon(new Preference(RuntimeEnvironment.application), tile,
+                false /* forceRoundedIcon */);
+        final Preference preference = spy(new Preference(RuntimeEnvironment.application));
+
+        mImpl.bindIcon(preference, tile, false /* forceRoundedIcon */);
+
+        // The cached icon is set right away, the unchanged fetched icon is not set again.
+        verify(preference, times(1)).setIcon(any(Drawable.class));
+    }
+
     @Test
     @Config(shadows = {ShadowTileUtils.class})
     public void bindIcon_withStaticIconAndIconUri_shouldLoadIconFromContentProvider() {
@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.development;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.Manifest;
+import android.content.pm.PackageInfo;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+
+@RunWith(RobolectricTestRunner.class)
+public class AppPickerTest {
+
+    @Test
+    public void buildPermissionIndex_shouldMapPermissionsToRequestingPackages() {
+        final Map<String, Set<String>> index = AppPicker.buildPermissionIndex(Arrays.asList(
+                createPackageInfo("app1", Manifest.permission.ACCESS_MOCK_LOCATION,
+                        Manifest.permission.INTERNET),
+                createPackageInfo("app2", Manifest.permission.INTERNET),
+                createPackageInfo("app3")));
+
+        assertThat(index.get(Manifest.permission.ACCESS_MOCK_LOCATION))
+                .containsExactly("app1");
+        assertThat(index.get(Manifest.permission.INTERNET)).containsExactly("app1", "app2");
+        assertThat(index.get(Manifest.permission.CAMERA)).isNull();
+    }
+
+    private static PackageInfo createPackageInfo(String packageName, String... permissions) {
+        final PackageInfo info = new PackageInfo();
+        info.packageName = packageName;
+        info.requestedPermissions = permissions.length > 0 ? permissions : null;
+        return info;
+    }
+}
@@ -0,0 +1,264 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.development;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.net.URLConnection;
+import java.net.URLStreamHandler;
+import java.net.UnknownHostException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+@RunWith(RobolectricTestRunner.class)
+public class DSUManifestFetcherTest {
+
+    private static final String ETAG = "\"v1\"";
+
+    @Rule
+    public TemporaryFolder mFolder = new TemporaryFolder();
+
+    private DSUManifestFetcher mFetcher;
+    private final List<String> mImages = Collections.synchronizedList(new ArrayList<>());
+    private final List<URL> mErrors = Collections.synchronizedList(new ArrayList<>());
+    private final CountDownLatch mFinished = new CountDownLatch(1);
+
+    @Before
+    public void setUp() throws IOException {
+        mFetcher = new DSUManifestFetcher(mFolder.newFolder("cache"),
+                Executors.newFixedThreadPool(2));
+    }
+
+    @Test
+    public void fetch_shouldReportImagesOfEveryIncludedManifest() throws Exception {
+        final URL b = writeManifest("b.json", "{\"images\":[{\"name\":\"b\"}]}");
+        final URL c = writeManifest("c.json", "{\"images\":[{\"name\":\"c\"}]}");
+        final URL a = writeManifest("a.json", "{\"include\":[\"" + b + "\",\"" + c + "\"],"
+                + "\"images\":[{\"name\":\"a\"}]}");
+
+        fetch(a);
+
+        assertThat(mImages).containsExactly("a", "b", "c");
+        assertThat(mErrors).isEmpty();
+    }
+
+    @Test
+    public void fetch_includeCycle_shouldFetchEachManifestOnce() throws Exception {
+        final URL a = new URL(new File(mFolder.getRoot(), "a.json").toURI().toString());
+        final URL b = writeManifest("b.json",
+                "{\"include\":[\"" + a + "\"],\"images\":[{\"name\":\"b\"}]}");
+        writeManifest("a.json", "{\"include\":[\"" + b + "\"],\"images\":[{\"name\":\"a\"}]}");
+
+        fetch(a);
+
+        assertThat(mImages).containsExactly("a", "b");
+    }
+
+    @Test
+    public void fetch_missingInclude_shouldReportErrorAndOtherImages() throws Exception {
+        final URL missing = new URL(new File(mFolder.getRoot(), "missing.json").toURI()
+                .toString());
+        final URL a = writeManifest("a.json",
+                "{\"include\":[\"" + missing + "\"],\"images\":[{\"name\":\"a\"}]}");
+
+        fetch(a);
+
+        assertThat(mImages).containsExactly("a");
+        assertThat(mErrors).containsExactly(missing);
+    }
+
+    @Test
+    public void fetch_offlineWithCache_shouldReportCachedImagesWithoutError() throws Exception {
+        final URL a = createHttpUrl("/a.json", new FakeConnection(null /* response */));
+        writeCache(a, "{\"images\":[{\"name\":\"cached\"}]}");
+
+        fetch(a);
+
+        assertThat(mImages).containsExactly("cached");
+        assertThat(mErrors).isEmpty();
+    }
+
+    @Test
+    public void fetch_offlineWithoutCache_shouldReportError() throws Exception {
+        final URL a = createHttpUrl("/a.json", new FakeConnection(null /* response */));
+
+        fetch(a);
+
+        assertThat(mImages).isEmpty();
+        assertThat(mErrors).containsExactly(a);
+    }
+
+    @Test
+    public void fetch_notModified_shouldOnlyReportCachedImages() throws Exception {
+        final FakeConnection connection = new FakeConnection(null /* response */);
+        connection.mResponseCode = HttpURLConnection.HTTP_NOT_MODIFIED;
+        final URL a = createHttpUrl("/a.json", connection);
+        writeCache(a, "{\"images\":[{\"name\":\"cached\"}]}");
+
+        fetch(a);
+
+        assertThat(mImages).containsExactly("cached");
+        assertThat(connection.getRequestProperty("If-None-Match")).isEqualTo(ETAG);
+    }
+
+    @Test
+    public void fetch_staleCache_shouldReportCachedThenNewImages() throws Exception {
+        final String content = "{\"images\":[{\"name\":\"new\"}]}";
+        final URL a = createHttpUrl("/a.json", new FakeConnection(content));
+        writeCache(a, "{\"images\":[{\"name\":\"cached\"}]}");
+
+        fetch(a);
+
+        assertThat(mImages).containsExactly("cached", "new").inOrder();
+        assertThat(readFile(mFetcher.getCacheFile(a, ".json"))).isEqualTo(content);
+    }
+
+    @Test
+    public void getCacheFile_shouldDependOnUrl() throws Exception {
+        final URL a = new URL("https://example.com/a.json");
+        final URL b = new URL("https://example.com/b.json");
+
+        assertThat(mFetcher.getCacheFile(a, ".json"))
+                .isEqualTo(mFetcher.getCacheFile(a, ".json"));
+        assertThat(mFetcher.getCacheFile(a, ".json"))
+                .isNotEqualTo(mFetcher.getCacheFile(b, ".json"));
+    }
+
+    private void fetch(URL manifest) throws InterruptedException {
+        mFetcher.fetch(manifest, new DSUManifestFetcher.Listener() {
+            @Override
+            public void onImages(URL url, JSONArray images) {
+                try {
+                    for (int i = 0; i < images.length(); i++) {
+                        mImages.add(images.getJSONObject(i).getString("name"));
+                    }
+                } catch (JSONException e) {
+                    throw new AssertionError(e);
+                }
+            }
+
+            @Override
+            public void onError(URL url, Exception e) {
+                mErrors.add(url);
+            }
+
+            @Override
+            public void onFinished() {
+                mFinished.countDown();
+            }
+        });
+        assertThat(mFinished.await(5, TimeUnit.SECONDS)).isTrue();
+        mFetcher.cancel();
+    }
+
+    private URL writeManifest(String name, String content) throws IOException {
+        final File file = new File(mFolder.getRoot(), name);
+        writeFile(file, content);
+        return file.toURI().toURL();
+    }
+
+    private void writeCache(URL url, String content) throws IOException {
+        writeFile(mFetcher.getCacheFile(url, ".json"), content);
+        writeFile(mFetcher.getCacheFile(url, ".headers"), ETAG + "\n");
+    }
+
+    private static void writeFile(File file, String content) throws IOException {
+        try (OutputStream out = new FileOutputStream(file)) {
+            out.write(content.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    private static String readFile(File file) throws IOException {
+        try (InputStream in = new FileInputStream(file)) {
+            return DSUManifestFetcher.readAll(in);
+        }
+    }
+
+    private static URL createHttpUrl(String path, FakeConnection connection) throws IOException {
+        return new URL("https", "example.com", -1, path, new URLStreamHandler() {
+            @Override
+            protected URLConnection openConnection(URL url) {
+                return connection;
+            }
+        });
+    }
+
+    /** Answers with {@code response}, or fails as if offline when it is null. */
+    private static class FakeConnection extends HttpURLConnection {
+        private final String mResponse;
+        int mResponseCode = HTTP_OK;
+
+        FakeConnection(String response) throws IOException {
+            super(new URL("https://example.com"));
+            mResponse = response;
+        }
+
+        @Override
+        public int getResponseCode() throws IOException {
+            if (mResponse == null && mResponseCode == HTTP_OK) {
+                throw new UnknownHostException("example.com");
+            }
+            return mResponseCode;
+        }
+
+        @Override
+        public InputStream getInputStream() {
+            return new ByteArrayInputStream(mResponse.getBytes(StandardCharsets.UTF_8));
+        }
+
+        @Override
+        public String getHeaderField(String name) {
+            return "ETag".equals(name) ? "\"v2\"" : null;
+        }
+
+        @Override
+        public void connect() {
+        }
+
+        @Override
+        public void disconnect() {
+        }
+
+        @Override
+        public boolean usingProxy() {
+            return false;
+        }
+    }
+}
@@ -18,6 +18,9 @@ package com.android.settings.display;
 
 import static com.google.common.truth.Truth.assertThat;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
@@ -30,6 +33,9 @@ import android.content.pm.ResolveInfo;
 import android.graphics.drawable.Drawable;
 import android.util.IconDrawableFactory;
 
+import com.android.settings.R;
+import com.android.settings.testutils.shadow.ShadowThreadUtils;
+
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -37,8 +43,14 @@ import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 @RunWith(RobolectricTestRunner.class)
+@Config(shadows = ShadowThreadUtils.class)
 public class AppGridViewTest {
 
     @Mock
@@ -87,4 +99,80 @@ public class AppGridViewTest {
         assertThat(entry1.compareTo(entry2)).isEqualTo(0);
         assertThat(entry1.compareTo(entry3)).isNotEqualTo(0);
     }
+
+    @Test
+    public void appsAdapter_shouldLoadSortedEntries() {
+        when(mPackageManager.queryIntentActivities(any(), anyInt())).thenReturn(
+                Arrays.asList(createInfo("pkg.b", "Beta"), createInfo("pkg.a", "alpha")));
+
+        final AppGridView.AppsAdapter adapter = createAdapter();
+
+        assertThat(getLabels(adapter)).containsExactly("alpha", "Beta").inOrder();
+    }
+
+    @Test
+    public void appsAdapter_packageRemoved_shouldOnlyDropItsEntries() {
+        final List<ResolveInfo> infos = new ArrayList<>();
+        for (int i = 0; i <= AppGridView.AppsAdapter.NEED_APP_COUNT; i++) {
+            infos.add(createInfo("pkg" + i, "label" + i));
+        }
+        when(mPackageManager.queryIntentActivities(any(), anyInt())).thenReturn(infos);
+        final AppGridView.AppsAdapter adapter = createAdapter();
+        infos.remove(0);
+
+        adapter.onPackageChanged("pkg0", true /* removed */);
+
+        // The grid is filled again with the next app.
+        assertThat(getLabels(adapter)).containsExactly(
+                "label1", "label2", "label3", "label4", "label5", "label6").inOrder();
+    }
+
+    @Test
+    public void appsAdapter_packageAdded_shouldOnlyQueryThatPackage() {
+        when(mPackageManager.queryIntentActivities(any(), anyInt())).thenReturn(
+                Arrays.asList(createInfo("pkg.b", "Beta")));
+        final AppGridView.AppsAdapter adapter = createAdapter();
+        when(mPackageManager.queryIntentActivities(
+                argThat(intent -> "pkg.a".equals(intent.getPackage())), anyInt()))
+                .thenReturn(Arrays.asList(createInfo("pkg.a", "alpha")));
+
+        adapter.onPackageChanged("pkg.a", false /* removed */);
+
+        assertThat(getLabels(adapter)).containsExactly("alpha", "Beta").inOrder();
+    }
+
+    @Test
+    public void appEntry_loadIcon_shouldCacheIcon() {
+        when(mPackageManager.loadUnbadgedItemIcon(mActivityInfo, mApplicationInfo))
+            .thenReturn(mIcon);
+        final AppGridView.ActivityEntry activityEntry =
+            new AppGridView.ActivityEntry(mInfo, "label", mIconFactory);
+
+        assertThat(activityEntry.getCachedIcon()).isNull();
+        final Drawable icon = activityEntry.loadIcon();
+
+        assertThat(activityEntry.getCachedIcon()).isSameInstanceAs(icon);
+    }
+
+    private AppGridView.AppsAdapter createAdapter() {
+        return new AppGridView.AppsAdapter(mContext, R.layout.screen_zoom_preview_app_icon,
+                android.R.id.text1, android.R.id.icon1);
+    }
+
+    private static ResolveInfo createInfo(String packageName, String label) {
+        final ResolveInfo info = new ResolveInfo();
+        info.activityInfo = new ActivityInfo();
+        info.activityInfo.packageName = packageName;
+        info.activityInfo.applicationInfo = new ApplicationInfo();
+        info.nonLocalizedLabel = label;
+        return info;
+    }
+
+    private static List<String> getLabels(AppGridView.AppsAdapter adapter) {
+        final List<String> labels = new ArrayList<>();
+        for (int i = 0; i < adapter.getCount(); i++) {
+            labels.add(adapter.getItem(i).label);
+        }
+        return labels;
+    }
 }
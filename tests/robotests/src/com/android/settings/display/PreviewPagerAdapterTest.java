@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.display;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.Context;
+import android.content.res.Configuration;
+import android.view.View;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class PreviewPagerAdapterTest {
+
+    private static final int[] PREVIEWS = {
+            android.R.layout.simple_list_item_1, android.R.layout.simple_list_item_2};
+    private static final int CONFIGURATION_COUNT = 5;
+
+    private Context mContext;
+    private List<Integer> mCreatedConfigurations;
+    private PreviewPagerAdapter mAdapter;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mCreatedConfigurations = new ArrayList<>();
+        mAdapter = new PreviewPagerAdapter(mContext, false /* isLayoutRtl */, PREVIEWS,
+                CONFIGURATION_COUNT, index -> {
+                    mCreatedConfigurations.add(index);
+                    return new Configuration(mContext.getResources().getConfiguration());
+                });
+    }
+
+    @Test
+    public void constructor_shouldNotCreateConfigurations() {
+        assertThat(mCreatedConfigurations).isEmpty();
+        assertThat(mAdapter.getLayer(0, 0)).isNull();
+    }
+
+    @Test
+    public void setPreviewLayer_shouldOnlyInflateCurrentFrame() {
+        mAdapter.setPreviewLayer(2, -1, 0, false /* animate */);
+
+        assertThat(mAdapter.getLayer(0, 2).getVisibility()).isEqualTo(View.VISIBLE);
+        assertThat(mAdapter.getLayer(0, 2).getAlpha()).isEqualTo(1.0f);
+        assertThat(mAdapter.getLayer(1, 2)).isNull();
+        assertThat(mCreatedConfigurations).containsExactly(2);
+    }
+
+    @Test
+    public void prepareLayers_shouldInflateOtherFramesAndAdjacentLayers() {
+        mAdapter.setPreviewLayer(2, -1, 0, false /* animate */);
+        mAdapter.prepareLayers();
+
+        assertThat(mAdapter.getLayer(1, 2).getVisibility()).isEqualTo(View.VISIBLE);
+        assertThat(mAdapter.getLayer(0, 1).getVisibility()).isEqualTo(View.INVISIBLE);
+        assertThat(mAdapter.getLayer(0, 3).getVisibility()).isEqualTo(View.INVISIBLE);
+        assertThat(mAdapter.getLayer(0, 0)).isNull();
+        assertThat(mAdapter.getLayer(0, 4)).isNull();
+        // Configuration contexts are shared by the frames.
+        assertThat(mCreatedConfigurations).containsExactly(2, 1, 3);
+    }
+
+    @Test
+    public void prepareLayers_shouldRecycleDistantLayers() {
+        mAdapter.setPreviewLayer(0, -1, 0, false /* animate */);
+        mAdapter.prepareLayers();
+        mAdapter.setPreviewLayer(3, 0, 0, false /* animate */);
+        mAdapter.setPreviewLayer(4, 3, 0, false /* animate */);
+        mAdapter.prepareLayers();
+
+        assertThat(mAdapter.getLayer(0, 0)).isNull();
+        assertThat(mAdapter.getLayer(0, 1)).isNull();
+        assertThat(mAdapter.getLayer(1, 0)).isNull();
+        assertThat(mAdapter.getLayer(0, 3).getVisibility()).isEqualTo(View.INVISIBLE);
+        assertThat(mAdapter.getLayer(0, 4).getVisibility()).isEqualTo(View.VISIBLE);
+    }
+}
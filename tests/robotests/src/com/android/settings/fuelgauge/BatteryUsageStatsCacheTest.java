@@ -0,0 +1,146 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.fuelgauge;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.content.Intent;
+import android.os.BatteryManager;
+import android.os.BatteryStatsManager;
+import android.os.BatteryUsageStats;
+import android.os.UidBatteryConsumer;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Arrays;
+
+@RunWith(RobolectricTestRunner.class)
+public class BatteryUsageStatsCacheTest {
+    private static final int UID = 10001;
+
+    private Context mContext;
+    @Mock
+    private BatteryStatsManager mBatteryStatsManager;
+    @Mock
+    private BatteryUsageStats mBatteryUsageStats;
+    @Mock
+    private BatteryUsageStats mOtherBatteryUsageStats;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = spy(RuntimeEnvironment.application);
+        doReturn(mBatteryStatsManager).when(mContext).getSystemService(
+                Context.BATTERY_STATS_SERVICE);
+        when(mBatteryStatsManager.getBatteryUsageStats(any()))
+                .thenReturn(mBatteryUsageStats, mOtherBatteryUsageStats);
+        sendBatteryChanged(/* level */ 50, /* plugged */ 0);
+    }
+
+    @After
+    public void tearDown() {
+        BatteryUsageStatsCache.clear();
+    }
+
+    @Test
+    public void get_twice_shouldQueryOnce() {
+        assertThat(BatteryUsageStatsCache.get(mContext, /* includeBatteryHistory */ false))
+                .isSameInstanceAs(mBatteryUsageStats);
+        assertThat(BatteryUsageStatsCache.get(mContext, /* includeBatteryHistory */ false))
+                .isSameInstanceAs(mBatteryUsageStats);
+
+        verify(mBatteryStatsManager, times(1)).getBatteryUsageStats(any());
+    }
+
+    @Test
+    public void get_withHistory_shouldNotBeCached() {
+        assertThat(BatteryUsageStatsCache.get(mContext, /* includeBatteryHistory */ true))
+                .isSameInstanceAs(mBatteryUsageStats);
+
+        assertThat(BatteryUsageStatsCache.get(mContext, /* includeBatteryHistory */ true))
+                .isSameInstanceAs(mOtherBatteryUsageStats);
+    }
+
+    @Test
+    public void get_withHistoryAfterSnapshot_shouldQueryAgainAndKeepSnapshot() {
+        BatteryUsageStatsCache.get(mContext, /* includeBatteryHistory */ false);
+
+        assertThat(BatteryUsageStatsCache.get(mContext, /* includeBatteryHistory */ true))
+                .isSameInstanceAs(mOtherBatteryUsageStats);
+        assertThat(BatteryUsageStatsCache.get(mContext, /* includeBatteryHistory */ false))
+                .isSameInstanceAs(mBatteryUsageStats);
+    }
+
+    @Test
+    public void get_batteryLevelChanged_shouldQueryAgain() {
+        BatteryUsageStatsCache.get(mContext, /* includeBatteryHistory */ false);
+
+        sendBatteryChanged(/* level */ 49, /* plugged */ 0);
+
+        assertThat(BatteryUsageStatsCache.get(mContext, /* includeBatteryHistory */ false))
+                .isSameInstanceAs(mOtherBatteryUsageStats);
+    }
+
+    @Test
+    public void get_plugStateChanged_shouldQueryAgain() {
+        BatteryUsageStatsCache.get(mContext, /* includeBatteryHistory */ false);
+
+        sendBatteryChanged(/* level */ 50, BatteryManager.BATTERY_PLUGGED_AC);
+
+        assertThat(BatteryUsageStatsCache.get(mContext, /* includeBatteryHistory */ false))
+                .isSameInstanceAs(mOtherBatteryUsageStats);
+    }
+
+    @Test
+    public void findUidBatteryConsumer_shouldReturnConsumerOfUid() {
+        final UidBatteryConsumer consumer = mock(UidBatteryConsumer.class);
+        final UidBatteryConsumer otherConsumer = mock(UidBatteryConsumer.class);
+        when(consumer.getUid()).thenReturn(UID);
+        when(otherConsumer.getUid()).thenReturn(UID + 1);
+        when(mBatteryUsageStats.getUidBatteryConsumers())
+                .thenReturn(Arrays.asList(otherConsumer, consumer));
+        final BatteryUsageStats stats =
+                BatteryUsageStatsCache.get(mContext, /* includeBatteryHistory */ false);
+
+        assertThat(BatteryUsageStatsCache.findUidBatteryConsumer(stats, UID))
+                .isSameInstanceAs(consumer);
+        assertThat(BatteryUsageStatsCache.findUidBatteryConsumer(stats, UID + 2)).isNull();
+    }
+
+    private void sendBatteryChanged(int level, int plugged) {
+        final Intent intent = new Intent(Intent.ACTION_BATTERY_CHANGED)
+                .putExtra(BatteryManager.EXTRA_LEVEL, level)
+                .putExtra(BatteryManager.EXTRA_PLUGGED, plugged);
+        RuntimeEnvironment.application.sendStickyBroadcast(intent);
+    }
+}
@@ -26,6 +26,7 @@ import android.os.BatteryStatsManager;
 import android.os.BatteryUsageStats;
 import android.os.BatteryUsageStatsQuery;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -54,6 +55,11 @@ public class BatteryUsageStatsLoaderTest {
                 Context.BATTERY_STATS_SERVICE);
     }
 
+    @After
+    public void tearDown() {
+        BatteryUsageStatsCache.clear();
+    }
+
     @Test
     public void testLoadInBackground_loadWithoutHistory() {
         BatteryUsageStatsLoader loader = new BatteryUsageStatsLoader(
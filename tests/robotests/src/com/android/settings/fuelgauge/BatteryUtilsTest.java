@@ -60,6 +60,7 @@ import com.android.settings.testutils.shadow.ShadowThreadUtils;
 import com.android.settingslib.fuelgauge.Estimate;
 import com.android.settingslib.fuelgauge.PowerAllowlistBackend;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -178,6 +179,11 @@ public class BatteryUtilsTest {
         ShadowThreadUtils.setIsMainThread(true);
     }
 
+    @After
+    public void tearDown() {
+        BatteryUsageStatsCache.clear();
+    }
+
     @Test
     public void testGetProcessTimeMs_typeForeground_timeCorrect() {
         doReturn(TIME_STATE_FOREGROUND + 500).when(mBatteryUtils)
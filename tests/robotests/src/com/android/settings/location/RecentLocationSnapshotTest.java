@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.location;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.graphics.drawable.Drawable;
+import android.os.SystemClock;
+import android.os.UserHandle;
+
+import com.android.settings.dashboard.profileselector.ProfileSelectFragment;
+import com.android.settings.testutils.shadow.ShadowUserManager;
+import com.android.settingslib.applications.RecentAppOpsAccess;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.annotation.Config;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+@Config(shadows = {ShadowUserManager.class})
+public class RecentLocationSnapshotTest {
+
+    @Mock
+    private RecentAppOpsAccess mRecentAppOpsAccess;
+
+    private Context mContext;
+    private RecentLocationSnapshot<RecentAppOpsAccess.Access> mSnapshot;
+    private List<RecentLocationSnapshot.Result<RecentAppOpsAccess.Access>> mResults;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = RuntimeEnvironment.application;
+        mSnapshot = RecentLocationSnapshot.forAccesses(mContext, mRecentAppOpsAccess);
+        mResults = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() {
+        RecentLocationSnapshot.clear();
+    }
+
+    @Test
+    public void load_withinTtl_shouldQueryAppOpsOnce() {
+        when(mRecentAppOpsAccess.getAppListSorted(false)).thenReturn(createAccesses(2));
+
+        mSnapshot.load(false, mResults::add);
+        RecentLocationSnapshot.forAccesses(mContext, mRecentAppOpsAccess)
+                .load(false, mResults::add);
+
+        verify(mRecentAppOpsAccess, times(1)).getAppListSorted(false);
+        assertThat(mResults).hasSize(2);
+        assertThat(mResults.get(1)).isSameInstanceAs(mResults.get(0));
+    }
+
+    @Test
+    public void load_afterTtl_shouldQueryAppOpsAgain() {
+        when(mRecentAppOpsAccess.getAppListSorted(false)).thenReturn(createAccesses(2));
+
+        mSnapshot.load(false, mResults::add);
+        SystemClock.setCurrentTimeMillis(
+                SystemClock.elapsedRealtime() + RecentLocationSnapshot.TTL_MS);
+        mSnapshot.load(false, mResults::add);
+
+        verify(mRecentAppOpsAccess, times(2)).getAppListSorted(false);
+    }
+
+    @Test
+    public void load_showSystem_shouldNotReuseListWithoutSystemApps() {
+        when(mRecentAppOpsAccess.getAppListSorted(false)).thenReturn(createAccesses(1));
+        when(mRecentAppOpsAccess.getAppListSorted(true)).thenReturn(createAccesses(3));
+
+        mSnapshot.load(false, mResults::add);
+        mSnapshot.load(true, mResults::add);
+
+        assertThat(mResults.get(0).items).hasSize(1);
+        assertThat(mResults.get(1).items).hasSize(3);
+    }
+
+    @Test
+    public void matchesProfileType_managedProfile_shouldOnlyMatchWork() {
+        ShadowUserManager.getShadow().setManagedProfiles(Collections.singleton(1));
+        when(mRecentAppOpsAccess.getAppListSorted(false)).thenReturn(createAccesses(2));
+
+        mSnapshot.load(false, mResults::add);
+
+        final RecentLocationSnapshot.Result<RecentAppOpsAccess.Access> result = mResults.get(0);
+        assertThat(result.matchesProfileType(UserHandle.of(1),
+                ProfileSelectFragment.ProfileType.WORK)).isTrue();
+        assertThat(result.matchesProfileType(UserHandle.of(1),
+                ProfileSelectFragment.ProfileType.PERSONAL)).isFalse();
+        assertThat(result.matchesProfileType(UserHandle.of(0),
+                ProfileSelectFragment.ProfileType.PERSONAL)).isTrue();
+    }
+
+    private List<RecentAppOpsAccess.Access> createAccesses(int count) {
+        final List<RecentAppOpsAccess.Access> accesses = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            accesses.add(new RecentAppOpsAccess.Access("packageName" + i, UserHandle.of(i),
+                    mock(Drawable.class), "appTitle" + i, "appSummary" + i, 1000 - i));
+        }
+        return accesses;
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.notification.history;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.ApplicationInfo;
+import android.content.pm.PackageManager;
+import android.graphics.Color;
+import android.graphics.drawable.ColorDrawable;
+import android.net.Uri;
+import android.os.UserHandle;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+@RunWith(RobolectricTestRunner.class)
+public class AppLabelIconCacheTest {
+
+    private static final String PACKAGE_NAME = "com.android.test";
+    private static final int WORK_USER_ID = 10;
+
+    @Mock
+    private PackageManager mPm;
+
+    private Context mContext;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        mContext = RuntimeEnvironment.application;
+        final ApplicationInfo info = new ApplicationInfo();
+        info.packageName = PACKAGE_NAME;
+        when(mPm.getApplicationInfoAsUser(eq(PACKAGE_NAME), anyInt(), anyInt()))
+                .thenReturn(info);
+        when(mPm.getApplicationLabel(info)).thenReturn("label");
+        when(mPm.getApplicationIcon(info)).thenReturn(new ColorDrawable(Color.RED));
+        when(mPm.getUserBadgedIcon(any(), any()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @After
+    public void tearDown() {
+        AppLabelIconCache.clear();
+    }
+
+    @Test
+    public void get_twice_shouldLoadOnceAndNotShareIcon() throws Exception {
+        final AppLabelIconCache.Entry first =
+                AppLabelIconCache.get(mContext, mPm, PACKAGE_NAME, UserHandle.USER_SYSTEM);
+        final AppLabelIconCache.Entry second =
+                AppLabelIconCache.get(mContext, mPm, PACKAGE_NAME, UserHandle.USER_SYSTEM);
+
+        verify(mPm).getApplicationInfoAsUser(eq(PACKAGE_NAME), anyInt(),
+                eq(UserHandle.USER_SYSTEM));
+        assertThat(second.label).isEqualTo("label");
+        assertThat(first.icon).isNotNull();
+        assertThat(second.icon).isNotNull();
+        assertThat(second.icon).isNotSameInstanceAs(first.icon);
+    }
+
+    @Test
+    public void get_missingPackage_shouldNotCache() throws Exception {
+        when(mPm.getApplicationInfoAsUser(eq(PACKAGE_NAME), anyInt(), anyInt()))
+                .thenThrow(new PackageManager.NameNotFoundException());
+
+        AppLabelIconCache.get(mContext, mPm, PACKAGE_NAME, UserHandle.USER_SYSTEM);
+        final AppLabelIconCache.Entry entry =
+                AppLabelIconCache.get(mContext, mPm, PACKAGE_NAME, UserHandle.USER_SYSTEM);
+
+        verify(mPm, times(2)).getApplicationInfoAsUser(eq(PACKAGE_NAME), anyInt(),
+                eq(UserHandle.USER_SYSTEM));
+        assertThat(entry.label).isNull();
+    }
+
+    @Test
+    public void onPackageChanged_shouldEvictPackageOfThatUserOnly() throws Exception {
+        AppLabelIconCache.get(mContext, mPm, PACKAGE_NAME, UserHandle.USER_SYSTEM);
+        AppLabelIconCache.get(mContext, mPm, PACKAGE_NAME, WORK_USER_ID);
+
+        final Intent intent = new Intent(Intent.ACTION_PACKAGE_CHANGED,
+                Uri.fromParts("package", PACKAGE_NAME, null /* fragment */));
+        intent.putExtra(Intent.EXTRA_UID, UserHandle.getUid(WORK_USER_ID, 10123));
+        AppLabelIconCache.sPackageReceiver.onReceive(mContext, intent);
+        AppLabelIconCache.get(mContext, mPm, PACKAGE_NAME, UserHandle.USER_SYSTEM);
+        AppLabelIconCache.get(mContext, mPm, PACKAGE_NAME, WORK_USER_ID);
+
+        verify(mPm).getApplicationInfoAsUser(eq(PACKAGE_NAME), anyInt(),
+                eq(UserHandle.USER_SYSTEM));
+        verify(mPm, times(2)).getApplicationInfoAsUser(eq(PACKAGE_NAME), anyInt(),
+                eq(WORK_USER_ID));
+    }
+
+    @Test
+    public void onPackageRemoved_withoutUid_shouldEvictPackageOfAllUsers() throws Exception {
+        AppLabelIconCache.get(mContext, mPm, PACKAGE_NAME, UserHandle.USER_SYSTEM);
+        AppLabelIconCache.get(mContext, mPm, PACKAGE_NAME, WORK_USER_ID);
+
+        AppLabelIconCache.sPackageReceiver.onReceive(mContext, new Intent(
+                Intent.ACTION_PACKAGE_REMOVED,
+                Uri.fromParts("package", PACKAGE_NAME, null /* fragment */)));
+        AppLabelIconCache.get(mContext, mPm, PACKAGE_NAME, UserHandle.USER_SYSTEM);
+        AppLabelIconCache.get(mContext, mPm, PACKAGE_NAME, WORK_USER_ID);
+
+        verify(mPm, times(2)).getApplicationInfoAsUser(eq(PACKAGE_NAME), anyInt(),
+                eq(UserHandle.USER_SYSTEM));
+        verify(mPm, times(2)).getApplicationInfoAsUser(eq(PACKAGE_NAME), anyInt(),
+                eq(WORK_USER_ID));
+    }
+}
@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.notification.history;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+import android.app.NotificationHistory;
+import android.app.NotificationHistory.HistoricalNotification;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.os.Parcel;
+import android.os.UserHandle;
+
+import com.android.settings.notification.NotificationBackend;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@RunWith(RobolectricTestRunner.class)
+public class HistoryLoaderTest {
+
+    private static final int PACKAGE_COUNT = 10;
+
+    @Mock
+    private NotificationBackend mBackend;
+    @Mock
+    private PackageManager mPm;
+
+    private Context mContext;
+    private final List<String> mLoadedPackages = new ArrayList<>();
+    private int mHistoryLoadedCount;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = RuntimeEnvironment.application;
+        when(mBackend.getNotificationHistory(any(), any()))
+                .thenAnswer(invocation -> createHistory(PACKAGE_COUNT));
+    }
+
+    @After
+    public void tearDown() {
+        AppLabelIconCache.clear();
+    }
+
+    @Test
+    public void load_shouldDeliverEveryPackageInRecencyOrder() {
+        final HistoryLoader loader = new HistoryLoader(mContext, mBackend, mPm);
+
+        loader.load(createListener(null /* loaderToCancel */));
+
+        assertThat(mLoadedPackages).hasSize(PACKAGE_COUNT);
+        assertThat(mLoadedPackages.get(0)).isEqualTo("pkg" + (PACKAGE_COUNT - 1));
+        assertThat(mHistoryLoadedCount).isEqualTo(1);
+    }
+
+    @Test
+    public void cancel_duringLoad_shouldDropRemainingBatches() {
+        final HistoryLoader loader = new HistoryLoader(mContext, mBackend, mPm);
+
+        loader.load(createListener(loader));
+
+        // Only the first batch was delivered before the load was cancelled.
+        assertThat(mLoadedPackages).isNotEmpty();
+        assertThat(mLoadedPackages.size()).isLessThan(PACKAGE_COUNT);
+        assertThat(mHistoryLoadedCount).isEqualTo(0);
+    }
+
+    @Test
+    public void cancel_beforeLoad_shouldDeliverNothing() {
+        final HistoryLoader loader = new HistoryLoader(mContext, mBackend, mPm);
+        loader.cancel();
+
+        loader.load(createListener(null /* loaderToCancel */));
+
+        assertThat(mLoadedPackages).isEmpty();
+        assertThat(mHistoryLoadedCount).isEqualTo(0);
+    }
+
+    private HistoryLoader.OnHistoryLoaderListener createListener(HistoryLoader loaderToCancel) {
+        return new HistoryLoader.OnHistoryLoaderListener() {
+            @Override
+            public void onPackagesLoaded(List<NotificationHistoryPackage> notificationsByPackage,
+                    int position) {
+                for (NotificationHistoryPackage nhp : notificationsByPackage) {
+                    mLoadedPackages.add(nhp.pkgName);
+                }
+                if (loaderToCancel != null) {
+                    // As when the activity is paused or history is turned off meanwhile.
+                    loaderToCancel.cancel();
+                }
+            }
+
+            @Override
+            public void onHistoryLoaded(List<NotificationHistoryPackage> notificationsByPackage) {
+                mHistoryLoadedCount++;
+            }
+        };
+    }
+
+    /** Returns a history with one notification per package, the last package being the newest. */
+    private static NotificationHistory createHistory(int packageCount) {
+        final NotificationHistory history = new NotificationHistory();
+        for (int i = 0; i < packageCount; i++) {
+            history.addNotificationToWrite(new HistoricalNotification.Builder()
+                    .setPackage("pkg" + i)
+                    .setChannelName("channel")
+                    .setChannelId("channel")
+                    .setUid(10000 + i)
+                    .setUserId(UserHandle.USER_SYSTEM)
+                    .setPostedTimeMs(1000 + i)
+                    .setTitle("title")
+                    .setText("text")
+                    .build());
+        }
+        // Notifications are only read back from a parcel, as the system server sends them.
+        history.poolStringsFromNotifications();
+        final Parcel parcel = Parcel.obtain();
+        try {
+            history.writeToParcel(parcel, 0 /* flags */);
+            parcel.setDataPosition(0);
+            return NotificationHistory.CREATOR.createFromParcel(parcel);
+        } finally {
+            parcel.recycle();
+        }
+    }
+}
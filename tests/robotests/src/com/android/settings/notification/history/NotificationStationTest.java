@@ -0,0 +1,172 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.notification.history;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+import android.app.INotificationManager;
+import android.app.Notification;
+import android.content.Context;
+import android.os.UserHandle;
+import android.service.notification.NotificationListenerService.RankingMap;
+import android.service.notification.StatusBarNotification;
+
+import androidx.fragment.app.FragmentActivity;
+import androidx.preference.Preference;
+
+import com.android.settings.R;
+import com.android.settings.testutils.FakeFeatureFactory;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+import org.robolectric.shadows.androidx.fragment.FragmentController;
+import org.robolectric.util.ReflectionHelpers;
+
+@RunWith(RobolectricTestRunner.class)
+public class NotificationStationTest {
+
+    private static final StatusBarNotification[] NO_NOTIFICATIONS = new StatusBarNotification[0];
+
+    @Mock
+    private INotificationManager mNoMan;
+    @Mock
+    private RankingMap mRankingMap;
+
+    private Context mContext;
+    private NotificationStation mFragment;
+
+    @Before
+    public void setUp() throws Exception {
+        MockitoAnnotations.initMocks(this);
+        mContext = RuntimeEnvironment.application;
+        FakeFeatureFactory.setupForTest();
+        mFragment = new NotificationStation();
+        FragmentController.setupFragment(mFragment, FragmentActivity.class,
+                0 /* containerViewId */, null /* bundle */);
+        ReflectionHelpers.setField(mFragment, "mNoMan", mNoMan);
+        when(mNoMan.getHistoricalNotificationsWithAttribution(any(), any(), anyInt(),
+                anyBoolean())).thenReturn(NO_NOTIFICATIONS);
+    }
+
+    @Test
+    public void populateNotifications_shouldAddEveryPage() throws Exception {
+        when(mNoMan.getActiveNotificationsWithAttribution(any(), any()))
+                .thenReturn(createNotifications(45));
+
+        mFragment.populateNotifications();
+
+        assertThat(mFragment.getPreferenceScreen().getPreferenceCount()).isEqualTo(45);
+    }
+
+    @Test
+    public void populateNotifications_calledAgain_shouldReplaceLoadedNotifications()
+            throws Exception {
+        when(mNoMan.getActiveNotificationsWithAttribution(any(), any()))
+                .thenReturn(createNotifications(30))
+                .thenReturn(createNotifications(5));
+
+        mFragment.populateNotifications();
+        mFragment.populateNotifications();
+
+        assertThat(mFragment.getPreferenceScreen().getPreferenceCount()).isEqualTo(5);
+    }
+
+    @Test
+    public void onNotificationPosted_whileLoading_shouldAddAfterLoad() throws Exception {
+        final StatusBarNotification posted = createNotification(100);
+        when(mNoMan.getActiveNotificationsWithAttribution(any(), any())).thenAnswer(
+                invocation -> {
+                    mFragment.mListener.onNotificationPosted(posted, mRankingMap);
+                    // Nothing has been shown yet, the update waits for the load to finish.
+                    assertThat(mFragment.getPreferenceScreen()
+                            .findPreference(posted.getKey())).isNull();
+                    return createNotifications(3);
+                });
+
+        mFragment.populateNotifications();
+
+        assertThat(mFragment.getPreferenceScreen().getPreferenceCount()).isEqualTo(4);
+        assertThat(mFragment.getPreferenceScreen().findPreference(posted.getKey())).isNotNull();
+    }
+
+    @Test
+    public void onNotificationRankingUpdate_whileLoading_shouldUpdateAfterLoad()
+            throws Exception {
+        final StatusBarNotification[] active = createNotifications(1);
+        when(mNoMan.getActiveNotificationsWithAttribution(any(), any())).thenAnswer(
+                invocation -> {
+                    // The load started without a ranking, and keeps using that snapshot.
+                    mFragment.mListener.onNotificationRankingUpdate(mRankingMap);
+                    return active;
+                });
+
+        mFragment.populateNotifications();
+
+        // The queued update applied the new ranking, which has no entry for the notification.
+        assertThat(getRankingExtra(active[0].getKey()).toString()).contains(
+                mContext.getString(R.string.notification_log_details_ranking_none));
+    }
+
+    @Test
+    public void onNotificationRankingUpdate_afterLoad_shouldUpdateNotifications()
+            throws Exception {
+        final StatusBarNotification[] active = createNotifications(1);
+        when(mNoMan.getActiveNotificationsWithAttribution(any(), any())).thenReturn(active);
+        mFragment.populateNotifications();
+        assertThat(getRankingExtra(active[0].getKey())).isNull();
+
+        mFragment.mListener.onNotificationRankingUpdate(mRankingMap);
+
+        assertThat(getRankingExtra(active[0].getKey()).toString()).contains(
+                mContext.getString(R.string.notification_log_details_ranking_none));
+    }
+
+    private CharSequence getRankingExtra(String key) {
+        final Preference preference = mFragment.getPreferenceScreen().findPreference(key);
+        final Object info = ReflectionHelpers.getField(preference, "mInfo");
+        return ReflectionHelpers.getField(info, "rankingExtra");
+    }
+
+    private StatusBarNotification[] createNotifications(int count) {
+        final StatusBarNotification[] sbns = new StatusBarNotification[count];
+        for (int i = 0; i < count; i++) {
+            sbns[i] = createNotification(i);
+        }
+        return sbns;
+    }
+
+    private StatusBarNotification createNotification(int id) {
+        final Notification notification = new Notification.Builder(mContext, "channel")
+                .setSmallIcon(R.drawable.ic_settings_24dp)
+                .setContentTitle("title " + id)
+                .build();
+        return new StatusBarNotification(mContext.getPackageName(), mContext.getPackageName(),
+                id, null /* tag */, 0 /* uid */, 0 /* initialPid */, notification,
+                UserHandle.of(UserHandle.USER_SYSTEM), null /* overrideGroupKey */,
+                id /* postTime */);
+    }
+}
@@ -17,6 +17,8 @@
 
 package com.android.settings.panel;
 
+import static android.app.slice.Slice.HINT_ERROR;
+
 import static com.google.common.truth.Truth.assertThat;
 
 import static org.mockito.ArgumentMatchers.any;
@@ -29,6 +31,7 @@ import android.app.settings.SettingsEnums;
 import android.content.Context;
 import android.net.Uri;
 import android.os.Bundle;
+import android.util.LruCache;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.widget.Button;
@@ -37,10 +40,15 @@ import android.widget.ProgressBar;
 import android.widget.TextView;
 
 import androidx.core.graphics.drawable.IconCompat;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import androidx.recyclerview.widget.RecyclerView;
+import androidx.slice.Slice;
 
 import com.android.settings.R;
 import com.android.settings.testutils.FakeFeatureFactory;
 
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -49,7 +57,9 @@ import org.robolectric.Robolectric;
 import org.robolectric.RobolectricTestRunner;
 import org.robolectric.RuntimeEnvironment;
 import org.robolectric.android.controller.ActivityController;
+import org.robolectric.util.ReflectionHelpers;
 
+import java.util.Map;
 import java.util.Objects;
 
 @RunWith(RobolectricTestRunner.class)
@@ -82,6 +92,11 @@ public class PanelFragmentTest {
         doReturn(mFakePanelContent).when(mPanelFeatureProvider).getPanel(any(), any());
     }
 
+    @After
+    public void tearDown() {
+        PanelSliceCache.clear();
+    }
+
     private void initFakeActivity() {
         mActivity = spy(Robolectric.buildActivity(FakeSettingsPanelActivity.class).setup().get());
 
@@ -109,6 +124,28 @@ public class PanelFragmentTest {
         assertThat(countdownLatch.isPanelReadyToLoad()).isTrue();
     }
 
+    @Test
+    public void loadSlices_cachedSliceTurnsToError_shouldRemoveRow() {
+        final Uri uri = FakePanelContent.SLICE_URIS.get(0);
+        final LruCache<Uri, Slice> cache =
+                ReflectionHelpers.getStaticField(PanelSliceCache.class, "sSlices");
+        cache.put(uri, new Slice.Builder(uri).build());
+        final PanelFragment fragment = (PanelFragment) Robolectric
+                .buildActivity(FakeSettingsPanelActivity.class).setup().get()
+                .getSupportFragmentManager().findFragmentById(R.id.main_content);
+        final RecyclerView panelSlices = fragment.getView().findViewById(R.id.panel_parent_layout);
+        // The cached slice is shown right away.
+        assertThat(panelSlices.getAdapter().getItemCount()).isEqualTo(1);
+
+        final Map<Uri, LiveData<Slice>> sliceLiveData =
+                ReflectionHelpers.getField(fragment, "mSliceLiveData");
+        ((MediatorLiveData<Slice>) sliceLiveData.get(uri)).setValue(
+                new Slice.Builder(uri).addHints(HINT_ERROR).build());
+
+        assertThat(panelSlices.getAdapter().getItemCount()).isEqualTo(0);
+        assertThat(PanelSliceCache.get(uri)).isNull();
+    }
+
     @Test
     public void onCreate_logsOpenEvent() {
         initFakeActivity();
@@ -123,6 +123,22 @@ public class PanelSlicesAdapterTest {
         assertThat(adapter.getData().size()).isEqualTo(MAX_NUM_OF_SLICES);
     }
 
+    @Test
+    public void removeSliceLiveData_shouldRemoveRowAndKeepMaxNum() {
+        for (int i = 0; i < MAX_NUM_OF_SLICES + 2; i++) {
+            addTestLiveData(Uri.parse("uri" + i));
+        }
+        final PanelSlicesAdapter adapter =
+                new PanelSlicesAdapter(mPanelFragment, mData, 0 /* metrics category */);
+        final LiveData<Slice> removed = mData.get(Uri.parse("uri0"));
+
+        adapter.removeSliceLiveData(removed);
+
+        assertThat(adapter.getItemCount()).isEqualTo(MAX_NUM_OF_SLICES);
+        assertThat(adapter.getData()).doesNotContain(removed);
+        assertThat(adapter.getData()).contains(mData.get(Uri.parse("uri" + MAX_NUM_OF_SLICES)));
+    }
+
     @Test
     public void mediaOutputIndicatorSlice_notSliderPanel_noSliderLayout() {
         addTestLiveData(MEDIA_OUTPUT_INDICATOR_SLICE_URI);
@@ -30,6 +30,8 @@ import static org.mockito.Mockito.when;
 
 import android.content.res.Configuration;
 import android.os.Build;
+import android.os.Bundle;
+import android.provider.Settings;
 import android.view.Window;
 import android.view.WindowManager;
 
@@ -179,4 +181,24 @@ public class SettingsPanelActivityTest {
 
         verify(mPanelFragment, never()).updatePanelWithAnimation();
     }
+
+    @Test
+    public void getPrewarmSliceUris_shouldReturnSlicesOfPanel() {
+        final Bundle arguments = new Bundle();
+        arguments.putString(SettingsPanelActivity.KEY_PANEL_TYPE_ARGUMENT,
+                FakePanelContent.FAKE_ACTION);
+
+        assertThat(mSettingsPanelActivity.getPrewarmSliceUris(arguments))
+                .containsExactlyElementsIn(mFakePanelContent.getSlices());
+    }
+
+    @Test
+    public void getPrewarmSliceUris_internetPanel_shouldNotGetPanel() {
+        final Bundle arguments = new Bundle();
+        arguments.putString(SettingsPanelActivity.KEY_PANEL_TYPE_ARGUMENT,
+                Settings.Panel.ACTION_INTERNET_CONNECTIVITY);
+
+        assertThat(mSettingsPanelActivity.getPrewarmSliceUris(arguments)).isEmpty();
+        verify(mPanelFeatureProvider, never()).getPanel(any(), any());
+    }
 }
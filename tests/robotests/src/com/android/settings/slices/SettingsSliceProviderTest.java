@@ -268,6 +268,25 @@ public class SettingsSliceProviderTest {
         assertThat(slice).isNull();
     }
 
+    @Test
+    public void onBindSlice_shouldRecordBindLatency() {
+        final SliceData data = getMockData();
+        mProvider.mSliceWeakDataCache.put(data.getUri(), data);
+
+        mProvider.onBindSlice(data.getUri());
+        mProvider.onBindSlice(data.getUri());
+
+        assertThat(mProvider.mBindStats.get(data.getUri()).mCount).isEqualTo(2);
+    }
+
+    @Test
+    public void getBlockedKeys_blockedSlicesSet_returnsParsedKeys() {
+        Settings.Global.putString(mContext.getContentResolver(),
+                Settings.Global.BLOCKED_SLICES, "key1:key2");
+
+        assertThat(mProvider.getBlockedKeys()).containsExactly("key1", "key2");
+    }
+
     @Test
     public void onBindSlice_nightModeChanged_shouldReloadTheme() {
         mContext.getResources().getConfiguration().uiMode = UI_MODE_NIGHT_NO;
@@ -624,6 +643,19 @@ public class SettingsSliceProviderTest {
         verify(ShadowWifiScanWorker.getWifiTracker()).onDestroy();
     }
 
+    @Test
+    public void shutdown_shouldUnregisterBlockedSlicesObserver() {
+        final Uri blockedSlicesUri = Settings.Global.getUriFor(Settings.Global.BLOCKED_SLICES);
+        mProvider.getBlockedKeys();
+        assertThat(Shadows.shadowOf(mContext.getContentResolver())
+                .getContentObservers(blockedSlicesUri)).isNotEmpty();
+
+        mProvider.shutdown();
+
+        assertThat(Shadows.shadowOf(mContext.getContentResolver())
+                .getContentObservers(blockedSlicesUri)).isEmpty();
+    }
+
     @Test
     @Config(qualifiers = "mcc998")
     public void grantAllowlistedPackagePermissions_noAllowlist_shouldNotGrant() {
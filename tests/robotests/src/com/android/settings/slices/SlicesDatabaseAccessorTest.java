@@ -19,6 +19,8 @@ package com.android.settings.slices;
 
 import static android.content.ContentResolver.SCHEME_CONTENT;
 
+import static com.android.settings.slices.SlicesDatabaseHelper.Tables.TABLE_SLICES_INDEX;
+
 import static com.google.common.truth.Truth.assertThat;
 
 import static org.mockito.Mockito.spy;
@@ -133,6 +135,32 @@ public class SlicesDatabaseAccessorTest {
         mAccessor.getSliceDataFromKey(key);
     }
 
+    @Test
+    public void testGetSliceDataFromKey_cachedKey_returnedWithoutDatabase() {
+        final String key = "key";
+        SliceTestUtils.insertSliceToDb(mContext, key);
+        mAccessor.getSliceDataFromKey(key);
+        SlicesDatabaseHelper.getInstance(mContext).getWritableDatabase()
+                .delete(TABLE_SLICES_INDEX, null /* whereClause */, null /* whereArgs */);
+
+        final SliceData data = mAccessor.getSliceDataFromKey(key);
+
+        assertThat(data.getKey()).isEqualTo(key);
+        assertThat(data.getTitle()).isEqualTo(SliceTestUtils.FAKE_TITLE);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testGetSliceDataFromKey_databaseReconstructed_cacheInvalidated() {
+        final String key = "key";
+        SliceTestUtils.insertSliceToDb(mContext, key);
+        mAccessor.getSliceDataFromKey(key);
+        final SlicesDatabaseHelper helper = SlicesDatabaseHelper.getInstance(mContext);
+        helper.reconstruct(helper.getWritableDatabase());
+        helper.setIndexedState();
+
+        mAccessor.getSliceDataFromKey(key);
+    }
+
     @Test
     public void testGetSliceFromUri_validUri_validSliceReturned() {
         final String key = "key";
@@ -152,7 +152,7 @@ public class ShadowUtils {
     }
 
     @Implementation
-    protected static Drawable getBadgedIcon(Context context, ApplicationInfo appInfo) {
+    protected static Drawable getBadgedIconCached(Context context, ApplicationInfo appInfo) {
         return new ColorDrawable(0);
     }
 
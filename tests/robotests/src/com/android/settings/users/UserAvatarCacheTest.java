@@ -0,0 +1,110 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.users;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doReturn;
+
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.Bitmap;
+import android.os.UserManager;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.Collections;
+
+@RunWith(RobolectricTestRunner.class)
+public class UserAvatarCacheTest {
+
+    private static final int USER_ID = 10;
+
+    @Mock
+    private UserManager mUserManager;
+
+    private Context mContext;
+    private UserAvatarCache mCache;
+
+    @Before
+    public void setUp() {
+        MockitoAnnotations.initMocks(this);
+        mContext = RuntimeEnvironment.application;
+        mCache = new UserAvatarCache();
+        mCache.init(mContext);
+    }
+
+    @Test
+    public void scaleDown_largeBitmap_shouldScaleShortSideToSize() {
+        final Bitmap bitmap = Bitmap.createBitmap(400, 800, Bitmap.Config.ARGB_8888);
+
+        final Bitmap scaled = UserAvatarCache.scaleDown(bitmap, 100);
+
+        assertThat(scaled.getWidth()).isEqualTo(100);
+        assertThat(scaled.getHeight()).isEqualTo(200);
+    }
+
+    @Test
+    public void scaleDown_smallBitmap_shouldKeepBitmap() {
+        final Bitmap bitmap = Bitmap.createBitmap(50, 50, Bitmap.Config.ARGB_8888);
+
+        assertThat(UserAvatarCache.scaleDown(bitmap, 100)).isSameInstanceAs(bitmap);
+    }
+
+    @Test
+    public void loadUserIcons_shouldCacheIcon() {
+        final Bitmap icon = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+        doReturn(icon).when(mUserManager).getUserIcon(USER_ID);
+
+        mCache.loadUserIcons(mContext, mUserManager, Collections.singletonList(USER_ID), () -> {
+        });
+
+        assertThat(mCache.get(USER_ID)).isSameInstanceAs(icon);
+    }
+
+    @Test
+    public void loadUserIcons_userInfoChangedWhileLoading_shouldNotCacheIcon() {
+        final Bitmap icon = Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888);
+        doAnswer(invocation -> {
+            mContext.sendBroadcast(new Intent(Intent.ACTION_USER_INFO_CHANGED)
+                    .putExtra(Intent.EXTRA_USER_HANDLE, USER_ID));
+            return icon;
+        }).when(mUserManager).getUserIcon(USER_ID);
+
+        mCache.loadUserIcons(mContext, mUserManager, Collections.singletonList(USER_ID), () -> {
+        });
+
+        assertThat(mCache.get(USER_ID)).isNull();
+    }
+
+    @Test
+    public void onUserInfoChanged_shouldDropIcon() {
+        mCache.put(USER_ID, Bitmap.createBitmap(10, 10, Bitmap.Config.ARGB_8888));
+
+        mContext.sendBroadcast(new Intent(Intent.ACTION_USER_INFO_CHANGED)
+                .putExtra(Intent.EXTRA_USER_HANDLE, USER_ID));
+
+        assertThat(mCache.get(USER_ID)).isNull();
+    }
+}
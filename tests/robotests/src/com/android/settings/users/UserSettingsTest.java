@@ -168,6 +168,7 @@ public class UserSettingsTest {
     public void tearDown() {
         Settings.Global.putInt(mContext.getContentResolver(),
                 Settings.Global.DEVICE_PROVISIONED, mProvisionedBackupValue);
+        UserAvatarCache.getInstance().clear();
     }
 
     @Test
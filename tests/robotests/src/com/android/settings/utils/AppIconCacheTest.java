@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.utils;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.BitmapDrawable;
+import android.graphics.drawable.ColorDrawable;
+import android.graphics.drawable.Drawable;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+import org.robolectric.RuntimeEnvironment;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+@RunWith(RobolectricTestRunner.class)
+public class AppIconCacheTest {
+    private static final String PACKAGE_NAME = "com.android.app";
+    private static final int MAX_ICON_SIZE = 48;
+
+    private Context mContext;
+    private AppIconCache mCache;
+    private AtomicInteger mLoads;
+
+    @Before
+    public void setUp() {
+        mContext = RuntimeEnvironment.application;
+        mCache = new AppIconCache(MAX_ICON_SIZE);
+        mLoads = new AtomicInteger();
+    }
+
+    @Test
+    public void getIcon_twice_shouldLoadOnce() {
+        mCache.getIcon(mContext, PACKAGE_NAME, 0, AppIconCache.Variant.BADGED, loader(48));
+        mCache.getIcon(mContext, PACKAGE_NAME, 0, AppIconCache.Variant.BADGED, loader(48));
+
+        assertThat(mLoads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void getIcon_otherUserOrVariant_shouldLoadAgain() {
+        mCache.getIcon(mContext, PACKAGE_NAME, 0, AppIconCache.Variant.BADGED, loader(48));
+        mCache.getIcon(mContext, PACKAGE_NAME, 10, AppIconCache.Variant.BADGED, loader(48));
+        mCache.getIcon(mContext, PACKAGE_NAME, 0, AppIconCache.Variant.FACTORY_BADGED,
+                loader(48));
+
+        assertThat(mLoads.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void getIcon_largeIcon_shouldDownSample() {
+        final Drawable icon = mCache.getIcon(mContext, PACKAGE_NAME, 0,
+                AppIconCache.Variant.BADGED, loader(192));
+
+        assertThat(((BitmapDrawable) icon).getBitmap().getWidth()).isEqualTo(MAX_ICON_SIZE);
+    }
+
+    @Test
+    public void getIcon_noIntrinsicSize_shouldNotCache() {
+        final ColorDrawable color = new ColorDrawable(0);
+
+        final Drawable icon = mCache.getIcon(mContext, PACKAGE_NAME, 0,
+                AppIconCache.Variant.BADGED, () -> color);
+
+        assertThat(icon).isSameInstanceAs(color);
+        mCache.getIcon(mContext, PACKAGE_NAME, 0, AppIconCache.Variant.BADGED, loader(48));
+        assertThat(mLoads.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void removePackage_shouldDropEntriesOfPackage() {
+        mCache.getIcon(mContext, PACKAGE_NAME, 0, AppIconCache.Variant.BADGED, loader(48));
+        mCache.getIcon(mContext, PACKAGE_NAME + ".other", 0, AppIconCache.Variant.BADGED,
+                loader(48));
+
+        mCache.removePackage(PACKAGE_NAME);
+        mCache.getIcon(mContext, PACKAGE_NAME, 0, AppIconCache.Variant.BADGED, loader(48));
+        mCache.getIcon(mContext, PACKAGE_NAME + ".other", 0, AppIconCache.Variant.BADGED,
+                loader(48));
+
+        assertThat(mLoads.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void onTrimMemory_background_shouldDropEntries() {
+        mCache.getIcon(mContext, PACKAGE_NAME, 0, AppIconCache.Variant.BADGED, loader(48));
+
+        mCache.onTrimMemory(ComponentCallbacks2.TRIM_MEMORY_BACKGROUND);
+        mCache.getIcon(mContext, PACKAGE_NAME, 0, AppIconCache.Variant.BADGED, loader(48));
+
+        assertThat(mLoads.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void dump_shouldReportHitRate() throws Exception {
+        mCache.getIcon(mContext, PACKAGE_NAME, 0, AppIconCache.Variant.BADGED, loader(48));
+        mCache.getIcon(mContext, PACKAGE_NAME, 0, AppIconCache.Variant.BADGED, loader(48));
+
+        assertThat(mCache.dump().getInt("hits")).isEqualTo(1);
+        assertThat(mCache.dump().getInt("misses")).isEqualTo(1);
+        assertThat(mCache.dump().getDouble("hit_rate")).isEqualTo(0.5);
+    }
+
+    private Supplier<Drawable> loader(int size) {
+        return () -> {
+            mLoads.incrementAndGet();
+            return new BitmapDrawable(mContext.getResources(),
+                    Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888));
+        };
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.wifi;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+@RunWith(RobolectricTestRunner.class)
+public class WifiEntryListDiffTest {
+
+    @Test
+    public void calculate_sameKeys_shouldBeEmpty() {
+        final WifiEntryListDiff diff = WifiEntryListDiff.calculate(
+                Arrays.asList("a", "b", "c"), Arrays.asList("a", "b", "c"), key -> false);
+
+        assertThat(diff.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void calculate_insertAndRemove_shouldNotReportMoves() {
+        final WifiEntryListDiff diff = WifiEntryListDiff.calculate(
+                Arrays.asList("a", "b", "c"), Arrays.asList("x", "a", "c"), key -> false);
+
+        assertThat(diff.getInserted()).containsExactly("x");
+        assertThat(diff.getRemoved()).containsExactly("b");
+        assertThat(diff.getMoved()).isEmpty();
+        assertThat(diff.getUpdated()).isEmpty();
+    }
+
+    @Test
+    public void calculate_reorderedKeys_shouldReportMoves() {
+        final WifiEntryListDiff diff = WifiEntryListDiff.calculate(
+                Arrays.asList("a", "b", "c"), Arrays.asList("c", "a", "b"), key -> false);
+
+        assertThat(diff.getMoved()).containsExactly("c", "a", "b");
+        assertThat(diff.getInserted()).isEmpty();
+        assertThat(diff.getRemoved()).isEmpty();
+    }
+
+    @Test
+    public void calculate_replacedEntry_shouldReportUpdate() {
+        final WifiEntryListDiff diff = WifiEntryListDiff.calculate(
+                Arrays.asList("a", "b"), Arrays.asList("a", "b"), key -> key.equals("b"));
+
+        assertThat(diff.getUpdated()).containsExactly("b");
+        assertThat(diff.getInserted()).isEmpty();
+        assertThat(diff.getRemoved()).isEmpty();
+    }
+
+    @Test
+    public void calculate_emptyToList_shouldInsertAll() {
+        final WifiEntryListDiff diff = WifiEntryListDiff.calculate(
+                Collections.emptyList(), Arrays.asList("a", "b"), key -> false);
+
+        assertThat(diff.getInserted()).containsExactly("a", "b").inOrder();
+    }
+}
@@ -366,4 +366,13 @@ public class WifiSettingsTest {
         when(wifiDialog2.getController()).thenReturn(controller);
         return wifiDialog2;
     }
+
+    @Test
+    public void getUpdateIntervalMs_shouldScaleWithEntryCountWithinBounds() {
+        assertThat(WifiSettings.getUpdateIntervalMs(0))
+                .isEqualTo(WifiSettings.MIN_UPDATE_INTERVAL_MS);
+        assertThat(WifiSettings.getUpdateIntervalMs(100)).isEqualTo(300);
+        assertThat(WifiSettings.getUpdateIntervalMs(10000))
+                .isEqualTo(WifiSettings.MAX_UPDATE_INTERVAL_MS);
+    }
 }
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.wifi.qrcode;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.graphics.Bitmap;
+import android.graphics.Color;
+
+import com.google.zxing.BinaryBitmap;
+import com.google.zxing.MultiFormatReader;
+import com.google.zxing.RGBLuminanceSource;
+import com.google.zxing.common.HybridBinarizer;
+
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class QrCodeGeneratorTest {
+
+    private static final String CONTENTS = "WIFI:S:GoogleGuest;T:WPA;P:12345678;;";
+    private static final int SIZE = 320;
+
+    @After
+    public void tearDown() {
+        QrCodeGenerator.clearCache();
+    }
+
+    @Test
+    public void encodeQrCode_shouldBeDecodable() throws Exception {
+        final Bitmap bmp = QrCodeGenerator.encodeQrCode(CONTENTS, SIZE);
+
+        assertThat(bmp.getWidth()).isEqualTo(SIZE);
+        assertThat(bmp.getHeight()).isEqualTo(SIZE);
+        assertThat(decode(bmp)).isEqualTo(CONTENTS);
+    }
+
+    @Test
+    public void encodeQrCode_shouldKeepQuietZoneWhite() throws Exception {
+        final Bitmap bmp = QrCodeGenerator.encodeQrCode(CONTENTS, SIZE);
+
+        assertThat(bmp.getPixel(0, 0)).isEqualTo(Color.WHITE);
+        assertThat(bmp.getPixel(SIZE - 1, SIZE - 1)).isEqualTo(Color.WHITE);
+    }
+
+    @Test
+    public void encodeQrCodeCached_sameContentsAndSize_shouldReuseBitmap() throws Exception {
+        final Bitmap bmp = QrCodeGenerator.encodeQrCodeCached(CONTENTS, SIZE);
+
+        assertThat(QrCodeGenerator.getCachedQrCode(CONTENTS, SIZE)).isSameInstanceAs(bmp);
+        assertThat(QrCodeGenerator.encodeQrCodeCached(CONTENTS, SIZE)).isSameInstanceAs(bmp);
+    }
+
+    @Test
+    public void encodeQrCodeCached_otherSize_shouldGenerateNewBitmap() throws Exception {
+        final Bitmap bmp = QrCodeGenerator.encodeQrCodeCached(CONTENTS, SIZE);
+
+        assertThat(QrCodeGenerator.getCachedQrCode(CONTENTS, SIZE / 2)).isNull();
+        assertThat(QrCodeGenerator.encodeQrCodeCached(CONTENTS, SIZE / 2))
+                .isNotSameInstanceAs(bmp);
+    }
+
+    private static String decode(Bitmap bmp) throws Exception {
+        final int[] pixels = new int[bmp.getWidth() * bmp.getHeight()];
+        bmp.getPixels(pixels, 0, bmp.getWidth(), 0, 0, bmp.getWidth(), bmp.getHeight());
+        final RGBLuminanceSource source =
+                new RGBLuminanceSource(bmp.getWidth(), bmp.getHeight(), pixels);
+        return new MultiFormatReader().decode(new BinaryBitmap(new HybridBinarizer(source)))
+                .getText();
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2021 The Android Open Source Project
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.android.settings.wifi.qrcode;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import android.graphics.Bitmap;
+import android.graphics.Rect;
+
+import com.google.zxing.LuminanceSource;
+import com.google.zxing.WriterException;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.robolectric.RobolectricTestRunner;
+
+@RunWith(RobolectricTestRunner.class)
+public class QrYuvLuminanceSourceTest {
+
+    private static final int WIDTH = 4;
+    private static final int HEIGHT = 3;
+
+    @Test
+    public void getRow_croppedSource_shouldReadCroppedArea() {
+        final LuminanceSource source =
+                new QrYuvLuminanceSource(createImage(), WIDTH, HEIGHT).crop(1, 1, 2, 2);
+
+        assertThat(source.getRow(0, null)).isEqualTo(new byte[] {5, 6});
+        assertThat(source.getRow(1, null)).isEqualTo(new byte[] {9, 10});
+    }
+
+    @Test
+    public void getMatrix_croppedSource_shouldCopyCroppedArea() {
+        final LuminanceSource source =
+                new QrYuvLuminanceSource(createImage(), WIDTH, HEIGHT).crop(1, 1, 2, 2);
+
+        assertThat(source.getMatrix()).isEqualTo(new byte[] {5, 6, 9, 10});
+    }
+
+    @Test
+    public void getMatrix_fullFrame_shouldNotCopy() {
+        final byte[] image = createImage();
+        final LuminanceSource source = new QrYuvLuminanceSource(image, WIDTH, HEIGHT);
+
+        assertThat(source.getMatrix()).isSameInstanceAs(image);
+    }
+
+    @Test
+    public void setData_shouldReadNewFrame() {
+        final QrYuvLuminanceSource source =
+                new QrYuvLuminanceSource(createImage(), WIDTH, HEIGHT, 1, 1, 2, 2);
+        final byte[] image = createImage();
+        image[5] = 42;
+
+        source.setData(image);
+
+        assertThat(source.getMatrix()).isEqualTo(new byte[] {42, 6, 9, 10});
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void constructor_cropOutsideImage_shouldThrow() {
+        new QrYuvLuminanceSource(createImage(), WIDTH, HEIGHT, 3, 0, 2, 2);
+    }
+
+    @Test
+    public void decode_nv21Frame_shouldReturnQrCode() throws WriterException {
+        final String url = "http://www.google.com";
+        final Bitmap bmp = QrCodeGenerator.encodeQrCode(url, 320);
+        final int width = bmp.getWidth();
+        final int height = bmp.getHeight();
+        final int[] pixels = new int[width * height];
+        bmp.getPixels(pixels, 0, width, 0, 0, width, height);
+        bmp.recycle();
+        // NV21 frame: a luminance plane followed by interleaved chroma at quarter resolution.
+        final byte[] nv21 = new byte[width * height * 3 / 2];
+        for (int i = 0; i < pixels.length; i++) {
+            nv21[i] = (byte) (pixels[i] & 0xff);
+        }
+
+        final QrFrameDecoder decoder = new QrFrameDecoder();
+
+        assertThat(decoder.decode(nv21, width, height, new Rect(0, 0, width, height)))
+                .isEqualTo(url);
+        assertThat(decoder.decode(new byte[nv21.length], width, height,
+                new Rect(0, 0, width, height))).isNull();
+    }
+
+    private static byte[] createImage() {
+        final byte[] image = new byte[WIDTH * HEIGHT];
+        for (int i = 0; i < image.length; i++) {
+            image[i] = (byte) i;
+        }
+        return image;
+    }
+}
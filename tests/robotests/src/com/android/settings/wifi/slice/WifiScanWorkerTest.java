@@ -143,4 +143,47 @@ public class WifiScanWorkerTest {
 
         verify(mWifiPickerTrackerHelper).connectCarrierNetwork(any());
     }
+
+    @Test
+    public void onSliceChangeNotified_hostNotBound_shouldBackOff() {
+        final long defaultInterval = mWifiScanWorker.getUpdateThrottleInterval();
+
+        mWifiScanWorker.onSliceChangeNotified();
+        mWifiScanWorker.onSliceChangeNotified();
+
+        assertThat(mWifiScanWorker.getUpdateThrottleInterval()).isEqualTo(defaultInterval * 2);
+    }
+
+    @Test
+    public void onSliceChangeNotified_hostNeverBinds_shouldNotExceedMaxInterval() {
+        for (int i = 0; i < 10; i++) {
+            mWifiScanWorker.onSliceChangeNotified();
+        }
+
+        assertThat(mWifiScanWorker.getUpdateThrottleInterval())
+                .isEqualTo(WifiScanWorker.MAX_UPDATE_THROTTLE_INTERVAL);
+    }
+
+    @Test
+    public void onSliceBound_afterBackOff_shouldSpeedUp() {
+        final long defaultInterval = mWifiScanWorker.getUpdateThrottleInterval();
+        mWifiScanWorker.onSliceChangeNotified();
+        mWifiScanWorker.onSliceChangeNotified();
+        mWifiScanWorker.onSliceChangeNotified();
+
+        mWifiScanWorker.onSliceBound();
+
+        assertThat(mWifiScanWorker.getUpdateThrottleInterval()).isEqualTo(defaultInterval * 2);
+    }
+
+    @Test
+    public void onSlicePinned_afterBackOff_shouldResetInterval() {
+        final long defaultInterval = mWifiScanWorker.getUpdateThrottleInterval();
+        mWifiScanWorker.onSliceChangeNotified();
+        mWifiScanWorker.onSliceChangeNotified();
+
+        mWifiScanWorker.onSlicePinned();
+
+        assertThat(mWifiScanWorker.getUpdateThrottleInterval()).isEqualTo(defaultInterval);
+    }
 }